@@ -0,0 +1,111 @@
+package com.marketplace.marketplace.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.ManagedHttpClientConnectionFactory;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.io.ManagedHttpClientConnection;
+import org.apache.hc.core5.http.io.HttpConnectionFactory;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cliente HTTP do Gemini: pool de conexões keep-alive (Apache HttpClient 5), para
+ * que as chamadas reaproveitem a conexão TLS em vez de refazer o handshake.
+ * <p>
+ * O HttpClient do JDK (via JdkClientHttpRequestFactory) também serviria e ainda falaria
+ * HTTP/2, mas o pool dele não tem limite de conexões por destino, idade máxima nem
+ * métricas, e não deixa contar as conexões criadas. O HC5 dá tudo isso; ele fala
+ * HTTP/1.1, e com o pool aquecido o ganho que importa aqui, não pagar TCP + TLS a cada
+ * busca, já vem do keep-alive. As buscas concorrentes usam conexões separadas do pool
+ * em vez de streams de uma conexão só.
+ * <p>
+ * Métricas: ai.http.client.requests, ai.http.client.connections.created,
+ * ai.http.client.connection.reuse (fração das requisições que usaram conexão já aberta),
+ * ai.http.client.ttfb (até os cabeçalhos da resposta) e httpcomponents.httpclient.pool.*.
+ */
+@Configuration
+public class AiHttpClientConfig {
+
+    @Bean
+    public PoolingHttpClientConnectionManager aiHttpConnectionManager(AiSearchProperties properties,
+                                                                      MeterRegistry meterRegistry) {
+        AiSearchProperties.Http http = properties.getHttp();
+        Counter connectionsCreated = meterRegistry.counter("ai.http.client.connections.created");
+
+        HttpConnectionFactory<ManagedHttpClientConnection> countingFactory = socket -> {
+            connectionsCreated.increment();
+            return ManagedHttpClientConnectionFactory.INSTANCE.createConnection(socket);
+        };
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setConnectionFactory(countingFactory)
+                .setMaxConnTotal(http.getMaxConnections())
+                .setMaxConnPerRoute(http.getMaxConnectionsPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(http.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(http.getReadTimeout()))
+                        .setTimeToLive(TimeValue.of(http.getTimeToLive()))
+                        .build())
+                .build();
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "gemini").bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    /**
+     * Exposto como bean para o Spring fechar o cliente (e o pool) no shutdown.
+     */
+    @Bean
+    public HttpComponentsClientHttpRequestFactory aiHttpRequestFactory(PoolingHttpClientConnectionManager aiHttpConnectionManager,
+                                                                       AiSearchProperties properties) {
+        AiSearchProperties.Http http = properties.getHttp();
+        return new HttpComponentsClientHttpRequestFactory(HttpClients.custom()
+                .setConnectionManager(aiHttpConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        // espera por uma conexão livre no pool
+                        .setConnectionRequestTimeout(Timeout.of(http.getConnectTimeout()))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(http.getIdleTimeout()))
+                .build());
+    }
+
+    @Bean
+    public RestTemplate restTemplate(HttpComponentsClientHttpRequestFactory aiHttpRequestFactory,
+                                     MeterRegistry meterRegistry) {
+        Counter requests = meterRegistry.counter("ai.http.client.requests");
+        Counter connectionsCreated = meterRegistry.counter("ai.http.client.connections.created");
+        Timer timeToFirstByte = Timer.builder("ai.http.client.ttfb")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("ai.http.client.connection.reuse", requests,
+                        r -> r.count() == 0 ? 0 : Math.max(0, 1 - connectionsCreated.count() / r.count()))
+                .register(meterRegistry);
+
+        RestTemplate restTemplate = new RestTemplate(aiHttpRequestFactory);
+        // execute() volta assim que os cabeçalhos chegam; o corpo é lido depois.
+        restTemplate.getInterceptors().add((request, body, execution) -> {
+            requests.increment();
+            long start = System.nanoTime();
+            ClientHttpResponse response = execution.execute(request, body);
+            timeToFirstByte.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return response;
+        });
+        return restTemplate;
+    }
+}
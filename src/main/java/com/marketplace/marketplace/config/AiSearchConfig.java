@@ -0,0 +1,85 @@
+package com.marketplace.marketplace.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketplace.marketplace.repository.AiQueryCacheRepository;
+import com.marketplace.marketplace.service.AiCircuitBreaker;
+import com.marketplace.marketplace.service.AiQueryNormalizer;
+import com.marketplace.marketplace.service.AiSearchService;
+import com.marketplace.marketplace.service.CachingAiSearchService;
+import com.marketplace.marketplace.service.CoalescingAiSearchService;
+import com.marketplace.marketplace.service.GeminiAiSearchService;
+import com.marketplace.marketplace.service.LocalAiSearchService;
+import com.marketplace.marketplace.service.ResilientAiSearchService;
+import com.marketplace.marketplace.service.TieredAiSearchService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Monta a cadeia de {@link AiSearchService} usada pelo ProductService:
+ * interpretador local -> cache de consultas normalizadas -> junção de chamadas
+ * simultâneas -> prazo/circuit breaker/hedging -> Gemini.
+ */
+@Configuration
+@EnableConfigurationProperties(AiSearchProperties.class)
+public class AiSearchConfig {
+
+    /**
+     * Threads que fazem as chamadas HTTP à IA. A fila é limitada: sem capacidade,
+     * a busca vai direto para o fallback em vez de acumular espera. Não é exposto
+     * como bean para não substituir o executor padrão do Spring Boot.
+     */
+    private ExecutorService aiSearchExecutor;
+
+    @PreDestroy
+    public void shutdownAiSearchExecutor() {
+        if (aiSearchExecutor != null) {
+            aiSearchExecutor.shutdownNow();
+        }
+    }
+
+    @Bean
+    public AiCircuitBreaker aiCircuitBreaker(AiSearchProperties properties) {
+        AiSearchProperties.CircuitBreaker cb = properties.getCircuitBreaker();
+        return new AiCircuitBreaker(cb.getWindowSize(), cb.getMinimumCalls(), cb.getFailureRateThreshold(), cb.getOpenDuration());
+    }
+
+    @Bean
+    @Primary
+    public AiSearchService aiSearchService(GeminiAiSearchService geminiAiSearchService,
+                                           AiCircuitBreaker aiCircuitBreaker,
+                                           AiQueryNormalizer normalizer,
+                                           AiQueryCacheRepository aiQueryCacheRepository,
+                                           ObjectMapper objectMapper,
+                                           MeterRegistry meterRegistry,
+                                           AiSearchProperties properties) {
+
+        aiSearchExecutor = SearchExecutors.bounded("ai-search", properties.getExecutor());
+
+        AiSearchProperties.Hedging hedging = properties.getHedging();
+        AiSearchService resilient = new ResilientAiSearchService(geminiAiSearchService, aiSearchExecutor,
+                properties.getDeadline(), aiCircuitBreaker,
+                hedging.isEnabled(), hedging.getPercentile(), hedging.getMinSamples(), meterRegistry);
+
+        AiSearchService coalescing = new CoalescingAiSearchService(resilient, normalizer,
+                properties.getCoalescing().getWaitTimeout(), meterRegistry);
+
+        AiSearchProperties.Cache cache = properties.getCache();
+        AiSearchService caching = new CachingAiSearchService(coalescing, normalizer,
+                cache.isPersistent() ? aiQueryCacheRepository : null, objectMapper,
+                cache.getMaxSize(), cache.getTtl(), meterRegistry);
+
+        AiSearchProperties.Local local = properties.getLocal();
+        if (!local.isEnabled()) {
+            return caching;
+        }
+        LocalAiSearchService localParser = new LocalAiSearchService(normalizer, local.getSynonyms(),
+                local.getGenericTerms(), local.getCheapMaxPrice(), local.getExpensiveMinPrice());
+        return new TieredAiSearchService(localParser, caching, local.getConfidenceThreshold(), meterRegistry);
+    }
+}
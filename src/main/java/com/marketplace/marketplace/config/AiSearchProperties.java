@@ -0,0 +1,215 @@
+package com.marketplace.marketplace.config;
+
+import com.marketplace.marketplace.domain.ProductCategory;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuração da cadeia da busca por IA (prefixo {@code marketplace.ai}).
+ */
+@ConfigurationProperties(prefix = "marketplace.ai")
+public class AiSearchProperties {
+
+    /** Prazo total de uma busca na IA, somando tentativas e hedge. */
+    private Duration deadline = Duration.ofSeconds(4);
+
+    private final Http http = new Http();
+    private final Cache cache = new Cache();
+    private final Coalescing coalescing = new Coalescing();
+    private final Executor executor = new Executor();
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+    private final Hedging hedging = new Hedging();
+    private final Local local = new Local();
+    private final Speculative speculative = new Speculative();
+    /** Tempo máximo de uma conexão de /api/product/stream. */
+    private Duration streamTimeout = Duration.ofSeconds(30);
+    /** Threads das buscas de /api/product/stream. */
+    private final Executor streamExecutor = new Executor(16, 50);
+
+    public Duration getDeadline() { return deadline; }
+    public void setDeadline(Duration deadline) { this.deadline = deadline; }
+    public Http getHttp() { return http; }
+    public Cache getCache() { return cache; }
+    public Coalescing getCoalescing() { return coalescing; }
+    public Executor getExecutor() { return executor; }
+    public CircuitBreaker getCircuitBreaker() { return circuitBreaker; }
+    public Hedging getHedging() { return hedging; }
+    public Local getLocal() { return local; }
+    public Speculative getSpeculative() { return speculative; }
+    public Duration getStreamTimeout() { return streamTimeout; }
+    public void setStreamTimeout(Duration streamTimeout) { this.streamTimeout = streamTimeout; }
+    public Executor getStreamExecutor() { return streamExecutor; }
+
+    /**
+     * Pool de conexões HTTP usado para falar com o Gemini.
+     */
+    public static class Http {
+        private Duration connectTimeout = Duration.ofSeconds(2);
+        private Duration readTimeout = Duration.ofSeconds(5);
+        private int maxConnections = 50;
+        private int maxConnectionsPerRoute = 20;
+        /** Conexões paradas há mais que isso são fechadas em segundo plano. */
+        private Duration idleTimeout = Duration.ofSeconds(30);
+        /** Idade máxima de uma conexão, para acompanhar trocas de DNS do lado do Google. */
+        private Duration timeToLive = Duration.ofMinutes(5);
+
+        public Duration getConnectTimeout() { return connectTimeout; }
+        public void setConnectTimeout(Duration connectTimeout) { this.connectTimeout = connectTimeout; }
+        public Duration getReadTimeout() { return readTimeout; }
+        public void setReadTimeout(Duration readTimeout) { this.readTimeout = readTimeout; }
+        public int getMaxConnections() { return maxConnections; }
+        public void setMaxConnections(int maxConnections) { this.maxConnections = maxConnections; }
+        public int getMaxConnectionsPerRoute() { return maxConnectionsPerRoute; }
+        public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) { this.maxConnectionsPerRoute = maxConnectionsPerRoute; }
+        public Duration getIdleTimeout() { return idleTimeout; }
+        public void setIdleTimeout(Duration idleTimeout) { this.idleTimeout = idleTimeout; }
+        public Duration getTimeToLive() { return timeToLive; }
+        public void setTimeToLive(Duration timeToLive) { this.timeToLive = timeToLive; }
+    }
+
+    public static class Cache {
+        private long maxSize = 1000;
+        private Duration ttl = Duration.ofHours(24);
+        private boolean persistent = false;
+
+        public long getMaxSize() { return maxSize; }
+        public void setMaxSize(long maxSize) { this.maxSize = maxSize; }
+        public Duration getTtl() { return ttl; }
+        public void setTtl(Duration ttl) { this.ttl = ttl; }
+        public boolean isPersistent() { return persistent; }
+        public void setPersistent(boolean persistent) { this.persistent = persistent; }
+    }
+
+    public static class Coalescing {
+        private Duration waitTimeout = Duration.ofSeconds(10);
+
+        public Duration getWaitTimeout() { return waitTimeout; }
+        public void setWaitTimeout(Duration waitTimeout) { this.waitTimeout = waitTimeout; }
+    }
+
+    public static class Executor {
+        private int threads = 16;
+        private int queueCapacity = 100;
+
+        public Executor() {
+        }
+
+        public Executor(int threads, int queueCapacity) {
+            this.threads = threads;
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getThreads() { return threads; }
+        public void setThreads(int threads) { this.threads = threads; }
+        public int getQueueCapacity() { return queueCapacity; }
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+    }
+
+    public static class CircuitBreaker {
+        private int windowSize = 20;
+        private int minimumCalls = 10;
+        private int failureRateThreshold = 50;
+        private Duration openDuration = Duration.ofSeconds(30);
+
+        public int getWindowSize() { return windowSize; }
+        public void setWindowSize(int windowSize) { this.windowSize = windowSize; }
+        public int getMinimumCalls() { return minimumCalls; }
+        public void setMinimumCalls(int minimumCalls) { this.minimumCalls = minimumCalls; }
+        public int getFailureRateThreshold() { return failureRateThreshold; }
+        public void setFailureRateThreshold(int failureRateThreshold) { this.failureRateThreshold = failureRateThreshold; }
+        public Duration getOpenDuration() { return openDuration; }
+        public void setOpenDuration(Duration openDuration) { this.openDuration = openDuration; }
+    }
+
+    public static class Hedging {
+        private boolean enabled = false;
+        private double percentile = 0.95;
+        private long minSamples = 50;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public double getPercentile() { return percentile; }
+        public void setPercentile(double percentile) { this.percentile = percentile; }
+        public long getMinSamples() { return minSamples; }
+        public void setMinSamples(long minSamples) { this.minSamples = minSamples; }
+    }
+
+    /**
+     * Busca especulativa: o fallback roda no banco em paralelo com a IA.
+     */
+    public static class Speculative {
+        private boolean enabled = false;
+        /** Quanto esperar pela IA antes de devolver o fallback. */
+        private Duration budget = Duration.ofMillis(1500);
+        /** Prazo da busca ampla, contado do início; estourado, a busca devolve uma lista vazia. */
+        private Duration fallbackTimeout = Duration.ofSeconds(2);
+        /** Threads que esperam a IA. */
+        private final Executor aiExecutor = new Executor(16, 50);
+        /** Threads da busca ampla no banco. */
+        private final Executor fallbackExecutor = new Executor(8, 50);
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public Duration getBudget() { return budget; }
+        public void setBudget(Duration budget) { this.budget = budget; }
+        public Duration getFallbackTimeout() { return fallbackTimeout; }
+        public void setFallbackTimeout(Duration fallbackTimeout) { this.fallbackTimeout = fallbackTimeout; }
+        public Executor getAiExecutor() { return aiExecutor; }
+        public Executor getFallbackExecutor() { return fallbackExecutor; }
+    }
+
+    /**
+     * Interpretador local (as regras determinísticas do prompt do Gemini).
+     * Os termos são comparados sem acento e em minúsculas.
+     */
+    public static class Local {
+        private boolean enabled = true;
+        /** Abaixo disso a consulta segue para o Gemini. */
+        private double confidenceThreshold = 0.75;
+        private BigDecimal cheapMaxPrice = new BigDecimal("50");
+        private BigDecimal expensiveMinPrice = new BigDecimal("100");
+        /** Termos que definem a categoria e também viram o nome buscado ("ração"). */
+        private Map<ProductCategory, List<String>> synonyms = defaultSynonyms();
+        /** Termos que só definem a categoria, sem restringir o nome ("comida"). */
+        private Map<ProductCategory, List<String>> genericTerms = defaultGenericTerms();
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public double getConfidenceThreshold() { return confidenceThreshold; }
+        public void setConfidenceThreshold(double confidenceThreshold) { this.confidenceThreshold = confidenceThreshold; }
+        public BigDecimal getCheapMaxPrice() { return cheapMaxPrice; }
+        public void setCheapMaxPrice(BigDecimal cheapMaxPrice) { this.cheapMaxPrice = cheapMaxPrice; }
+        public BigDecimal getExpensiveMinPrice() { return expensiveMinPrice; }
+        public void setExpensiveMinPrice(BigDecimal expensiveMinPrice) { this.expensiveMinPrice = expensiveMinPrice; }
+        public Map<ProductCategory, List<String>> getSynonyms() { return synonyms; }
+        public void setSynonyms(Map<ProductCategory, List<String>> synonyms) { this.synonyms = synonyms; }
+        public Map<ProductCategory, List<String>> getGenericTerms() { return genericTerms; }
+        public void setGenericTerms(Map<ProductCategory, List<String>> genericTerms) { this.genericTerms = genericTerms; }
+
+        private static Map<ProductCategory, List<String>> defaultSynonyms() {
+            Map<ProductCategory, List<String>> synonyms = new EnumMap<>(ProductCategory.class);
+            synonyms.put(ProductCategory.ALIMENTO, new ArrayList<>(List.of("racao", "feijao", "arroz", "leite", "petisco", "cesta")));
+            synonyms.put(ProductCategory.ACESSORIO, new ArrayList<>(List.of("coleira", "guia", "cama", "caminha", "comedouro")));
+            synonyms.put(ProductCategory.MEDICAMENTO, new ArrayList<>(List.of("vermifugo", "antipulgas", "vacina")));
+            synonyms.put(ProductCategory.BRINQUEDO, new ArrayList<>(List.of("jogos", "jogo", "bola", "bolinha", "boneca", "pelucia")));
+            synonyms.put(ProductCategory.HIGIENE, new ArrayList<>(List.of("shampoo", "sabonete", "fralda", "areia")));
+            return synonyms;
+        }
+
+        private static Map<ProductCategory, List<String>> defaultGenericTerms() {
+            Map<ProductCategory, List<String>> terms = new EnumMap<>(ProductCategory.class);
+            terms.put(ProductCategory.ALIMENTO, new ArrayList<>(List.of("alimento", "alimentos", "alimentacao", "comida", "comidas")));
+            terms.put(ProductCategory.ACESSORIO, new ArrayList<>(List.of("acessorio", "acessorios", "passeio")));
+            terms.put(ProductCategory.MEDICAMENTO, new ArrayList<>(List.of("medicamento", "medicamentos", "remedio", "remedios")));
+            terms.put(ProductCategory.BRINQUEDO, new ArrayList<>(List.of("brinquedo", "brinquedos")));
+            terms.put(ProductCategory.HIGIENE, new ArrayList<>(List.of("higiene", "limpeza")));
+            return terms;
+        }
+    }
+}
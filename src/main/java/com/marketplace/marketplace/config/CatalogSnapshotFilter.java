@@ -0,0 +1,135 @@
+package com.marketplace.marketplace.config;
+
+import com.marketplace.marketplace.controller.CatalogConditionalGet;
+import com.marketplace.marketplace.domain.ProductCategory;
+import com.marketplace.marketplace.service.CatalogSnapshotService;
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Serve GET /api/product de anônimos, sem filtro de texto nem de preço e sem paginação,
+ * direto dos arquivos do {@link CatalogSnapshotService}: sem Hibernate, sem Jackson e,
+ * no Tomcat, por sendfile (o arquivo vai do disco para o socket sem passar pela JVM).
+ * ETag e Cache-Control são os mesmos do {@link CatalogConditionalGet}, então um
+ * If-None-Match vale nos dois caminhos. Sem snapshot da versão atual, segue a cadeia.
+ */
+@Component
+public class CatalogSnapshotFilter implements Filter {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final Set<String> SNAPSHOT_PARAMETERS = Set.of("category", "sort");
+
+    private final CatalogSnapshotService snapshots;
+    private final CatalogConditionalGet catalogConditionalGet;
+
+    public CatalogSnapshotFilter(Optional<CatalogSnapshotService> snapshots, CatalogConditionalGet catalogConditionalGet) {
+        this.snapshots = snapshots.orElse(null);
+        this.catalogConditionalGet = catalogConditionalGet;
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        CatalogSnapshotService.Snapshot snapshot = snapshots != null && isSnapshotRequest(httpRequest) ? snapshots.current() : null;
+        if (snapshot == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String category = httpRequest.getParameter("category");
+        String sort = httpRequest.getParameter("sort");
+        // Mesma tupla do ProductController#getProducts (nome e preços ausentes).
+        String etag = CatalogConditionalGet.etag(snapshot.version(), null, "products", null, (BigDecimal) null, (BigDecimal) null, category, sort);
+
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+        httpResponse.setHeader(HttpHeaders.ETAG, etag);
+        httpResponse.setHeader(HttpHeaders.CACHE_CONTROL, catalogConditionalGet.getAnonymousCacheControl().getHeaderValue());
+        httpResponse.setHeader(HttpHeaders.VARY, HttpHeaders.COOKIE + ", " + HttpHeaders.ACCEPT_ENCODING);
+        if (CatalogConditionalGet.matches(httpRequest.getHeaders(HttpHeaders.IF_NONE_MATCH), etag)) {
+            httpResponse.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        boolean gzip = acceptsGzip(httpRequest.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        Path file = snapshot.file(parseCategory(category), sort != null ? sort : "", gzip);
+        long size = Files.size(file);
+
+        httpResponse.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        if (gzip) {
+            httpResponse.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        httpResponse.setContentLengthLong(size);
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, size);
+        } else {
+            Files.copy(file, httpResponse.getOutputStream());
+        }
+    }
+
+    /**
+     * Só a listagem sem paginação, com no máximo categoria e ordenação conhecidas, pedida
+     * por um anônimo (os snapshots não têm tenant).
+     */
+    private static boolean isSnapshotRequest(HttpServletRequest request) {
+        if (!"GET".equals(request.getMethod()) || !SNAPSHOT_PARAMETERS.containsAll(request.getParameterMap().keySet())) {
+            return false;
+        }
+        String category = request.getParameter("category");
+        String sort = request.getParameter("sort");
+        if (category != null && !category.isEmpty() && parseCategory(category) == null) {
+            return false;
+        }
+        if (sort != null && !CatalogSnapshotService.SORTS.contains(sort)) {
+            return false;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken;
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private static ProductCategory parseCategory(String category) {
+        if (category == null || category.isEmpty()) {
+            return null;
+        }
+        try {
+            return ProductCategory.valueOf(category.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
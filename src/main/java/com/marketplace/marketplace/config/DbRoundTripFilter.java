@@ -0,0 +1,56 @@
+package com.marketplace.marketplace.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Mede, por requisição, quantos statements foram ao banco e quantas idas ao banco o
+ * cache de segundo nível evitou (ver {@link RequestDbStatistics}).
+ * Métricas: db.request.statements e db.request.roundtrips.saved.
+ */
+@Component
+public class DbRoundTripFilter implements Filter {
+
+    private static final Logger log = LoggerFactory.getLogger(DbRoundTripFilter.class);
+
+    private final DistributionSummary statements;
+    private final DistributionSummary roundTripsSaved;
+
+    public DbRoundTripFilter(MeterRegistry meterRegistry) {
+        this.statements = DistributionSummary.builder("db.request.statements")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.roundTripsSaved = DistributionSummary.builder("db.request.roundtrips.saved")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        RequestDbStatistics.Counts counts = RequestDbStatistics.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestDbStatistics.stop();
+            // Requisições que não falam com o banco (estáticos, SPA) não entram na distribuição.
+            if (counts.getStatements() > 0 || counts.getCacheHits() > 0) {
+                statements.record(counts.getStatements());
+                roundTripsSaved.record(counts.getCacheHits());
+                if (log.isDebugEnabled()) {
+                    log.debug("{} {}: {} statements, {} idas ao banco evitadas pelo cache",
+                            ((HttpServletRequest) request).getMethod(), ((HttpServletRequest) request).getRequestURI(),
+                            counts.getStatements(), counts.getCacheHits());
+                }
+            }
+        }
+    }
+}
@@ -17,4 +17,26 @@ public class FilterConfig {
         registration.setOrder(1);
         return registration;
     }
+
+    @Bean
+    public FilterRegistrationBean<DbRoundTripFilter> dbRoundTripFilterRegistration(DbRoundTripFilter filter) {
+
+        FilterRegistrationBean<DbRoundTripFilter> registration = new FilterRegistrationBean<>(filter);
+
+        registration.addUrlPatterns("/*");
+        registration.setName("dbRoundTripFilter");
+        registration.setOrder(2);
+        return registration;
+    }
+
+    @Bean
+    public FilterRegistrationBean<CatalogSnapshotFilter> catalogSnapshotFilterRegistration(CatalogSnapshotFilter filter) {
+
+        FilterRegistrationBean<CatalogSnapshotFilter> registration = new FilterRegistrationBean<>(filter);
+
+        registration.addUrlPatterns("/api/product");
+        registration.setName("catalogSnapshotFilter");
+        registration.setOrder(3);
+        return registration;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.marketplace.marketplace.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.spi.CachingProvider;
+import java.time.Duration;
+import java.util.OptionalLong;
+
+/**
+ * Cache de segundo nível do Hibernate (JCache sobre Caffeine) para Organization e Product,
+ * mais o cache de consultas para a listagem de organizações.
+ * <p>
+ * Tenant: o cache de entidades é indexado pelo id, e a busca por id nunca passou pelo
+ * tenantFilter; quem lê um produto por id continua checando a organização como antes.
+ * Só vai para o cache de consultas o que não tem filtro de tenant (a listagem de
+ * organizações); as consultas de produto continuam indo ao banco.
+ * <p>
+ * As regiões são criadas aqui, limitadas e guardando por referência (o Hibernate já
+ * guarda o estado desmontado, não a entidade), e o Hibernate falha na subida se aparecer uma
+ * região que não foi declarada. O cache de timestamps não expira: se ele perdesse uma
+ * entrada antes das consultas, uma consulta velha poderia voltar do cache.
+ * Estatísticas ligadas para as métricas hibernate.* e para {@link RequestDbStatistics}.
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    public static final String ORGANIZATION_REGION = "organization";
+    public static final String PRODUCT_REGION = "product";
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheCustomizer(
+            @Value("${marketplace.entity-cache.enabled:true}") boolean enabled,
+            @Value("${marketplace.entity-cache.max-entries:10000}") long maxEntries,
+            @Value("${marketplace.entity-cache.ttl:30m}") Duration ttl) {
+        return properties -> {
+            properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+            properties.put(AvailableSettings.STATS_BUILDER, RequestDbStatistics.FACTORY);
+            // Sem o log de métricas por sessão que o Hibernate liga junto com as estatísticas.
+            properties.put(AvailableSettings.LOG_SESSION_METRICS, false);
+
+            // Com o hibernate-jcache no classpath o Hibernate liga o cache sozinho: desligar é explícito.
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, enabled);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, enabled);
+            if (enabled) {
+                properties.put(AvailableSettings.CACHE_REGION_FACTORY, ConfigSettings.SIMPLE_FACTORY_NAME);
+                // O Hibernate fecha o CacheManager quando a SessionFactory fecha.
+                properties.put(ConfigSettings.CACHE_MANAGER, createCacheManager(maxEntries, ttl));
+                properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            }
+        };
+    }
+
+    private CacheManager createCacheManager(long maxEntries, Duration ttl) {
+        CachingProvider provider = new CaffeineCachingProvider();
+        CacheManager cacheManager = provider.getCacheManager(provider.getDefaultURI(), getClass().getClassLoader());
+
+        CaffeineConfiguration<Object, Object> bounded = new CaffeineConfiguration<>()
+                .setMaximumSize(OptionalLong.of(maxEntries))
+                .setExpireAfterWrite(OptionalLong.of(ttl.toNanos()))
+                .setStoreByValue(false)
+                .setStatisticsEnabled(true);
+        cacheManager.createCache(ORGANIZATION_REGION, bounded);
+        cacheManager.createCache(PRODUCT_REGION, bounded);
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, bounded);
+
+        // Uma entrada por tabela; não pode expirar nem ser despejada.
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                new CaffeineConfiguration<>().setStoreByValue(false).setStatisticsEnabled(true));
+        return cacheManager;
+    }
+}
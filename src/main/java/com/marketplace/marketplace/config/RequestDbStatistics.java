@@ -0,0 +1,89 @@
+package com.marketplace.marketplace.config;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metamodel.model.domain.NavigableRole;
+import org.hibernate.stat.internal.StatisticsImpl;
+import org.hibernate.stat.spi.StatisticsFactory;
+
+/**
+ * Estatísticas do Hibernate que, além dos contadores globais, contam por requisição
+ * (na thread da requisição) os statements enviados ao banco e os acertos no cache de
+ * segundo nível. Cada acerto de entidade, coleção ou consulta é uma ida ao banco que
+ * não aconteceu; as consultas ao cache de timestamps não entram na conta.
+ * O trabalho feito em outras threads (busca especulativa, streaming) não é atribuído.
+ */
+public class RequestDbStatistics extends StatisticsImpl {
+
+    public static final StatisticsFactory FACTORY = RequestDbStatistics::new;
+
+    private static final ThreadLocal<Counts> CURRENT = new ThreadLocal<>();
+
+    public RequestDbStatistics(SessionFactoryImplementor sessionFactory) {
+        super(sessionFactory);
+    }
+
+    public static final class Counts {
+        private long statements;
+        private long cacheHits;
+
+        public long getStatements() { return statements; }
+        public long getCacheHits() { return cacheHits; }
+    }
+
+    /**
+     * Começa a contar na thread atual; devolve os contadores que {@link #stop()} vai fechar.
+     */
+    public static Counts start() {
+        Counts counts = new Counts();
+        CURRENT.set(counts);
+        return counts;
+    }
+
+    public static Counts current() {
+        return CURRENT.get();
+    }
+
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    @Override
+    public void prepareStatement() {
+        super.prepareStatement();
+        Counts counts = CURRENT.get();
+        if (counts != null) {
+            counts.statements++;
+        }
+    }
+
+    @Override
+    public void entityCacheHit(NavigableRole entityName, String regionName) {
+        super.entityCacheHit(entityName, regionName);
+        countHit();
+    }
+
+    @Override
+    public void collectionCacheHit(NavigableRole collectionRole, String regionName) {
+        super.collectionCacheHit(collectionRole, regionName);
+        countHit();
+    }
+
+    @Override
+    public void naturalIdCacheHit(NavigableRole rootEntityName, String regionName) {
+        super.naturalIdCacheHit(rootEntityName, regionName);
+        countHit();
+    }
+
+    @Override
+    public void queryCacheHit(String hql, String regionName) {
+        super.queryCacheHit(hql, regionName);
+        countHit();
+    }
+
+    private static void countHit() {
+        Counts counts = CURRENT.get();
+        if (counts != null) {
+            counts.cacheHits++;
+        }
+    }
+}
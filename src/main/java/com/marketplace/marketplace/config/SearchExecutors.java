@@ -0,0 +1,78 @@
+package com.marketplace.marketplace.config;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pools das buscas que ficam bloqueadas esperando a IA ou o banco, fora do executor padrão
+ * do Spring Boot (o das tarefas @Async): uma busca lenta só ocupa o pool dela. As filas são
+ * limitadas e, cheias, recusam a tarefa na hora com RejectedExecutionException, em vez de
+ * acumular espera.
+ * <p>
+ * Não são beans Executor para não substituir o executor padrão.
+ */
+@Component
+public class SearchExecutors {
+
+    private final ExecutorService speculativeAi;
+    private final ExecutorService speculativeFallback;
+    private final ExecutorService stream;
+
+    public SearchExecutors(AiSearchProperties properties) {
+        AiSearchProperties.Speculative speculative = properties.getSpeculative();
+        this.speculativeAi = bounded("ai-speculative", speculative.getAiExecutor());
+        this.speculativeFallback = bounded("search-fallback", speculative.getFallbackExecutor());
+        this.stream = bounded("ai-stream", properties.getStreamExecutor());
+    }
+
+    /**
+     * A espera pela IA da busca especulativa.
+     */
+    public ExecutorService speculativeAi() {
+        return speculativeAi;
+    }
+
+    /**
+     * A busca ampla no banco da busca especulativa, separada da IA para não ficar na fila
+     * atrás de chamadas lentas.
+     */
+    public ExecutorService speculativeFallback() {
+        return speculativeFallback;
+    }
+
+    /**
+     * As etapas das buscas em SSE, que ficam com a thread durante toda a chamada à IA.
+     */
+    public ExecutorService stream() {
+        return stream;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        speculativeAi.shutdownNow();
+        speculativeFallback.shutdownNow();
+        stream.shutdownNow();
+    }
+
+    /**
+     * Pool fixo de threads daemon com fila limitada, que recusa quando a fila enche.
+     */
+    public static ExecutorService bounded(String name, AiSearchProperties.Executor pool) {
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(pool.getThreads(), pool.getThreads(),
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(pool.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+}
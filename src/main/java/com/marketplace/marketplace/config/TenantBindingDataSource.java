@@ -0,0 +1,67 @@
+package com.marketplace.marketplace.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.WeakHashMap;
+
+/**
+ * DataSource do modo RLS: a cada conexão tirada do pool, deixa {@code app.organization_id}
+ * da sessão do Postgres com o tenant atual ('' quando não há restrição). O valor fica na
+ * conexão física depois de devolvida ao pool; então só vai ao banco quando ele muda.
+ * <p>
+ * Só conta como aplicado o que foi feito em autocommit: fora dele o set_config entra na
+ * transação aberta e um rollback desfaz o valor.
+ */
+class TenantBindingDataSource extends DelegatingDataSource {
+
+    static final String SETTING = "app.organization_id";
+
+    /** Último valor por conexão física; as do pool que forem descartadas somem sozinhas. */
+    private final Map<Connection, String> bound = Collections.synchronizedMap(new WeakHashMap<>());
+
+    TenantBindingDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return bind(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return bind(super.getConnection(username, password));
+    }
+
+    private Connection bind(Connection connection) throws SQLException {
+        UUID organizationId = TenantContext.currentOrganizationId();
+        String value = organizationId != null ? organizationId.toString() : "";
+        Connection physical = connection.unwrap(Connection.class);
+        if (value.equals(bound.get(physical))) {
+            return connection;
+        }
+
+        try (PreparedStatement ps = connection.prepareStatement("SELECT set_config('" + SETTING + "', ?, false)")) {
+            ps.setString(1, value);
+            ps.execute();
+        } catch (SQLException e) {
+            // Uma conexão com o tenant errado não pode voltar para quem pediu.
+            bound.remove(physical);
+            connection.close();
+            throw e;
+        }
+        if (connection.getAutoCommit()) {
+            bound.put(physical, value);
+        } else {
+            bound.remove(physical);
+        }
+        return connection;
+    }
+}
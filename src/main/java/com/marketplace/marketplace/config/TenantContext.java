@@ -0,0 +1,129 @@
+package com.marketplace.marketplace.config;
+
+import com.marketplace.marketplace.domain.Role;
+import com.marketplace.marketplace.domain.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Filter;
+import org.hibernate.Session;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.UUID;
+
+/**
+ * Tenant do usuário atual e o tenantFilter do Hibernate. Numa requisição, o tenant é
+ * resolvido uma vez e guardado nos atributos dela (de novo só se a autenticação mudar,
+ * como no login), e o filtro da sessão só é mexido quando o tenant muda ou a sessão é
+ * outra. Fora de uma requisição (threads de fundo, executores) nada é guardado: o tenant
+ * é resolvido e o filtro conferido a cada chamada.
+ * <p>
+ * Anônimos e ADMIN não têm restrição (null); os demais usuários ficam na organização
+ * deles, ou numa organização que não existe quando não têm nenhuma. Consultas nativas,
+ * que o filtro do Hibernate não alcança, usam o mesmo valor, assim como o
+ * {@code app.organization_id} do modo RLS ({@link TenantRowLevelSecurity}).
+ */
+@Component
+public class TenantContext {
+
+    public static final String FILTER_NAME = "tenantFilter";
+    private static final String FILTER_PARAMETER = "organizationId";
+
+    private static final UUID NO_ORGANIZATION = UUID.fromString("00000000-0000-0000-0000-000000000000");
+    private static final String HOLDER_ATTRIBUTE = TenantContext.class.getName() + ".holder";
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public TenantContext(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * Organização que restringe as consultas do usuário atual, ou null quando não há restrição.
+     */
+    public static UUID currentOrganizationId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        Holder holder = holder();
+        if (holder == null) {
+            return resolve(authentication);
+        }
+        if (!holder.resolved || holder.authentication != authentication) {
+            holder.organizationId = resolve(authentication);
+            holder.authentication = authentication;
+            holder.resolved = true;
+        }
+        return holder.organizationId;
+    }
+
+    /**
+     * Deixa o tenantFilter da sessão ligada à thread (transação ou open-in-view) de acordo
+     * com o tenant atual. Sem sessão ligada, a chamada ao repositório abre a própria e não
+     * há onde aplicar o filtro.
+     */
+    public void applyToCurrentSession() {
+        EntityManagerHolder entityManagerHolder =
+                (EntityManagerHolder) TransactionSynchronizationManager.getResource(entityManagerFactory);
+        if (entityManagerHolder == null) {
+            return;
+        }
+        Session session = entityManagerHolder.getEntityManager().unwrap(Session.class);
+        UUID organizationId = currentOrganizationId();
+        Filter enabled = session.getEnabledFilter(FILTER_NAME);
+
+        if (organizationId == null) {
+            if (enabled != null) {
+                session.disableFilter(FILTER_NAME);
+            }
+            return;
+        }
+
+        // Cada enableFilter cria um Filter novo: se o ligado é o que aplicamos, o parâmetro é o mesmo.
+        Holder holder = holder();
+        if (holder != null && enabled != null && enabled == holder.appliedFilter
+                && organizationId.equals(holder.appliedOrganizationId)) {
+            return;
+        }
+        Filter filter = session.enableFilter(FILTER_NAME).setParameter(FILTER_PARAMETER, organizationId);
+        if (holder != null) {
+            holder.appliedFilter = filter;
+            holder.appliedOrganizationId = organizationId;
+        }
+    }
+
+    static UUID resolve(Authentication authentication) {
+
+        if (authentication == null || !authentication.isAuthenticated() || authentication.getPrincipal().equals("anonymousUser")) {
+            return null;
+        }
+
+        if (authentication.getPrincipal() instanceof User user && user.getRole() != Role.ROLE_ADMIN) {
+            return user.getOrganization() != null ? user.getOrganization().getId() : NO_ORGANIZATION;
+        }
+        return null;
+    }
+
+    private static Holder holder() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Holder holder = (Holder) attributes.getAttribute(HOLDER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (holder == null) {
+            holder = new Holder();
+            attributes.setAttribute(HOLDER_ATTRIBUTE, holder, RequestAttributes.SCOPE_REQUEST);
+        }
+        return holder;
+    }
+
+    private static final class Holder {
+        private boolean resolved;
+        private Authentication authentication;
+        private UUID organizationId;
+        private Filter appliedFilter;
+        private UUID appliedOrganizationId;
+    }
+}
@@ -1,54 +1,28 @@
 package com.marketplace.marketplace.config;
 
-import com.marketplace.marketplace.domain.Role;
-import com.marketplace.marketplace.domain.User;
-import jakarta.persistence.EntityManager;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
-import org.hibernate.Session;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
-import java.util.UUID;
-
+/**
+ * Antes de cada chamada a um repositório, confere o tenantFilter da sessão (ver
+ * {@link TenantContext}); na mesma requisição, só a primeira chamada mexe no filtro.
+ * No modo RLS ({@link TenantRowLevelSecurity}) quem isola é o banco e o filtro fica desligado.
+ */
 @Aspect
 @Component
+@ConditionalOnProperty(name = "marketplace.tenant.isolation", havingValue = "filter", matchIfMissing = true)
 public class TenantFilterAspect {
 
-    @Autowired
-    private EntityManager entityManager;
+    private final TenantContext tenantContext;
+
+    public TenantFilterAspect(TenantContext tenantContext) {
+        this.tenantContext = tenantContext;
+    }
 
     @Before("execution(* com.marketplace.marketplace.repository.*.*(..))")
     public void applyTenantFilter() {
-
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        Session session = entityManager.unwrap(Session.class);
-
-        session.disableFilter("tenantFilter");
-
-        if (authentication == null || !authentication.isAuthenticated() || authentication.getPrincipal().equals("anonymousUser")) {
-            return;
-        }
-
-        Object principal = authentication.getPrincipal();
-
-        if (principal instanceof User) {
-            User user = (User) principal;
-
-            if (user.getRole() != Role.ROLE_ADMIN) {
-
-                if (user.getOrganization() != null) {
-                    UUID organizationId = user.getOrganization().getId();
-                    session.enableFilter("tenantFilter")
-                            .setParameter("organizationId", organizationId);
-                } else {
-
-                    session.enableFilter("tenantFilter")
-                            .setParameter("organizationId", UUID.fromString("00000000-0000-0000-0000-000000000000"));
-                }
-            }
-        }
+        tenantContext.applyToCurrentSession();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,153 @@
+package com.marketplace.marketplace.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * produto e orders particionadas por hash de organization_id
+ * ({@code marketplace.tenant.partitioning.enabled=true}): a consulta de um GERENTE, com
+ * {@code organization_id = :organizationId}, só lê a partição da organização dele.
+ * <p>
+ * A conversão roda na subida, depois do Flyway, e só para a tabela que ainda não é
+ * particionada (as migrações versionadas criam as tabelas comuns): numa transação, com
+ * a tabela travada, ela vira {@code <tabela>_unpartitioned}, a particionada é criada com as
+ * mesmas colunas, defaults e CHECKs (valem em todas as partições), os dados são copiados,
+ * a antiga sai e chaves estrangeiras e índices voltam. Subidas seguintes não fazem nada; voltar atrás é manual (as partições são
+ * tabelas comuns).
+ * <p>
+ * Limitações do Postgres que valem neste modo:
+ * <ul>
+ *   <li>toda chave única inclui a coluna de partição: orders tem PK (id, organization_id);
+ *   produto aceita organization_id nulo (vai para a partição de resto 0) e fica sem PK, só
+ *   com um índice em id;</li>
+ *   <li>nenhuma chave estrangeira pode apontar para elas, então order_item e inventory_hold
+ *   perdem as suas (e o ON DELETE CASCADE dos holds);</li>
+ *   <li>índices únicos que não incluem organization_id não voltam;</li>
+ *   <li>busca e update por id, sem a organização, consultam o índice de cada partição.</li>
+ * </ul>
+ */
+@Configuration
+@ConditionalOnProperty(name = "marketplace.tenant.partitioning.enabled", havingValue = "true")
+public class TenantPartitioning {
+
+    private static final Logger log = LoggerFactory.getLogger(TenantPartitioning.class);
+
+    private static final List<String> TABLES = List.of("produto", "orders");
+
+    /** Índices locais (criados na tabela particionada, repetidos em cada partição). */
+    private static final Map<String, List<String>> INDEXES = Map.of(
+            "produto", List.of("(organization_id, category, price)"),
+            "orders", List.of("(organization_id, order_date)"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final String schema;
+    private final int partitions;
+
+    /**
+     * O EntityManagerFactory só entra para garantir que as tabelas já existem.
+     */
+    public TenantPartitioning(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                              EntityManagerFactory entityManagerFactory,
+                              @Value("${spring.jpa.properties.hibernate.default_schema:}") String schema,
+                              @Value("${marketplace.tenant.partitioning.partitions:16}") int partitions) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.schema = schema;
+        this.partitions = partitions;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        for (String table : TABLES) {
+            String qualified = qualify(schema, table);
+            if (jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, qualified)
+                    && !isPartitioned(jdbcTemplate, qualified)) {
+                transactionTemplate.executeWithoutResult(status -> partition(table));
+            }
+        }
+    }
+
+    private void partition(String table) {
+        String qualified = qualify(schema, table);
+        String legacyName = table + "_unpartitioned";
+        String legacy = qualify(schema, legacyName);
+        long start = System.currentTimeMillis();
+
+        jdbcTemplate.execute("LOCK TABLE " + qualified + " IN ACCESS EXCLUSIVE MODE");
+        for (Map<String, Object> incoming : jdbcTemplate.queryForList(
+                "SELECT quote_ident(conname) AS name, conrelid::regclass::text AS source FROM pg_constraint " +
+                        "WHERE contype = 'f' AND confrelid = ?::regclass", qualified)) {
+            jdbcTemplate.execute("ALTER TABLE " + incoming.get("source") + " DROP CONSTRAINT " + incoming.get("name"));
+        }
+        List<Map<String, Object>> outgoing = jdbcTemplate.queryForList(
+                "SELECT quote_ident(conname) AS name, pg_get_constraintdef(oid) AS definition FROM pg_constraint " +
+                        "WHERE contype = 'f' AND conrelid = ?::regclass", qualified);
+        // Definições com o nome atual da tabela: recriadas depois, caem na particionada.
+        List<String> indexes = jdbcTemplate.queryForList(
+                "SELECT pg_get_indexdef(indexrelid) FROM pg_index WHERE indrelid = ?::regclass " +
+                        "AND NOT indisprimary AND NOT indisunique", String.class, qualified);
+        List<String> primaryKey = jdbcTemplate.queryForList(
+                "SELECT quote_ident(conname) FROM pg_constraint WHERE contype = 'p' AND conrelid = ?::regclass",
+                String.class, qualified);
+        // Colunas geradas (search_vector da busca full-text) são recalculadas na cópia.
+        String columns = String.join(", ", jdbcTemplate.queryForList(
+                "SELECT quote_ident(attname) FROM pg_attribute WHERE attrelid = ?::regclass " +
+                        "AND attnum > 0 AND NOT attisdropped AND attgenerated = '' ORDER BY attnum",
+                String.class, qualified));
+        boolean keyNotNull = jdbcTemplate.queryForObject(
+                "SELECT attnotnull FROM pg_attribute WHERE attrelid = ?::regclass AND attname = 'organization_id'",
+                Boolean.class, qualified);
+
+        jdbcTemplate.execute("ALTER TABLE " + qualified + " RENAME TO " + legacyName);
+        for (String name : primaryKey) {
+            // O nome do índice da PK tem que ficar livre para a tabela nova.
+            jdbcTemplate.execute("ALTER TABLE " + legacy + " RENAME CONSTRAINT " + name + " TO " + legacyName + "_pkey");
+        }
+        jdbcTemplate.execute("CREATE TABLE " + qualified + " (LIKE " + legacy + " INCLUDING DEFAULTS INCLUDING GENERATED INCLUDING CONSTRAINTS)" +
+                " PARTITION BY HASH (organization_id)");
+        for (int i = 0; i < partitions; i++) {
+            jdbcTemplate.execute("CREATE TABLE " + qualify(schema, table + "_p" + i) + " PARTITION OF " + qualified +
+                    " FOR VALUES WITH (MODULUS " + partitions + ", REMAINDER " + i + ")");
+        }
+        int rows = jdbcTemplate.update("INSERT INTO " + qualified + " (" + columns + ") SELECT " + columns + " FROM " + legacy);
+        jdbcTemplate.execute("DROP TABLE " + legacy);
+
+        if (keyNotNull) {
+            jdbcTemplate.execute("ALTER TABLE " + qualified + " ADD CONSTRAINT " + table + "_pkey PRIMARY KEY (id, organization_id)");
+        } else {
+            jdbcTemplate.execute("CREATE INDEX ON " + qualified + " (id)");
+        }
+        for (Map<String, Object> foreignKey : outgoing) {
+            jdbcTemplate.execute("ALTER TABLE " + qualified + " ADD CONSTRAINT " + foreignKey.get("name") + " " + foreignKey.get("definition"));
+        }
+        indexes.forEach(jdbcTemplate::execute);
+        for (String index : INDEXES.get(table)) {
+            jdbcTemplate.execute("CREATE INDEX ON " + qualified + " " + index);
+        }
+        jdbcTemplate.execute("ANALYZE " + qualified);
+        log.info("{} particionada por organization_id em {} partições ({} linhas copiadas em {} ms)",
+                table, partitions, rows, System.currentTimeMillis() - start);
+    }
+
+    private static boolean isPartitioned(JdbcTemplate jdbc, String qualified) {
+        return Boolean.TRUE.equals(jdbc.queryForObject(
+                "SELECT coalesce((SELECT relkind = 'p' FROM pg_class WHERE oid = to_regclass(?)), false)",
+                Boolean.class, qualified));
+    }
+
+    private static String qualify(String schema, String table) {
+        return schema.isEmpty() ? table : schema + "." + table;
+    }
+}
@@ -0,0 +1,112 @@
+package com.marketplace.marketplace.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Modo de isolamento por tenant com row-level security do Postgres, no lugar do
+ * tenantFilter do Hibernate ({@code marketplace.tenant.isolation=rls}).
+ * <p>
+ * produto, orders e users ganham a política {@code tenant_isolation}: com
+ * {@code app.organization_id} vazio (anônimo, ADMIN, threads de fundo) tudo passa; com uma
+ * organização, só as linhas dela, em leitura e escrita. O valor é definido pelo
+ * {@link TenantBindingDataSource} quando a conexão sai do pool; numa requisição a sessão
+ * do Hibernate segura a mesma conexão até o fim, então vale o usuário de quando ela foi
+ * pedida (um login no meio da requisição só vale na próxima).
+ * <p>
+ * Diferente do filtro, a política vale também para consultas nativas, updates em massa e
+ * busca por id. O que vem do cache de segundo nível não passa pelo banco: a busca por id de
+ * um produto em cache continua sem checagem de tenant, como sempre foi.
+ * <p>
+ * As políticas são (re)criadas na subida, depois do schema do Hibernate; FORCE porque a
+ * aplicação costuma conectar como dona das tabelas, que de outra forma passaria direto.
+ * Com o {@link TenantPartitioning} ligado, depois dele também, porque a conversão recria
+ * produto e orders (ver {@link #rowLevelSecurityAfterPartitioning()}). Por isso ficam fora
+ * do Flyway: uma migração roda uma vez, antes da conversão que as apagaria, e não
+ * acompanha a troca de {@code marketplace.tenant.isolation}.
+ */
+@Configuration
+@DependsOn("entityManagerFactory")
+@ConditionalOnProperty(name = "marketplace.tenant.isolation", havingValue = "rls")
+public class TenantRowLevelSecurity {
+
+    private static final Logger log = LoggerFactory.getLogger(TenantRowLevelSecurity.class);
+
+    static final String POLICY = "tenant_isolation";
+    private static final List<String> TABLES = List.of("produto", "orders", "users");
+
+    private static final String CONDITION = "coalesce(current_setting('" + TenantBindingDataSource.SETTING + "', true), '') = ''"
+            + " OR organization_id = nullif(current_setting('" + TenantBindingDataSource.SETTING + "', true), '')::uuid";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String schema;
+
+    public TenantRowLevelSecurity(JdbcTemplate jdbcTemplate,
+                                  @Value("${spring.jpa.properties.hibernate.default_schema:}") String schema) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.schema = schema;
+    }
+
+    @Bean
+    public static BeanPostProcessor tenantBindingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof TenantBindingDataSource)) {
+                    return new TenantBindingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * O particionamento é opcional, então não cabe num {@code @DependsOn} fixo: quando o bean
+     * dele existe, ele entra nas dependências desta configuração.
+     */
+    @Bean
+    public static BeanFactoryPostProcessor rowLevelSecurityAfterPartitioning() {
+        return beanFactory -> {
+            String[] partitioning = beanFactory.getBeanNamesForType(TenantPartitioning.class, true, false);
+            if (partitioning.length == 0) {
+                return;
+            }
+            for (String name : beanFactory.getBeanNamesForType(TenantRowLevelSecurity.class, true, false)) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(name);
+                Set<String> dependsOn = new LinkedHashSet<>();
+                if (definition.getDependsOn() != null) {
+                    dependsOn.addAll(List.of(definition.getDependsOn()));
+                }
+                dependsOn.addAll(List.of(partitioning));
+                definition.setDependsOn(dependsOn.toArray(String[]::new));
+            }
+        };
+    }
+
+    @PostConstruct
+    public void installPolicies() {
+        for (String table : TABLES) {
+            String qualified = schema.isEmpty() ? table : schema + "." + table;
+            jdbcTemplate.execute("ALTER TABLE " + qualified + " ENABLE ROW LEVEL SECURITY");
+            jdbcTemplate.execute("ALTER TABLE " + qualified + " FORCE ROW LEVEL SECURITY");
+            jdbcTemplate.execute("DROP POLICY IF EXISTS " + POLICY + " ON " + qualified);
+            jdbcTemplate.execute("CREATE POLICY " + POLICY + " ON " + qualified + " USING (" + CONDITION + ")");
+        }
+        log.info("Row-level security por tenant ligada em {}", TABLES);
+    }
+}
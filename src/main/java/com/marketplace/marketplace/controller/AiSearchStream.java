@@ -0,0 +1,123 @@
+package com.marketplace.marketplace.controller;
+
+import com.marketplace.marketplace.dto.AiSearchResponse;
+import com.marketplace.marketplace.service.ProductService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Uma busca por IA em Server-Sent Events (ver {@link ProductController#streamProducts}).
+ * <p>
+ * A conexão conta como fechada quando um envio falha ou o emitter avisa timeout ou erro;
+ * daí em diante nenhuma etapa começa e nada mais é enviado. Só uma falha da busca com a
+ * conexão aberta vira o aviso de IA offline.
+ */
+class AiSearchStream {
+
+    private static final Logger log = LoggerFactory.getLogger(AiSearchStream.class);
+
+    private final ProductService productService;
+    private final Executor executor;
+    private final SseEmitter emitter;
+    private final String aiQuery;
+    private final Integer limit;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    AiSearchStream(ProductService productService, Executor executor, SseEmitter emitter, String aiQuery, Integer limit) {
+        this.productService = productService;
+        this.executor = executor;
+        this.emitter = emitter;
+        this.aiQuery = aiQuery;
+        this.limit = limit;
+    }
+
+    /**
+     * Agenda as etapas. Se o executor recusar a primeira delas, a RejectedExecutionException
+     * sobe para quem chamou e nada foi enviado; a busca por palavra-chave já agendada é
+     * cancelada.
+     */
+    void start() {
+        CompletableFuture<Void> keyword = CompletableFuture
+                .supplyAsync(() -> productService.keywordSearch(aiQuery, limit), executor)
+                .thenAccept(result -> send("keyword", result));
+
+        CompletableFuture<AiSearchResponse> ai;
+        try {
+            ai = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return productService.parseAiQuery(aiQuery);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            closed.set(true);
+            keyword.cancel(false);
+            throw e;
+        }
+
+        // Cliente foi embora: o que ainda não começou não começa mais.
+        Runnable stop = () -> {
+            closed.set(true);
+            keyword.cancel(false);
+            ai.cancel(false);
+        };
+        emitter.onTimeout(stop);
+        emitter.onError(error -> stop.run());
+
+        // A resposta da IA só é enviada depois das palavras-chave, mesmo que chegue antes.
+        keyword.exceptionally(e -> null)
+                .thenCombine(ai, (ignored, aiResponse) -> aiResponse)
+                .thenApply(aiResponse -> {
+                    send("message", aiResponse);
+                    return aiResponse;
+                })
+                .thenApplyAsync(aiResponse -> {
+                    if (closed.get()) {
+                        throw new CompletionException(new IOException("Conexão encerrada"));
+                    }
+                    return productService.refineAiSearch(aiResponse, limit);
+                }, executor)
+                .thenAccept(result -> send("refined", result))
+                .whenComplete((ignored, error) -> finish(ai, error));
+    }
+
+    private void finish(CompletableFuture<AiSearchResponse> ai, Throwable error) {
+        if (closed.get()) {
+            return;
+        }
+        try {
+            if (error != null) {
+                log.warn("Busca por IA em streaming falhou para '{}': {}", aiQuery, error.getMessage());
+                if (ai.isCompletedExceptionally()) {
+                    send("message", new AiSearchResponse(
+                            "Desculpe, a IA está offline. Veja os resultados da busca por '" + aiQuery + "'.", null));
+                }
+            }
+            send("complete", "done");
+            emitter.complete();
+        } catch (CompletionException e) {
+            // o envio falhou: o cliente desconectou no meio
+        }
+    }
+
+    private void send(String event, Object data) {
+        if (closed.get()) {
+            throw new CompletionException(new IOException("Conexão encerrada"));
+        }
+        try {
+            emitter.send(SseEmitter.event().name(event).data(data));
+        } catch (IOException | IllegalStateException e) {
+            closed.set(true);
+            throw new CompletionException(e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.marketplace.marketplace.controller;
+
+import com.marketplace.marketplace.config.HibernateCacheConfig;
+import com.marketplace.marketplace.domain.Organization;
+import com.marketplace.marketplace.domain.Product;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache de segundo nível do Hibernate: estatísticas por região e limpeza manual, para
+ * quando o banco foi alterado por fora da aplicação. Só ADMIN (/api/admin/**).
+ */
+@RestController
+@RequestMapping("/api/admin/cache")
+public class CacheAdminController {
+
+    private final SessionFactory sessionFactory;
+
+    public CacheAdminController(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    @GetMapping
+    public Map<String, Object> getStatistics() {
+        Statistics statistics = sessionFactory.getStatistics();
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+            if (regionStatistics != null) {
+                regions.put(region, Map.of(
+                        "hits", regionStatistics.getHitCount(),
+                        "misses", regionStatistics.getMissCount(),
+                        "puts", regionStatistics.getPutCount(),
+                        "elements", regionStatistics.getElementCountInMemory()));
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("regions", regions);
+        result.put("queryCacheHits", statistics.getQueryCacheHitCount());
+        result.put("queryCacheMisses", statistics.getQueryCacheMissCount());
+        result.put("statementsPrepared", statistics.getPrepareStatementCount());
+        return result;
+    }
+
+    @DeleteMapping
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void evictAll() {
+        sessionFactory.getCache().evictAllRegions();
+    }
+
+    @DeleteMapping("/{region}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void evictRegion(@PathVariable("region") String region) {
+        Cache cache = sessionFactory.getCache();
+        switch (region) {
+            case HibernateCacheConfig.ORGANIZATION_REGION -> {
+                cache.evictEntityData(Organization.class);
+                // A listagem em cache aponta para os ids das organizações.
+                cache.evictDefaultQueryRegion();
+            }
+            case HibernateCacheConfig.PRODUCT_REGION -> cache.evictEntityData(Product.class);
+            case "queries" -> cache.evictQueryRegions();
+            default -> throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Região de cache desconhecida");
+        }
+    }
+}
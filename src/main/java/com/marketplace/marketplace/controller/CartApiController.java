@@ -5,6 +5,7 @@ import com.marketplace.marketplace.domain.User;
 import com.marketplace.marketplace.dto.ShoppingCart;
 import com.marketplace.marketplace.repository.OrderRepository;
 import com.marketplace.marketplace.repository.ProductRepository;
+import com.marketplace.marketplace.service.InventoryReservationService;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -21,10 +22,13 @@ public class CartApiController {
 
     private final ProductRepository productRepository;
     private final OrderRepository orderRepository;
+    private final InventoryReservationService inventoryReservationService;
 
-    public CartApiController(ProductRepository productRepository, OrderRepository orderRepository) {
+    public CartApiController(ProductRepository productRepository, OrderRepository orderRepository,
+                             InventoryReservationService inventoryReservationService) {
         this.productRepository = productRepository;
         this.orderRepository = orderRepository;
+        this.inventoryReservationService = inventoryReservationService;
     }
 
     private ShoppingCart getCart(HttpSession session) {
@@ -47,15 +51,16 @@ public class CartApiController {
                                                   HttpSession session) {
 
         int quantity = payload.getOrDefault("quantity", 1);
+        if (quantity <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Quantidade inválida");
+        }
 
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Produto não encontrado"));
 
-        if (product.getQuantity() < quantity) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Estoque insuficiente");
-        }
-
         ShoppingCart cart = getCart(session);
+        // Segura o total do produto no carrinho; sem estoque livre para a diferença, 400.
+        inventoryReservationService.hold(cart.getId(), productId, cart.quantityOf(productId) + quantity);
         cart.addItem(product, quantity);
         session.setAttribute("cart", cart);
 
@@ -65,6 +70,7 @@ public class CartApiController {
     @DeleteMapping("/remove/{productId}")
     public ShoppingCart removeFromCart(@PathVariable("productId") UUID productId, HttpSession session) {
         ShoppingCart cart = getCart(session);
+        inventoryReservationService.release(cart.getId(), productId);
         cart.removeItem(productId);
         session.setAttribute("cart", cart);
         return cart;
@@ -0,0 +1,109 @@
+package com.marketplace.marketplace.controller;
+
+import com.marketplace.marketplace.config.TenantContext;
+import com.marketplace.marketplace.service.CatalogVersion;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Enumeration;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * GET condicional das listagens do catálogo. O ETag forte sai da {@link CatalogVersion},
+ * da tupla da consulta e do tenant; se o If-None-Match bate, a resposta é 304 sem
+ * carregar nem serializar nada.
+ * <p>
+ * Anônimos recebem Cache-Control público com um max-age curto (a resposta é a mesma
+ * para todos); usuários logados, privado e revalidado a cada uso, porque a lista
+ * depende do tenant. A sessão vai no cookie, daí o Vary.
+ */
+@Component
+public class CatalogConditionalGet {
+
+    private static final CacheControl AUTHENTICATED = CacheControl.noCache().cachePrivate();
+
+    private final CatalogVersion catalogVersion;
+    private final CacheControl anonymous;
+
+    public CatalogConditionalGet(CatalogVersion catalogVersion,
+                                 @Value("${marketplace.catalog.http.anonymous-max-age:30s}") Duration anonymousMaxAge) {
+        this.catalogVersion = catalogVersion;
+        this.anonymous = CacheControl.maxAge(anonymousMaxAge).cachePublic().mustRevalidate();
+    }
+
+    /**
+     * @param query parâmetros que definem a resposta; o primeiro deve nomear o recurso
+     */
+    public <T> ResponseEntity<T> respond(HttpServletRequest request, Supplier<T> body, Object... query) {
+        // A versão é lida antes dos dados: uma escrita no meio só gera um ETag mais antigo.
+        String etag = etag(catalogVersion.current(), TenantContext.currentOrganizationId(), query);
+        CacheControl cacheControl = isAnonymous() ? anonymous : AUTHENTICATED;
+
+        if (matches(request.getHeaders(HttpHeaders.IF_NONE_MATCH), etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(cacheControl)
+                    .varyBy(HttpHeaders.COOKIE)
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .varyBy(HttpHeaders.COOKIE)
+                .body(body.get());
+    }
+
+    public CacheControl getAnonymousCacheControl() {
+        return anonymous;
+    }
+
+    public static String etag(long version, UUID organizationId, Object... query) {
+        StringJoiner tuple = new StringJoiner("|");
+        tuple.add(String.valueOf(organizationId));
+        for (Object value : query) {
+            tuple.add(String.valueOf(value));
+        }
+        String hash = DigestUtils.md5DigestAsHex(tuple.toString().getBytes(StandardCharsets.UTF_8));
+        return "\"" + Long.toString(version, 36) + "-" + hash.substring(0, 16) + "\"";
+    }
+
+    /**
+     * Comparação fraca, como pede o If-None-Match: "W/" é ignorado e "*" sempre bate.
+     */
+    public static boolean matches(Enumeration<String> ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        while (ifNoneMatch.hasMoreElements()) {
+            for (String candidate : ifNoneMatch.nextElement().split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(etag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isAnonymous() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken;
+    }
+}
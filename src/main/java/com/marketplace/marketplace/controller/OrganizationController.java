@@ -2,7 +2,11 @@ package com.marketplace.marketplace.controller;
 
 import com.marketplace.marketplace.domain.Organization;
 import com.marketplace.marketplace.repository.OrganizationRepository;
+import com.marketplace.marketplace.service.OrganizationChangedEvent;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -14,19 +18,29 @@ import java.util.UUID;
 public class OrganizationController {
 
     private final OrganizationRepository organizationRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CatalogConditionalGet catalogConditionalGet;
 
-    public OrganizationController(OrganizationRepository organizationRepository) {
+    public OrganizationController(OrganizationRepository organizationRepository, ApplicationEventPublisher eventPublisher,
+                                  CatalogConditionalGet catalogConditionalGet) {
         this.organizationRepository = organizationRepository;
+        this.eventPublisher = eventPublisher;
+        this.catalogConditionalGet = catalogConditionalGet;
     }
 
     @PostMapping
     public Organization createOrganization(@RequestBody Organization organization) {
-        return organizationRepository.save(organization);
+        Organization saved = organizationRepository.save(organization);
+        eventPublisher.publishEvent(OrganizationChangedEvent.saved(saved));
+        return saved;
     }
 
+    /**
+     * Responde a GET condicional (ver {@link CatalogConditionalGet}).
+     */
     @GetMapping
-    public List<Organization> listOrganizations() {
-        return organizationRepository.findAll();
+    public ResponseEntity<List<Organization>> listOrganizations(HttpServletRequest request) {
+        return catalogConditionalGet.respond(request, organizationRepository::findAll, "organizations");
     }
 
     @GetMapping("/{id}")
@@ -37,12 +51,14 @@ public class OrganizationController {
 
     @PutMapping("/{id}")
     public Organization updateOrganization(@PathVariable("id") UUID id, @RequestBody Organization updatedOrg) {
-        return organizationRepository.findById(id)
+        Organization saved = organizationRepository.findById(id)
                 .map(org -> {
                     org.setName(updatedOrg.getName());
                     return organizationRepository.save(org);
                 })
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Organização não encontrada"));
+        eventPublisher.publishEvent(OrganizationChangedEvent.saved(saved));
+        return saved;
     }
 
     @DeleteMapping("/{id}")
@@ -53,5 +69,6 @@ public class OrganizationController {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Organização não encontrada");
         }
         organizationRepository.deleteById(id);
+        eventPublisher.publishEvent(OrganizationChangedEvent.deleted(id));
     }
 }
\ No newline at end of file
@@ -2,6 +2,8 @@ package com.marketplace.marketplace.controller;
 
 import com.marketplace.marketplace.domain.Organization;
 import com.marketplace.marketplace.repository.OrganizationRepository;
+import com.marketplace.marketplace.service.OrganizationChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -14,9 +16,11 @@ import org.springframework.web.bind.annotation.RequestMapping;
 public class OrganizationWebController {
 
     private final OrganizationRepository organizationRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public OrganizationWebController(OrganizationRepository organizationRepository) {
+    public OrganizationWebController(OrganizationRepository organizationRepository, ApplicationEventPublisher eventPublisher) {
         this.organizationRepository = organizationRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @GetMapping
@@ -28,7 +32,8 @@ public class OrganizationWebController {
 
     @PostMapping("/salvar")
     public String saveOrg(@ModelAttribute("newOrg") Organization organization) {
-        organizationRepository.save(organization);
+        Organization saved = organizationRepository.save(organization);
+        eventPublisher.publishEvent(OrganizationChangedEvent.saved(saved));
         return "redirect:/admin/orgs";
     }
 }
\ No newline at end of file
@@ -1,19 +1,33 @@
 package com.marketplace.marketplace.controller;
 
+import com.marketplace.marketplace.config.AiSearchProperties;
+import com.marketplace.marketplace.config.SearchExecutors;
 import com.marketplace.marketplace.domain.Product;
 import com.marketplace.marketplace.domain.User;
 import com.marketplace.marketplace.dto.AiSearchResponse;
 import com.marketplace.marketplace.dto.AiSearchResult;
 import com.marketplace.marketplace.dto.ProductDTO;
+import com.marketplace.marketplace.dto.ProductFacets;
+import com.marketplace.marketplace.dto.ProductSuggestion;
 import com.marketplace.marketplace.service.GeminiAiSearchService;
+import com.marketplace.marketplace.service.InventoryReservationService;
 import com.marketplace.marketplace.service.ProductService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/product")
@@ -23,32 +37,131 @@ public class ProductController {
 
     private final GeminiAiSearchService aiSearchService;
 
-    public ProductController(ProductService productService, GeminiAiSearchService aiSearchService) {
+    private final Executor streamExecutor;
+
+    private final AiSearchProperties aiSearchProperties;
+
+    private final CatalogConditionalGet catalogConditionalGet;
+
+    private final InventoryReservationService inventoryReservationService;
+
+    public ProductController(ProductService productService, GeminiAiSearchService aiSearchService,
+                             SearchExecutors searchExecutors,
+                             AiSearchProperties aiSearchProperties,
+                             CatalogConditionalGet catalogConditionalGet,
+                             InventoryReservationService inventoryReservationService) {
         this.productService = productService;
         this.aiSearchService = aiSearchService;
+        this.streamExecutor = searchExecutors.stream();
+        this.aiSearchProperties = aiSearchProperties;
+        this.catalogConditionalGet = catalogConditionalGet;
+        this.inventoryReservationService = inventoryReservationService;
     }
 
 
+    /**
+     * Sem IA, a listagem responde a GET condicional (ver {@link CatalogConditionalGet}).
+     */
     @GetMapping
     public ResponseEntity<?> getProducts(
+            HttpServletRequest request,
             @RequestParam(required = false) String name,
             @RequestParam(required = false) BigDecimal minPrice,
             @RequestParam(required = false) BigDecimal maxPrice,
             @RequestParam(required = false) String category,
             @RequestParam(required = false) String sort,
-            @RequestParam(required = false) String aiQuery
+            @RequestParam(required = false) String aiQuery,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean includeTotal
     ) {
 
+        boolean paged = cursor != null || limit != null;
+
         if (aiQuery != null && !aiQuery.isEmpty()) {
 
-            AiSearchResult result = productService.aiSearch(aiQuery);
+            AiSearchResult result = paged
+                    ? productService.aiSearch(aiQuery, cursor, limit)
+                    : productService.aiSearch(aiQuery);
             return ResponseEntity.ok(result);
 
+        } else if (paged) {
+
+            return catalogConditionalGet.respond(request,
+                    () -> productService.findPageWithFilters(name, minPrice, maxPrice, category, sort, cursor, limit, includeTotal),
+                    "product-page", name, minPrice, maxPrice, category, sort, cursor, limit, includeTotal);
+
         } else {
 
-            List<ProductDTO> products = productService.findWithFilters(name, minPrice, maxPrice, category, sort);
-            return ResponseEntity.ok(products);
+            return catalogConditionalGet.respond(request,
+                    () -> productService.findWithFilters(name, minPrice, maxPrice, category, sort),
+                    "products", name, minPrice, maxPrice, category, sort);
+        }
+    }
+
+    /**
+     * Facetas da listagem: contagem por categoria e por organização e histograma de preço,
+     * para os mesmos filtros de {@link #getProducts}.
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<ProductFacets> getFacets(
+            HttpServletRequest request,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String category
+    ) {
+        return catalogConditionalGet.respond(request,
+                () -> productService.findFacets(name, minPrice, maxPrice, category),
+                "product-facets", name, minPrice, maxPrice, category);
+    }
+
+    /**
+     * Autocomplete da busca: nomes de produto e categorias para o que já foi digitado.
+     */
+    @GetMapping("/suggest")
+    public List<ProductSuggestion> suggest(
+            @RequestParam String prefix,
+            @RequestParam(required = false) Integer limit
+    ) {
+        return productService.suggest(prefix, limit);
+    }
+
+    /**
+     * Unidades que ainda cabem num carrinho: o estoque menos o que outros carrinhos seguram.
+     */
+    @GetMapping("/{id}/available")
+    public Map<String, Object> available(@PathVariable UUID id) {
+        return Map.of("productId", id, "available", inventoryReservationService.available(id));
+    }
+
+    /**
+     * Busca por IA em Server-Sent Events. Eventos, nesta ordem:
+     * <ul>
+     *     <li>{@code keyword}: busca ampla por palavra-chave, sem esperar a IA;</li>
+     *     <li>{@code message}: friendlyMessage e filtros devolvidos pela IA;</li>
+     *     <li>{@code refined}: produtos com os filtros da IA (lista vazia se nada bateu);</li>
+     *     <li>{@code complete}: fim da busca.</li>
+     * </ul>
+     * Se a IA falhar, {@code message} traz só o aviso e {@code refined} não é enviado.
+     * O trabalho roda no pool limitado das buscas em streaming ({@link SearchExecutors#stream()}),
+     * com o SecurityContext do usuário; a thread do Tomcat é liberada assim que o emitter é
+     * devolvido. Com a fila desse pool cheia a busca nem começa e a resposta é 503. Cliente
+     * desconectado ou timeout param as etapas que ainda não começaram.
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamProducts(
+            @RequestParam String aiQuery,
+            @RequestParam(required = false) Integer limit
+    ) {
+        SseEmitter emitter = new SseEmitter(aiSearchProperties.getStreamTimeout().toMillis());
+        try {
+            new AiSearchStream(productService, new DelegatingSecurityContextExecutor(streamExecutor), emitter, aiQuery, limit)
+                    .start();
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Muitas buscas em andamento, tente de novo em instantes");
         }
+        return emitter;
     }
 
     @GetMapping("/test-ai")
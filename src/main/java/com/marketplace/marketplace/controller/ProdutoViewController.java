@@ -9,10 +9,12 @@ import com.marketplace.marketplace.dto.AiSearchResult;
 import com.marketplace.marketplace.dto.ProductDTO;
 import com.marketplace.marketplace.repository.OrganizationRepository;
 import com.marketplace.marketplace.repository.ProductRepository;
+import com.marketplace.marketplace.service.ProductChangedEvent;
 import com.marketplace.marketplace.service.ProductService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -37,6 +39,8 @@ public class ProdutoViewController {
     private OrganizationRepository organizationRepository;
     @Autowired
     private ProductService productService;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     private User getLoggedInUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -115,7 +119,8 @@ public class ProdutoViewController {
             }
         }
 
-        productRepository.save(produto);
+        Product salvo = productRepository.save(produto);
+        eventPublisher.publishEvent(ProductChangedEvent.saved(salvo));
         return "redirect:/produto";
     }
 
@@ -162,6 +167,7 @@ public class ProdutoViewController {
         }
 
         productRepository.deleteById(id);
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
         return "redirect:/produto";
     }
 }
\ No newline at end of file
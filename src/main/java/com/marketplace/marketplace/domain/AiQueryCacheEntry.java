@@ -0,0 +1,35 @@
+package com.marketplace.marketplace.domain;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "ai_query_cache")
+public class AiQueryCacheEntry {
+
+    @Id
+    @Column(name = "normalized_query", length = 500)
+    private String normalizedQuery;
+
+    @Column(name = "response_json", columnDefinition = "text", nullable = false)
+    private String responseJson;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    public AiQueryCacheEntry() {
+    }
+
+    public AiQueryCacheEntry(String normalizedQuery, String responseJson, LocalDateTime createdAt) {
+        this.normalizedQuery = normalizedQuery;
+        this.responseJson = responseJson;
+        this.createdAt = createdAt;
+    }
+
+    public String getNormalizedQuery() { return normalizedQuery; }
+    public void setNormalizedQuery(String normalizedQuery) { this.normalizedQuery = normalizedQuery; }
+    public String getResponseJson() { return responseJson; }
+    public void setResponseJson(String responseJson) { this.responseJson = responseJson; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,45 @@
+package com.marketplace.marketplace.domain;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Unidades de um produto seguradas por um carrinho até {@code expiresAt}. A soma dos holds
+ * de um produto é o {@code reserved} dele; as linhas só são escritas pelo SQL de
+ * InventoryReservationService e CheckoutService.
+ */
+@Entity
+@Table(name = "inventory_hold",
+        uniqueConstraints = @UniqueConstraint(name = "uk_inventory_hold_cart_product", columnNames = {"cart_id", "product_id"}),
+        indexes = @Index(name = "idx_inventory_hold_expires", columnList = "expires_at"))
+public class InventoryHold {
+
+    @Id
+    private UUID id;
+
+    @Column(name = "cart_id", nullable = false)
+    private UUID cartId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Product product;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    public InventoryHold() {
+    }
+
+    public UUID getId() { return id; }
+    public UUID getCartId() { return cartId; }
+    public Product getProduct() { return product; }
+    public Integer getQuantity() { return quantity; }
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+}
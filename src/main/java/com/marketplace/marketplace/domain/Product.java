@@ -1,6 +1,9 @@
 package com.marketplace.marketplace.domain;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.Filter;
 import org.hibernate.annotations.FilterDef;
 import org.hibernate.annotations.ParamDef;
@@ -12,6 +15,8 @@ import java.util.UUID;
 @Filter(name = "tenantFilter", condition = "organization_id = :organizationId")
 @Entity
 @Table(name = "produto")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "product")
 public class Product {
 
     @Id
@@ -38,6 +43,12 @@ public class Product {
     @Column(name = "quantity")
     private Integer quantity;
 
+    // Unidades seguradas em carrinhos (InventoryHold). Só o SQL de reserva e de checkout
+    // escreve aqui; o valor carregado (e o do cache de segundo nível) pode estar atrasado.
+    @ColumnDefault("0")
+    @Column(name = "reserved", nullable = false, insertable = false, updatable = false)
+    private Integer reserved;
+
     @Column(name = "image_url", length = 1024)
     private String imageUrl;
 
@@ -73,6 +84,8 @@ public class Product {
     public Integer getQuantity() { return quantity; }
     public void setQuantity(Integer quantity) { this.quantity = quantity; }
 
+    public Integer getReserved() { return reserved; }
+
     public String getImageUrl() { return imageUrl; }
     public void setImageUrl(String imageUrl) { this.imageUrl = imageUrl; }
 
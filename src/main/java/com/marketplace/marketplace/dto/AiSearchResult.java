@@ -9,6 +9,7 @@ public class AiSearchResult {
     private List<ProductDTO> products;
     private String friendlyMessage;
     private SearchFilters filters;
+    private String nextCursor;
 
     public AiSearchResult(List<ProductDTO> products, String friendlyMessage, SearchFilters filters) {
         this.products = products;
@@ -16,6 +17,11 @@ public class AiSearchResult {
         this.filters = filters;
     }
 
+    public AiSearchResult(List<ProductDTO> products, String friendlyMessage, SearchFilters filters, String nextCursor) {
+        this(products, friendlyMessage, filters);
+        this.nextCursor = nextCursor;
+    }
+
     public String getFriendlyMessage() {
         return friendlyMessage;
     }
@@ -39,4 +45,12 @@ public class AiSearchResult {
     public void setFilters(SearchFilters filters) {
         this.filters = filters;
     }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.marketplace.marketplace.dto;
 
 import com.marketplace.marketplace.domain.Product;
+import com.marketplace.marketplace.domain.ProductCategory;
 import lombok.Data;
 
 import java.math.BigDecimal;
@@ -35,4 +36,21 @@ public class ProductDTO {
             this.organizationName = "Marketplace";
         }
     }
+
+    /**
+     * Usado pelas consultas de projeção (select new / cb.construct), sem carregar a entidade.
+     */
+    public ProductDTO(UUID id, String productName, String description, BigDecimal price, Integer quantity,
+                      String imageUrl, ProductCategory category, String organizationName) {
+        this.id = id;
+        this.productName = productName;
+        this.description = description;
+        this.price = price;
+        this.quantity = quantity;
+        this.imageUrl = imageUrl;
+        if (category != null) {
+            this.category = category.getDisplayName();
+        }
+        this.organizationName = organizationName != null ? organizationName : "Marketplace";
+    }
 }
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.marketplace.marketplace.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+public class ProductFacets {
+
+    private List<FacetCount> categories;
+    private List<FacetCount> organizations;
+    private List<PriceRangeCount> prices;
+
+    public ProductFacets(List<FacetCount> categories, List<FacetCount> organizations, List<PriceRangeCount> prices) {
+        this.categories = categories;
+        this.organizations = organizations;
+        this.prices = prices;
+    }
+
+    /**
+     * {@code value} é o que vai no filtro (nome da categoria, id da organização);
+     * {@code label} é o texto da tela.
+     */
+    @Data
+    public static class FacetCount {
+        private String value;
+        private String label;
+        private long count;
+
+        public FacetCount(String value, String label, long count) {
+            this.value = value;
+            this.label = label;
+            this.count = count;
+        }
+    }
+
+    /**
+     * Faixa [min, max) do histograma; null nas pontas abertas.
+     */
+    @Data
+    public static class PriceRangeCount {
+        private BigDecimal min;
+        private BigDecimal max;
+        private long count;
+
+        public PriceRangeCount(BigDecimal min, BigDecimal max, long count) {
+            this.min = min;
+            this.max = max;
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.marketplace.marketplace.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ProductPage {
+
+    private List<ProductDTO> items;
+    private String nextCursor;
+    private Long estimatedTotal;
+
+    public ProductPage(List<ProductDTO> items, String nextCursor, Long estimatedTotal) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.estimatedTotal = estimatedTotal;
+    }
+}
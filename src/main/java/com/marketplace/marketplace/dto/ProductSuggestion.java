@@ -0,0 +1,24 @@
+package com.marketplace.marketplace.dto;
+
+import lombok.Data;
+
+/**
+ * Sugestão do autocomplete. {@code type} é "product" ou "category"; {@code value} é o que
+ * vai no filtro da listagem ({@code name} ou {@code category}) e {@code text} é o texto da tela.
+ */
+@Data
+public class ProductSuggestion {
+
+    public static final String TYPE_PRODUCT = "product";
+    public static final String TYPE_CATEGORY = "category";
+
+    private String text;
+    private String type;
+    private String value;
+
+    public ProductSuggestion(String text, String type, String value) {
+        this.text = text;
+        this.type = type;
+        this.value = value;
+    }
+}
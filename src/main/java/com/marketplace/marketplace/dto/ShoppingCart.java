@@ -1,5 +1,6 @@
 package com.marketplace.marketplace.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.marketplace.marketplace.domain.Product;
 import java.math.BigDecimal;
 import java.util.ArrayList;
@@ -9,8 +10,28 @@ import java.util.UUID;
 
 public class ShoppingCart {
 
+    // Dono dos holds de estoque (InventoryHold): não muda quando o id da sessão muda no login.
+    @JsonIgnore
+    private final UUID id = UUID.randomUUID();
+
     private List<com.marketplace.marketplace.dto.CartItem> items = new ArrayList<>();
 
+    public UUID getId() {
+        return id;
+    }
+
+    /**
+     * Unidades do produto já no carrinho.
+     */
+    public int quantityOf(UUID productId) {
+        for (com.marketplace.marketplace.dto.CartItem item : items) {
+            if (item.getProduct().getId().equals(productId)) {
+                return item.getQuantity();
+            }
+        }
+        return 0;
+    }
+
     public void addItem(Product product, int quantity) {
         for (com.marketplace.marketplace.dto.CartItem item : items) {
             if (item.getProduct().getId().equals(product.getId())) {
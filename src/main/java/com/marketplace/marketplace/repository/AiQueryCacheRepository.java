@@ -0,0 +1,7 @@
+package com.marketplace.marketplace.repository;
+
+import com.marketplace.marketplace.domain.AiQueryCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface AiQueryCacheRepository extends JpaRepository<AiQueryCacheEntry, String> {
+}
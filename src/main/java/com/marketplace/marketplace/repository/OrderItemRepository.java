@@ -2,7 +2,16 @@ package com.marketplace.marketplace.repository;
 
 import com.marketplace.marketplace.domain.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 import java.util.UUID;
 
 public interface OrderItemRepository extends JpaRepository<OrderItem, UUID> {
-}
\ No newline at end of file
+
+    /**
+     * Unidades já pedidas por produto: linhas {@code [UUID productId, Long quantidade]}.
+     */
+    @Query("SELECT oi.product.id, SUM(oi.quantity) FROM OrderItem oi GROUP BY oi.product.id")
+    List<Object[]> sumQuantityByProduct();
+}
@@ -1,8 +1,17 @@
 package com.marketplace.marketplace.repository;
 
 import com.marketplace.marketplace.domain.Organization;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+import java.util.List;
 import java.util.UUID;
 
 public interface OrganizationRepository extends JpaRepository<Organization, UUID> {
-}
\ No newline at end of file
+
+    // Listagem pública e sem filtro de tenant: pode ir para o cache de consultas.
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Organization> findAll();
+}
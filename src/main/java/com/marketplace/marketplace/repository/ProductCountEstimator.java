@@ -0,0 +1,86 @@
+package com.marketplace.marketplace.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketplace.marketplace.config.TenantContext;
+import com.marketplace.marketplace.domain.ProductCategory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Estimativa do total de produtos para a paginação do catálogo, sem COUNT(*).
+ * Sem filtros usa as estatísticas da tabela ou das partições (pg_class.reltuples); com filtros usa
+ * a estimativa de linhas do planejador (EXPLAIN), que não executa a consulta.
+ */
+@Component
+public class ProductCountEstimator {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductCountEstimator.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public ProductCountEstimator(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    public Long estimate(String name, BigDecimal minPrice, BigDecimal maxPrice, String category) {
+        List<String> conditions = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+
+        if (name != null && !name.isEmpty()) {
+            conditions.add("lower(p.product_name) like ?");
+            params.add("%" + name.toLowerCase() + "%");
+        }
+        if (minPrice != null) {
+            conditions.add("p.price >= ?");
+            params.add(minPrice);
+        }
+        if (maxPrice != null) {
+            conditions.add("p.price <= ?");
+            params.add(maxPrice);
+        }
+        if (category != null && !category.isEmpty()) {
+            try {
+                ProductCategory catEnum = ProductCategory.valueOf(category.toUpperCase());
+                conditions.add("p.category = ?");
+                params.add(catEnum.name());
+            } catch (IllegalArgumentException e) {
+                // A listagem também ignora a categoria inválida: a estimativa segue sem o filtro.
+                log.debug("Categoria inválida ignorada na estimativa: {}", category);
+            }
+        }
+        UUID organizationId = TenantContext.currentOrganizationId();
+        if (organizationId != null) {
+            conditions.add("p.organization_id = ?");
+            params.add(organizationId);
+        }
+
+        try {
+            if (conditions.isEmpty()) {
+                // Particionada, a tabela em si não tem linhas: soma as estatísticas das partições.
+                Long rows = jdbcTemplate.queryForObject(
+                        "SELECT coalesce(sum(greatest(c.reltuples, 0)), 0)::bigint FROM pg_class c " +
+                                "WHERE c.relname = 'produto' OR c.oid IN (SELECT i.inhrelid FROM pg_inherits i " +
+                                "JOIN pg_class parent ON parent.oid = i.inhparent WHERE parent.relname = 'produto')", Long.class);
+                return rows != null ? rows : 0L;
+            }
+
+            String sql = "EXPLAIN (FORMAT JSON) SELECT 1 FROM produto p WHERE " + String.join(" AND ", conditions);
+            String plan = jdbcTemplate.queryForObject(sql, String.class, params.toArray());
+            JsonNode root = objectMapper.readTree(plan);
+            return root.get(0).get("Plan").get("Plan Rows").asLong();
+        } catch (Exception e) {
+            log.warn("Não foi possível estimar o total de produtos: {}", e.getMessage());
+            return null;
+        }
+    }
+}
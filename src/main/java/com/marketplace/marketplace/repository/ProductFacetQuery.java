@@ -0,0 +1,170 @@
+package com.marketplace.marketplace.repository;
+
+import com.marketplace.marketplace.config.TenantContext;
+import com.marketplace.marketplace.domain.ProductCategory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Facetas do catálogo numa única consulta agregada (GROUPING SETS): contagem por
+ * categoria, por organização e histograma de preço (width_bucket nas mesmas faixas do
+ * índice de bitmaps).
+ * <p>
+ * Cada faceta ignora o próprio filtro, para a tela mostrar as alternativas: as
+ * categorias contam com o filtro de preço, o histograma com o de categoria e as
+ * organizações com os dois. Nome e tenant valem para todas.
+ */
+@Component
+public class ProductFacetQuery {
+
+    // GROUPING(category, organization_id, bucket): o bit ligado é a coluna agregada.
+    private static final int CATEGORY_SET = 0b011;
+    private static final int ORGANIZATION_SET = 0b101;
+    private static final int PRICE_SET = 0b110;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final List<BigDecimal> priceBounds;
+
+    public ProductFacetQuery(JdbcTemplate jdbcTemplate,
+                             @Value("${marketplace.search.bitmap-index.price-buckets:10,25,50,100,200,500}") List<BigDecimal> priceBuckets) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.priceBounds = priceBuckets.stream()
+                .map(BigDecimal::stripTrailingZeros)
+                .distinct()
+                .sorted()
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    /**
+     * Contagens brutas; a faixa i do histograma vai de bounds[i-1] (inclusive) a bounds[i].
+     */
+    public record Counts(Map<ProductCategory, Long> categories, Map<UUID, Long> organizations,
+                         long withoutOrganization, long[] priceBuckets) {
+
+        public static Counts empty(int bucketCount) {
+            return new Counts(Collections.emptyMap(), Collections.emptyMap(), 0, new long[bucketCount]);
+        }
+    }
+
+    public List<BigDecimal> getPriceBounds() {
+        return priceBounds;
+    }
+
+    /**
+     * @param nameCondition filtro do motor de busca textual para {@code name}, em SQL sobre o
+     *                      alias {@code p} e com um '?' para {@code nameParam}; null para filtrar
+     *                      o nome com LIKE
+     */
+    public Counts count(String name, String nameCondition, Object nameParam,
+                        BigDecimal minPrice, BigDecimal maxPrice, String category) {
+        List<String> priceConditions = new ArrayList<>();
+        List<Object> priceParams = new ArrayList<>();
+        if (minPrice != null) {
+            priceConditions.add("f.price >= ?");
+            priceParams.add(minPrice);
+        }
+        if (maxPrice != null) {
+            priceConditions.add("f.price <= ?");
+            priceParams.add(maxPrice);
+        }
+        String priceFilter = priceConditions.isEmpty() ? "true" : String.join(" AND ", priceConditions);
+
+        String categoryFilter = "true";
+        List<Object> categoryParams = new ArrayList<>();
+        ProductCategory categoryEnum = parseCategory(category);
+        if (categoryEnum != null) {
+            categoryFilter = "f.category = ?";
+            categoryParams.add(categoryEnum.name());
+        }
+
+        List<String> conditions = new ArrayList<>();
+        List<Object> conditionParams = new ArrayList<>();
+        if (nameCondition != null) {
+            conditions.add(nameCondition);
+            conditionParams.add(nameParam);
+        } else if (name != null && !name.isEmpty()) {
+            conditions.add("lower(p.product_name) like ?");
+            conditionParams.add("%" + name.toLowerCase() + "%");
+        }
+        UUID organizationId = TenantContext.currentOrganizationId();
+        if (organizationId != null) {
+            conditions.add("p.organization_id = ?");
+            conditionParams.add(organizationId);
+        }
+
+        String sql = "SELECT GROUPING(f.category, f.organization_id, f.bucket) AS grouping_set, " +
+                "f.category, f.organization_id, f.bucket, " +
+                "count(*) FILTER (WHERE " + priceFilter + ") AS category_count, " +
+                "count(*) FILTER (WHERE " + priceFilter + " AND " + categoryFilter + ") AS organization_count, " +
+                "count(*) FILTER (WHERE " + categoryFilter + ") AS price_count " +
+                "FROM (SELECT p.category, p.organization_id, p.price, width_bucket(p.price, ?::numeric[]) AS bucket " +
+                "FROM produto p" + (conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions)) + ") f " +
+                "GROUP BY GROUPING SETS ((f.category), (f.organization_id), (f.bucket))";
+
+        // Na ordem em que os '?' aparecem no SQL.
+        List<Object> params = new ArrayList<>(priceParams);
+        params.addAll(priceParams);
+        params.addAll(categoryParams);
+        params.addAll(categoryParams);
+        params.add(priceBounds.stream().map(BigDecimal::toPlainString).collect(Collectors.joining(",", "{", "}")));
+        params.addAll(conditionParams);
+
+        Map<ProductCategory, Long> categories = new EnumMap<>(ProductCategory.class);
+        Map<UUID, Long> organizations = new HashMap<>();
+        long[] withoutOrganization = new long[1];
+        long[] priceBuckets = new long[priceBounds.size() + 1];
+
+        jdbcTemplate.query(sql, rs -> {
+            switch (rs.getInt("grouping_set")) {
+                case CATEGORY_SET -> {
+                    String value = rs.getString("category");
+                    long count = rs.getLong("category_count");
+                    if (value != null && count > 0) {
+                        categories.put(ProductCategory.valueOf(value), count);
+                    }
+                }
+                case ORGANIZATION_SET -> {
+                    UUID value = rs.getObject("organization_id", UUID.class);
+                    long count = rs.getLong("organization_count");
+                    if (value == null) {
+                        withoutOrganization[0] = count;
+                    } else if (count > 0) {
+                        organizations.put(value, count);
+                    }
+                }
+                case PRICE_SET -> {
+                    int bucket = rs.getInt("bucket");
+                    if (!rs.wasNull()) {
+                        priceBuckets[bucket] = rs.getLong("price_count");
+                    }
+                }
+                default -> {
+                }
+            }
+        }, params.toArray());
+
+        return new Counts(categories, organizations, withoutOrganization[0], priceBuckets);
+    }
+
+    private static ProductCategory parseCategory(String category) {
+        if (category == null || category.isEmpty()) {
+            return null;
+        }
+        try {
+            return ProductCategory.valueOf(category.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
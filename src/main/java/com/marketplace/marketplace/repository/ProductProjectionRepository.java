@@ -0,0 +1,23 @@
+package com.marketplace.marketplace.repository;
+
+import com.marketplace.marketplace.domain.Product;
+import com.marketplace.marketplace.dto.ProductDTO;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Leituras do catálogo que vão direto para {@link ProductDTO}: o SELECT traz só as
+ * colunas do DTO (com o nome da organização num LEFT JOIN) e nada entra no contexto
+ * de persistência. Os Specifications são os mesmos das consultas por entidade.
+ */
+public interface ProductProjectionRepository {
+
+    List<ProductDTO> findDtos(Specification<Product> spec, Sort sort);
+
+    /**
+     * Como {@link #findDtos(Specification, Sort)}, limitado às {@code limit} primeiras linhas.
+     */
+    List<ProductDTO> findDtos(Specification<Product> spec, Sort sort, int limit);
+}
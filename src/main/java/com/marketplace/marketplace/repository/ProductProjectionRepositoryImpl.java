@@ -0,0 +1,63 @@
+package com.marketplace.marketplace.repository;
+
+import com.marketplace.marketplace.domain.Organization;
+import com.marketplace.marketplace.domain.Product;
+import com.marketplace.marketplace.dto.ProductDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.List;
+
+public class ProductProjectionRepositoryImpl implements ProductProjectionRepository {
+
+    private final EntityManager entityManager;
+
+    public ProductProjectionRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<ProductDTO> findDtos(Specification<Product> spec, Sort sort) {
+        return buildQuery(spec, sort).getResultList();
+    }
+
+    @Override
+    public List<ProductDTO> findDtos(Specification<Product> spec, Sort sort, int limit) {
+        return buildQuery(spec, sort).setMaxResults(limit).getResultList();
+    }
+
+    private TypedQuery<ProductDTO> buildQuery(Specification<Product> spec, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductDTO> query = cb.createQuery(ProductDTO.class);
+        Root<Product> root = query.from(Product.class);
+        Join<Product, Organization> organization = root.join("organization", JoinType.LEFT);
+
+        query.select(cb.construct(ProductDTO.class,
+                root.get("id"),
+                root.get("productName"),
+                root.get("description"),
+                root.get("price"),
+                root.get("quantity"),
+                root.get("imageUrl"),
+                root.get("category"),
+                organization.get("name")));
+
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        }
+        return entityManager.createQuery(query);
+    }
+}
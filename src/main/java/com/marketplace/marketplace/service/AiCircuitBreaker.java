@@ -0,0 +1,163 @@
+package com.marketplace.marketplace.service;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Circuit breaker simples para o serviço de IA, com janela deslizante por contagem.
+ * Abre quando a taxa de falhas das últimas {@code windowSize} chamadas passa do limite
+ * (com pelo menos {@code minimumCalls} registradas); depois de {@code openDuration}
+ * deixa passar uma chamada de teste (meio-aberto), que fecha ou reabre o circuito.
+ * <p>
+ * Cada chamada autorizada recebe um {@link Permit}, por onde informa o resultado e que
+ * é liberado no fim de qualquer jeito: a chamada de teste que termina sem resultado (ex.:
+ * interrompida) não prende o meio-aberto. Resultados de permissões dadas antes da última
+ * mudança de estado são ignorados, então uma chamada lenta do circuito fechado não fecha
+ * um circuito que já abriu de novo.
+ */
+public class AiCircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final Duration openDuration;
+    private final Clock clock;
+
+    private final boolean[] outcomes;
+    private int recorded;
+    private int next;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean trialInFlight;
+    private long generation;
+
+    public AiCircuitBreaker(int windowSize, int minimumCalls, int failureRateThreshold, Duration openDuration) {
+        this(windowSize, minimumCalls, failureRateThreshold, openDuration, Clock.systemUTC());
+    }
+
+    AiCircuitBreaker(int windowSize, int minimumCalls, int failureRateThreshold, Duration openDuration, Clock clock) {
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDuration = openDuration;
+        this.clock = clock;
+        this.outcomes = new boolean[windowSize];
+    }
+
+    /**
+     * @return null quando o circuito está aberto e a chamada não deve ser feita
+     */
+    public synchronized Permit tryAcquire() {
+        if (state == State.OPEN) {
+            if (clock.millis() - openedAt < openDuration.toMillis()) {
+                return null;
+            }
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+            generation++;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                return null;
+            }
+            trialInFlight = true;
+        }
+        return new Permit(generation);
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @param failed null quando a chamada terminou sem resultado
+     */
+    private synchronized void complete(Permit permit, Boolean failed) {
+        if (permit.completed) {
+            return;
+        }
+        permit.completed = true;
+        if (permit.generation != generation) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+            if (failed != null) {
+                if (failed) {
+                    open();
+                } else {
+                    reset();
+                }
+            }
+            return;
+        }
+        if (failed == null) {
+            return;
+        }
+        record(failed);
+        if (failed && recorded >= minimumCalls && failures * 100 >= failureRateThreshold * recorded) {
+            open();
+        }
+    }
+
+    private void record(boolean failed) {
+        if (recorded == windowSize) {
+            if (outcomes[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failed;
+        if (failed) {
+            failures++;
+        }
+        next = (next + 1) % windowSize;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = clock.millis();
+        trialInFlight = false;
+        generation++;
+    }
+
+    private void reset() {
+        state = State.CLOSED;
+        recorded = 0;
+        next = 0;
+        failures = 0;
+        trialInFlight = false;
+        generation++;
+    }
+
+    /**
+     * Uma chamada autorizada. Vale o primeiro de onSuccess, onFailure e release; release
+     * sozinho só devolve a vaga da chamada de teste.
+     */
+    public final class Permit {
+
+        private final long generation;
+        private boolean completed;
+
+        private Permit(long generation) {
+            this.generation = generation;
+        }
+
+        public void onSuccess() {
+            complete(this, false);
+        }
+
+        public void onFailure() {
+            complete(this, true);
+        }
+
+        public void release() {
+            complete(this, null);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.marketplace.marketplace.service;
+
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Normaliza consultas da busca por IA para servirem de chave de cache:
+ * "Tem RAÇÃO   barata?" e "ração barata" viram a mesma chave.
+ * Remove caixa, acentos, pontuação, espaços repetidos e palavras vazias que não
+ * mudam os filtros. Modificadores como "mais", "barato" e "caro" são mantidos.
+ */
+@Component
+public class AiQueryNormalizer {
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "o", "as", "os", "um", "uma", "uns", "umas",
+            "de", "do", "da", "dos", "das", "em", "no", "na", "nos", "nas",
+            "e", "para", "pra", "pro", "por", "com",
+            "tem", "ter", "quero", "queria", "preciso", "presiso", "procuro", "busco",
+            "me", "eu", "voce", "vc", "algum", "alguma", "alguns", "algumas",
+            "qual", "quais", "que", "onde", "favor", "ai", "oi", "ola");
+
+    public String normalize(String query) {
+        if (query == null) {
+            return "";
+        }
+        List<String> words = new ArrayList<>();
+        for (String word : fold(query).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty() && !isStopword(word)) {
+                words.add(word);
+            }
+        }
+        return String.join(" ", words);
+    }
+
+    /**
+     * Minúsculas e sem acentos: "Ração" vira "racao".
+     */
+    public String fold(String text) {
+        return Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}+", "");
+    }
+
+    /**
+     * @param foldedWord palavra já passada por {@link #fold(String)}
+     */
+    public boolean isStopword(String foldedWord) {
+        return STOPWORDS.contains(foldedWord);
+    }
+}
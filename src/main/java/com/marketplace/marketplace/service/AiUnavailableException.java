@@ -0,0 +1,12 @@
+package com.marketplace.marketplace.service;
+
+/**
+ * O serviço de IA foi considerado indisponível (circuito aberto ou sem capacidade)
+ * e a chamada remota nem foi feita.
+ */
+public class AiUnavailableException extends RuntimeException {
+
+    public AiUnavailableException(String message) {
+        super(message);
+    }
+}
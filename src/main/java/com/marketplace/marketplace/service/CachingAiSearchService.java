@@ -0,0 +1,111 @@
+package com.marketplace.marketplace.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.marketplace.marketplace.domain.AiQueryCacheEntry;
+import com.marketplace.marketplace.dto.AiSearchResponse;
+import com.marketplace.marketplace.repository.AiQueryCacheRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Decorador de {@link AiSearchService} que guarda as respostas já interpretadas,
+ * indexadas pela consulta normalizada. O cache em memória é limitado por tamanho
+ * (LRU) e por tempo; opcionalmente as respostas também vão para a tabela
+ * ai_query_cache e sobrevivem a reinícios.
+ * Métricas: cache.gets/cache.evictions com cache=aiSearch e ai.search.cache.store.hits.
+ */
+public class CachingAiSearchService implements AiSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(CachingAiSearchService.class);
+
+    private final AiSearchService delegate;
+    private final AiQueryNormalizer normalizer;
+    private final AiQueryCacheRepository store;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Cache<String, AiSearchResponse> cache;
+    private final Counter storeHits;
+
+    /**
+     * @param store repositório da tabela de cache, ou null para manter o cache só em memória
+     */
+    public CachingAiSearchService(AiSearchService delegate, AiQueryNormalizer normalizer,
+                                  AiQueryCacheRepository store, ObjectMapper objectMapper,
+                                  long maxSize, Duration ttl, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.normalizer = normalizer;
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "aiSearch");
+        this.storeHits = meterRegistry.counter("ai.search.cache.store.hits");
+    }
+
+    @Override
+    public AiSearchResponse parseSearchQuery(String query) throws Exception {
+        String key = normalizer.normalize(query);
+        if (key.isEmpty()) {
+            return delegate.parseSearchQuery(query);
+        }
+
+        AiSearchResponse cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        AiSearchResponse stored = loadStored(key);
+        if (stored != null) {
+            storeHits.increment();
+            cache.put(key, stored);
+            return stored;
+        }
+
+        AiSearchResponse response = delegate.parseSearchQuery(query);
+        if (response != null && response.getFilters() != null) {
+            cache.put(key, response);
+            saveStored(key, response);
+        }
+        return response;
+    }
+
+    private AiSearchResponse loadStored(String key) {
+        if (store == null) {
+            return null;
+        }
+        try {
+            Optional<AiQueryCacheEntry> entry = store.findById(key);
+            if (entry.isEmpty() || entry.get().getCreatedAt().plus(ttl).isBefore(LocalDateTime.now())) {
+                return null;
+            }
+            return objectMapper.readValue(entry.get().getResponseJson(), AiSearchResponse.class);
+        } catch (Exception e) {
+            log.warn("Falha ao ler o cache persistido da busca por IA para '{}': {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void saveStored(String key, AiSearchResponse response) {
+        if (store == null) {
+            return;
+        }
+        try {
+            store.save(new AiQueryCacheEntry(key, objectMapper.writeValueAsString(response), LocalDateTime.now()));
+        } catch (Exception e) {
+            log.warn("Falha ao persistir o cache da busca por IA para '{}': {}", key, e.getMessage());
+        }
+    }
+}
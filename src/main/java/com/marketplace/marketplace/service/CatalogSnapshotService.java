@@ -0,0 +1,197 @@
+package com.marketplace.marketplace.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketplace.marketplace.domain.ProductCategory;
+import com.marketplace.marketplace.dto.ProductDTO;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Snapshots do catálogo público em disco: a listagem de /api/product sem filtros, e por
+ * categoria, em cada ordenação, já serializada em JSON e em JSON gzip. Uma thread de
+ * fundo regera tudo quando a {@link CatalogVersion} muda (com um debounce, para várias
+ * escritas seguidas virarem uma geração só), num diretório novo por versão.
+ * <p>
+ * Os dados são lidos sem usuário, então sem tenant: só servem para anônimos. Um
+ * snapshot só vale enquanto a versão dele é a atual; fora isso a requisição segue o
+ * caminho normal.
+ */
+@Service
+@ConditionalOnProperty(name = "marketplace.catalog.snapshot.enabled", havingValue = "true")
+public class CatalogSnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogSnapshotService.class);
+
+    /** Ordenações aceitas pela listagem; "" é a padrão. */
+    public static final Set<String> SORTS = Set.of("", "price_asc", "price_desc", "name_asc");
+
+    private static final String ALL_CATEGORIES = "all";
+
+    private final ProductService productService;
+    private final CatalogVersion catalogVersion;
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final Duration debounce;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    private volatile Snapshot current;
+    private Snapshot previous;
+
+    /**
+     * Arquivos de uma versão do catálogo.
+     */
+    public record Snapshot(long version, Path directory) {
+
+        /**
+         * @param category categoria já validada, ou null para o catálogo todo
+         * @param sort     uma das {@link #SORTS}
+         */
+        public Path file(ProductCategory category, String sort, boolean gzip) {
+            String slice = category != null ? category.name() : ALL_CATEGORIES;
+            String name = slice + "." + (sort.isEmpty() ? "default" : sort) + ".json";
+            return directory.resolve(gzip ? name + ".gz" : name);
+        }
+    }
+
+    public CatalogSnapshotService(ProductService productService, CatalogVersion catalogVersion, ObjectMapper objectMapper,
+                                  @Value("${marketplace.catalog.snapshot.directory}") Path directory,
+                                  @Value("${marketplace.catalog.snapshot.debounce:2s}") Duration debounce) {
+        this.productService = productService;
+        this.catalogVersion = catalogVersion;
+        this.objectMapper = objectMapper;
+        this.directory = directory;
+        this.debounce = debounce;
+    }
+
+    /**
+     * O snapshot da versão atual do catálogo, ou null se ele ainda não foi gerado.
+     */
+    public Snapshot current() {
+        Snapshot snapshot = current;
+        return snapshot != null && snapshot.version() == catalogVersion.current() ? snapshot : null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() throws IOException {
+        // Versões de execuções anteriores nunca mais batem com a atual.
+        if (Files.isDirectory(directory)) {
+            try (Stream<Path> old = Files.list(directory)) {
+                for (Path path : old.toList()) {
+                    FileSystemUtils.deleteRecursively(path);
+                }
+            }
+        }
+        schedule(Duration.ZERO);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        schedule(debounce);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrganizationChanged(OrganizationChangedEvent event) {
+        schedule(debounce);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void schedule(Duration delay) {
+        if (scheduled.compareAndSet(false, true)) {
+            executor.schedule(this::generate, delay.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void generate() {
+        // Escritas durante a geração agendam a próxima.
+        scheduled.set(false);
+        // Lida antes dos dados, como no ETag: no pior caso o snapshot nasce velho e não é usado.
+        long version = catalogVersion.current();
+        if (current != null && current.version() == version) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        Path target = directory.resolve(Long.toString(version));
+        try {
+            Files.createDirectories(target);
+            Snapshot snapshot = new Snapshot(version, target);
+            List<ProductCategory> slices = new ArrayList<>();
+            slices.add(null);
+            slices.addAll(List.of(ProductCategory.values()));
+            for (ProductCategory category : slices) {
+                for (String sort : SORTS) {
+                    List<ProductDTO> products = productService.findWithFilters(null, null, null,
+                            category != null ? category.name() : null, sort.isEmpty() ? null : sort);
+                    write(snapshot, category, sort, objectMapper.writeValueAsBytes(products));
+                }
+            }
+
+            // O anterior fica até a próxima troca: pode haver um sendfile dele em andamento.
+            Snapshot replaced = previous;
+            previous = current;
+            current = snapshot;
+            if (replaced != null) {
+                FileSystemUtils.deleteRecursively(replaced.directory());
+            }
+            log.info("Snapshots do catálogo gerados para a versão {} em {} ms", version, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.warn("Falha ao gerar os snapshots do catálogo da versão {}", version, e);
+            try {
+                FileSystemUtils.deleteRecursively(target);
+            } catch (IOException ignored) {
+                // o diretório fica para a limpeza da próxima subida
+            }
+        }
+    }
+
+    private static void write(Snapshot snapshot, ProductCategory category, String sort, byte[] json) throws IOException {
+        Files.write(snapshot.file(category, sort, false), json);
+        try (OutputStream out = new BestCompressionGzip(Files.newOutputStream(snapshot.file(category, sort, true)))) {
+            out.write(json);
+        }
+    }
+
+    /**
+     * Os arquivos são gerados uma vez e lidos milhares de vezes: vale o nível máximo.
+     */
+    private static final class BestCompressionGzip extends GZIPOutputStream {
+        BestCompressionGzip(OutputStream out) throws IOException {
+            super(out, 64 * 1024);
+            def.setLevel(Deflater.BEST_COMPRESSION);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.marketplace.marketplace.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versão do catálogo: sobe a cada produto ou organização salvos ou apagados, depois do
+ * commit. Quem lê a versão antes de carregar os dados nunca marca dados antigos com uma
+ * versão nova. Começa no instante da subida, então continua crescendo entre reinícios.
+ */
+@Component
+public class CatalogVersion {
+
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    public long current() {
+        return version.get();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        version.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrganizationChanged(OrganizationChangedEvent event) {
+        version.incrementAndGet();
+    }
+}
@@ -0,0 +1,186 @@
+package com.marketplace.marketplace.service;
+
+import com.marketplace.marketplace.config.RequestDbStatistics;
+import com.marketplace.marketplace.domain.Order;
+import com.marketplace.marketplace.domain.OrderItem;
+import com.marketplace.marketplace.domain.Product;
+import com.marketplace.marketplace.domain.User;
+import com.marketplace.marketplace.dto.CartItem;
+import com.marketplace.marketplace.repository.OrderRepository;
+import com.marketplace.marketplace.repository.ProductRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.hibernate.CacheMode;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Fecha um pedido baixando o estoque direto no banco: um UPDATE condicional por produto
+ * ({@code quantity - reserved >= unidades}, contando de volta o que o próprio carrinho
+ * segurava; ver {@link InventoryReservationService}), sem ler, conferir e salvar em Java.
+ * Os produtos são baixados sempre na ordem dos ids, então dois checkouts com os mesmos
+ * produtos travam as linhas na mesma ordem e não entram em deadlock; a primeira linha
+ * sem estoque derruba a transação inteira, com o que já tinha sido baixado.
+ * <p>
+ * O número de idas ao banco não depende do tamanho do carrinho: os holds saem numa consulta
+ * e num batch, os UPDATEs vão num único batch JDBC, os produtos voltam numa consulta só e
+ * o pedido com os itens sai nos batches de insert do Hibernate
+ * ({@code hibernate.jdbc.batch_size}). Statements por checkout concluído: métrica
+ * checkout.statements.
+ */
+@Service
+public class CheckoutService {
+
+    private final OrderRepository orderRepository;
+    private final ProductRepository productRepository;
+    private final InventoryReservationService inventoryReservationService;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transaction;
+    private final DistributionSummary statements;
+
+    public CheckoutService(OrderRepository orderRepository, ProductRepository productRepository,
+                           InventoryReservationService inventoryReservationService, EntityManager entityManager,
+                           ApplicationEventPublisher eventPublisher,
+                           PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.orderRepository = orderRepository;
+        this.productRepository = productRepository;
+        this.inventoryReservationService = inventoryReservationService;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.statements = DistributionSummary.builder("checkout.statements")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    public Order placeOrder(User user, UUID cartId, List<CartItem> items) {
+        if (items.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Carrinho vazio");
+        }
+        // Numa requisição o DbRoundTripFilter já está contando; fora dela (testes, jobs) conta aqui.
+        RequestDbStatistics.Counts counts = RequestDbStatistics.current();
+        boolean ownCounts = counts == null;
+        if (ownCounts) {
+            counts = RequestDbStatistics.start();
+        }
+        long before = counts.getStatements();
+        try {
+            // O commit (flush dos inserts) entra na conta.
+            Order order = transaction.execute(status -> placeOrderInTransaction(user, cartId, items));
+            statements.record(counts.getStatements() - before);
+            return order;
+        } finally {
+            if (ownCounts) {
+                RequestDbStatistics.stop();
+            }
+        }
+    }
+
+    private Order placeOrderInTransaction(User user, UUID cartId, List<CartItem> items) {
+        // O carrinho já junta o mesmo produto numa linha; somar aqui garante um UPDATE por produto.
+        SortedMap<UUID, Integer> units = new TreeMap<>();
+        for (CartItem item : items) {
+            units.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+        }
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        // Os holds antes dos produtos: a mesma ordem de travas da reserva e da varredura.
+        Map<UUID, Integer> held = inventoryReservationService.consume(session, cartId, units.keySet());
+        decrementStock(session, units, held);
+        Map<UUID, Product> products = loadProducts(session, units);
+
+        Order order = new Order();
+        order.setUser(user);
+        order.setOrderDate(LocalDateTime.now());
+        order.setOrganization(user.getOrganization());
+
+        List<OrderItem> orderItems = new ArrayList<>();
+        for (Map.Entry<UUID, Integer> line : units.entrySet()) {
+            OrderItem orderItem = new OrderItem();
+            orderItem.setOrder(order);
+            orderItem.setProduct(products.get(line.getKey()));
+            orderItem.setQuantity(line.getValue());
+            orderItems.add(orderItem);
+        }
+        order.setOrderItems(orderItems);
+        Order saved = orderRepository.save(order);
+
+        // O estoque mudou: caches e índices do catálogo são atualizados depois do commit.
+        units.forEach((id, quantity) ->
+                eventPublisher.publishEvent(ProductChangedEvent.ordered(products.get(id), quantity)));
+        return saved;
+    }
+
+    /**
+     * Os UPDATEs condicionais, em ordem de id, num único batch. O que o carrinho segurava
+     * ({@code held}) sai de reserved e volta a contar como disponível para ele.
+     */
+    private void decrementStock(SessionImplementor session, SortedMap<UUID, Integer> units, Map<UUID, Integer> held) {
+        List<Object[]> lines = new ArrayList<>();
+        units.forEach((productId, quantity) -> {
+            int reserved = held.getOrDefault(productId, 0);
+            lines.add(new Object[]{quantity, reserved, productId, reserved, quantity});
+        });
+        int[] updated = SessionSql.batch(session, "UPDATE " + SessionSql.table(session, Product.class) +
+                " SET quantity = quantity - ?, reserved = reserved - ? WHERE id = ? AND quantity - reserved + ? >= ?", lines);
+
+        // Fora do Hibernate, o cache de segundo nível não fica sabendo: tira os produtos agora
+        // e de novo no fim, caso alguém tenha posto o estoque antigo de volta antes do commit.
+        evictProducts(units.keySet());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                evictProducts(units.keySet());
+            }
+        });
+
+        int line = 0;
+        for (UUID productId : units.keySet()) {
+            if (updated[line++] == 0) {
+                throw insufficientStock(productId);
+            }
+        }
+    }
+
+    /**
+     * Os produtos já baixados, numa consulta só. Carga por id, como o findById de antes: o
+     * tenantFilter não tira produtos de outra ONG do carrinho. O estoque ainda não
+     * confirmado não vai para o cache de segundo nível.
+     */
+    private Map<UUID, Product> loadProducts(SessionImplementor session, SortedMap<UUID, Integer> units) {
+        Map<UUID, Product> products = new TreeMap<>();
+        session.byMultipleIds(Product.class)
+                .with(CacheMode.GET)
+                .multiLoad(new ArrayList<>(units.keySet()))
+                .forEach(product -> products.put(product.getId(), product));
+        return products;
+    }
+
+    private void evictProducts(Iterable<UUID> productIds) {
+        productIds.forEach(id -> entityManager.getEntityManagerFactory().getCache().evict(Product.class, id));
+    }
+
+    private ResponseStatusException insufficientStock(UUID productId) {
+        // Só no caminho de falha: distingue o produto apagado do estoque que acabou.
+        return productRepository.findById(productId)
+                .map(product -> new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Estoque insuficiente para " + product.getProductName()))
+                .orElseGet(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Produto não encontrado"));
+    }
+}
@@ -0,0 +1,92 @@
+package com.marketplace.marketplace.service;
+
+import com.marketplace.marketplace.dto.AiSearchResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Decorador de {@link AiSearchService} que junta chamadas simultâneas para a mesma
+ * consulta normalizada (single-flight): a primeira chamada vai ao serviço remoto e
+ * as demais esperam o mesmo resultado. Falhas da chamada remota são repassadas a
+ * todos que esperavam; quem espera além de {@code waitTimeout} recebe TimeoutException.
+ * Métricas: ai.search.coalescing{role=leader|collapsed} e ai.search.coalescing.in_flight.
+ */
+public class CoalescingAiSearchService implements AiSearchService {
+
+    private final AiSearchService delegate;
+    private final AiQueryNormalizer normalizer;
+    private final Duration waitTimeout;
+    private final ConcurrentMap<String, CompletableFuture<AiSearchResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Counter leaders;
+    private final Counter collapsed;
+
+    public CoalescingAiSearchService(AiSearchService delegate, AiQueryNormalizer normalizer,
+                                     Duration waitTimeout, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.normalizer = normalizer;
+        this.waitTimeout = waitTimeout;
+        this.leaders = meterRegistry.counter("ai.search.coalescing", "role", "leader");
+        this.collapsed = meterRegistry.counter("ai.search.coalescing", "role", "collapsed");
+        meterRegistry.gaugeMapSize("ai.search.coalescing.in_flight", Tags.empty(), inFlight);
+    }
+
+    @Override
+    public AiSearchResponse parseSearchQuery(String query) throws Exception {
+        String key = normalizer.normalize(query);
+        if (key.isEmpty()) {
+            return delegate.parseSearchQuery(query);
+        }
+
+        CompletableFuture<AiSearchResponse> call = new CompletableFuture<>();
+        CompletableFuture<AiSearchResponse> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            collapsed.increment();
+            return await(existing);
+        }
+
+        leaders.increment();
+        AiSearchResponse response = null;
+        Throwable failure = null;
+        try {
+            response = delegate.parseSearchQuery(query);
+            return response;
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            // Qualquer saída, inclusive um Error, libera quem espera.
+            inFlight.remove(key, call);
+            if (failure != null) {
+                call.completeExceptionally(failure);
+            } else {
+                call.complete(response);
+            }
+        }
+    }
+
+    private AiSearchResponse await(CompletableFuture<AiSearchResponse> call) throws Exception {
+        try {
+            return call.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        } catch (TimeoutException e) {
+            throw new TimeoutException("Tempo esgotado esperando a busca por IA em andamento");
+        }
+    }
+}
@@ -65,10 +65,14 @@ public class GeminiAiSearchService implements AiSearchService {
     // -----------------------------------------------------------------
     // AQUI ESTÁ A MUDANÇA (O PROMPT MELHORADO)
     // -----------------------------------------------------------------
-    private String buildPrompt(String query) {
-        return "Você é um assistente de busca para um e-commerce de ONGs, simulando um vendedor BEM amigável e caloroso. " +
+    // Montado uma vez; a cada busca só entra a consulta do usuário entre as duas partes.
+    private static final String PROMPT_PREFIX =
+                "Você é um assistente de busca para um e-commerce de ONGs, simulando um vendedor BEM amigável e caloroso. " +
                 "Converta a seguinte consulta de usuário em um JSON de filtros E crie uma 'friendlyMessage' confirmando a busca de forma humana e curta. " +
-                "A consulta é: '" + query + "'.\n\n" +
+                "A consulta é: '";
+
+    private static final String PROMPT_SUFFIX =
+                "'.\n\n" +
                 "REGRAS IMPORTANTES:\n" +
                 "1. A 'friendlyMessage' É OBRIGATÓRIA. Seja criativo!\n" +
                 "2. (SINÔNIMOS) TENTE adivinhar a categoria. 'Ração', 'Feijão', 'Comida' ou 'Alimentação' é 'ALIMENTO'. 'Coleira' ou 'Passeio' é 'ACESSORIO'. 'Remédio' ou 'Medicamento' é 'MEDICAMENTO'. 'Jogos' ou 'Bola' é 'BRINQUEDO'.\n" +
@@ -91,6 +95,11 @@ public class GeminiAiSearchService implements AiSearchService {
                 "Consulta: 'jogos'\n" +
                 "JSON: {\"friendlyMessage\": \"Ok! Vamos ver os brinquedos e jogos!\", \"filters\": {\"name\": \"jogos\", \"category\": \"BRINQUEDO\", \"minPrice\": null, \"maxPrice\": null, \"sort\": null}}\n\n" +
                 "Retorne APENAS o JSON.";
+
+    private String buildPrompt(String query) {
+        return new StringBuilder(PROMPT_PREFIX.length() + query.length() + PROMPT_SUFFIX.length())
+                .append(PROMPT_PREFIX).append(query).append(PROMPT_SUFFIX)
+                .toString();
     }
 
     @Data
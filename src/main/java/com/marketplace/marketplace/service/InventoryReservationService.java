@@ -0,0 +1,242 @@
+package com.marketplace.marketplace.service;
+
+import com.marketplace.marketplace.domain.InventoryHold;
+import com.marketplace.marketplace.domain.Product;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reservas de estoque por carrinho. Adicionar ao carrinho segura as unidades num
+ * {@link InventoryHold} com prazo (renovado a cada adição) e soma em {@code produto.reserved};
+ * o disponível para os outros é {@code quantity - reserved}, lido numa linha só. O checkout
+ * converte os holds do carrinho em baixa ({@link CheckoutService}) e uma thread de fundo
+ * devolve os vencidos em lotes.
+ * <p>
+ * Hold e reserved mudam sempre juntos, na mesma transação, e com as travas na mesma ordem
+ * em todo lugar: primeiro as linhas de inventory_hold, depois as de produto em ordem de id.
+ * A reserva só soma a reserved com um UPDATE condicional ({@code quantity - reserved >= n}),
+ * então reserved nunca passa do estoque por concorrência.
+ */
+@Service
+public class InventoryReservationService {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryReservationService.class);
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transaction;
+    private final Duration holdTtl;
+    private final Duration sweepInterval;
+    private final int sweepBatch;
+    private final Counter expiredHolds;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "inventory-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public InventoryReservationService(EntityManager entityManager, PlatformTransactionManager transactionManager,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${marketplace.inventory.hold-ttl:15m}") Duration holdTtl,
+                                       @Value("${marketplace.inventory.sweep-interval:30s}") Duration sweepInterval,
+                                       @Value("${marketplace.inventory.sweep-batch:500}") int sweepBatch) {
+        this.entityManager = entityManager;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.holdTtl = holdTtl;
+        this.sweepInterval = sweepInterval;
+        this.sweepBatch = sweepBatch;
+        this.expiredHolds = Counter.builder("inventory.holds.expired").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startSweeper() {
+        executor.scheduleWithFixedDelay(this::sweepInBackground,
+                sweepInterval.toMillis(), sweepInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Passa a segurar {@code quantity} unidades do produto para o carrinho (o total dele no
+     * carrinho, não um acréscimo) e renova o prazo. Sem disponível para a diferença, 400 e
+     * nada muda.
+     * <p>
+     * O hold é lido e travado num único INSERT ... ON CONFLICT DO UPDATE na chave
+     * (cart_id, product_id), que devolve a quantidade atual: um SELECT ... FOR UPDATE não
+     * trava uma linha que ainda não existe, e duas adições simultâneas do mesmo produto no
+     * mesmo carrinho inseririam as duas. Com o upsert a segunda espera a primeira e lê o hold
+     * que ela deixou; se a linha em conflito estava com a varredura, que a apaga, o upsert
+     * espera e insere um hold vazio no lugar.
+     */
+    @Transactional
+    public void hold(UUID cartId, UUID productId, int quantity) {
+        SessionImplementor session = session();
+        String holds = SessionSql.table(session, InventoryHold.class);
+        String products = SessionSql.table(session, Product.class);
+
+        LocalDateTime expiresAt = LocalDateTime.now().plus(holdTtl);
+        List<Object[]> current = SessionSql.query(session, "INSERT INTO " + holds +
+                " (id, cart_id, product_id, quantity, expires_at) VALUES (?, ?, ?, 0, ?)" +
+                " ON CONFLICT (cart_id, product_id) DO UPDATE SET expires_at = EXCLUDED.expires_at RETURNING quantity",
+                1, UUID.randomUUID(), cartId, productId, expiresAt);
+        if (current.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Reserva em andamento, tente de novo");
+        }
+        int held = ((Number) current.get(0)[0]).intValue();
+        int delta = quantity - held;
+        if (delta > 0) {
+            int updated = SessionSql.update(session, "UPDATE " + products +
+                    " SET reserved = reserved + ? WHERE id = ? AND quantity - reserved >= ?", delta, productId, delta);
+            if (updated == 0) {
+                // O rollback leva junto o hold vazio criado acima.
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Estoque insuficiente");
+            }
+        } else if (delta < 0) {
+            SessionSql.update(session, "UPDATE " + products + " SET reserved = reserved - ? WHERE id = ?", -delta, productId);
+        }
+
+        SessionSql.update(session, "UPDATE " + holds + " SET quantity = ?, expires_at = ? " +
+                "WHERE cart_id = ? AND product_id = ?", quantity, expiresAt, cartId, productId);
+    }
+
+    /**
+     * Devolve ao estoque o que o carrinho segurava do produto, se ainda segurava.
+     */
+    @Transactional
+    public void release(UUID cartId, UUID productId) {
+        SessionImplementor session = session();
+        String holds = SessionSql.table(session, InventoryHold.class);
+
+        List<Object[]> current = SessionSql.query(session, "SELECT quantity FROM " + holds +
+                " WHERE cart_id = ? AND product_id = ? FOR UPDATE", 1, cartId, productId);
+        if (current.isEmpty()) {
+            return;
+        }
+        SessionSql.update(session, "DELETE FROM " + holds + " WHERE cart_id = ? AND product_id = ?", cartId, productId);
+        SessionSql.update(session, "UPDATE " + SessionSql.table(session, Product.class) +
+                " SET reserved = reserved - ? WHERE id = ?", current.get(0)[0], productId);
+    }
+
+    /**
+     * Unidades disponíveis para novos carrinhos: estoque menos o que está reservado.
+     */
+    @Transactional(readOnly = true)
+    public int available(UUID productId) {
+        SessionImplementor session = session();
+        List<Object[]> rows = SessionSql.query(session, "SELECT coalesce(quantity, 0) - reserved FROM " +
+                SessionSql.table(session, Product.class) + " WHERE id = ?", 1, productId);
+        if (rows.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Produto não encontrado");
+        }
+        // O estoque pode ter sido editado para baixo das reservas já feitas.
+        return Math.max(0, ((Number) rows.get(0)[0]).intValue());
+    }
+
+    /**
+     * Apaga os holds do carrinho para os produtos do pedido e devolve quanto cada um segurava;
+     * tirar isso de reserved fica com o UPDATE de estoque do checkout. Roda na transação do
+     * checkout, antes de ele travar os produtos. Holds vencidos que a varredura já levou não
+     * aparecem: aquele produto disputa o estoque livre.
+     */
+    Map<UUID, Integer> consume(SessionImplementor session, UUID cartId, Set<UUID> productIds) {
+        String holds = SessionSql.table(session, InventoryHold.class);
+        SortedMap<UUID, Integer> held = new TreeMap<>();
+        for (Object[] row : SessionSql.query(session, "SELECT product_id, quantity FROM " + holds +
+                " WHERE cart_id = ? ORDER BY product_id FOR UPDATE", 2, cartId)) {
+            if (productIds.contains((UUID) row[0])) {
+                held.put((UUID) row[0], ((Number) row[1]).intValue());
+            }
+        }
+        if (!held.isEmpty()) {
+            List<Object[]> keys = new ArrayList<>();
+            held.keySet().forEach(productId -> keys.add(new Object[]{cartId, productId}));
+            SessionSql.batch(session, "DELETE FROM " + holds + " WHERE cart_id = ? AND product_id = ?", keys);
+        }
+        return held;
+    }
+
+    /**
+     * Devolve ao estoque os holds vencidos, um lote por transação, até não sobrar lote cheio.
+     * Holds travados por um checkout ou uma reserva em andamento ficam para a próxima passada.
+     */
+    public int sweepExpired() {
+        int total = 0;
+        int swept;
+        do {
+            LocalDateTime now = LocalDateTime.now();
+            swept = transaction.execute(status -> sweepBatch(now));
+            total += swept;
+        } while (swept == sweepBatch);
+        if (total > 0) {
+            expiredHolds.increment(total);
+            log.debug("{} reservas vencidas devolvidas ao estoque", total);
+        }
+        return total;
+    }
+
+    private int sweepBatch(LocalDateTime now) {
+        SessionImplementor session = session();
+        String holds = SessionSql.table(session, InventoryHold.class);
+        List<Object[]> expired = SessionSql.query(session, "SELECT cart_id, product_id, quantity FROM " + holds +
+                " WHERE expires_at < ? ORDER BY product_id LIMIT ? FOR UPDATE SKIP LOCKED", 3, now, sweepBatch);
+        if (expired.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> keys = new ArrayList<>();
+        SortedMap<UUID, Integer> released = new TreeMap<>();
+        for (Object[] row : expired) {
+            keys.add(new Object[]{row[0], row[1]});
+            released.merge((UUID) row[1], ((Number) row[2]).intValue(), Integer::sum);
+        }
+        SessionSql.batch(session, "DELETE FROM " + holds + " WHERE cart_id = ? AND product_id = ?", keys);
+
+        List<Object[]> decrements = new ArrayList<>();
+        released.forEach((productId, units) -> decrements.add(new Object[]{units, productId}));
+        SessionSql.batch(session, "UPDATE " + SessionSql.table(session, Product.class) +
+                " SET reserved = reserved - ? WHERE id = ?", decrements);
+        return expired.size();
+    }
+
+    private void sweepInBackground() {
+        // Uma exceção aqui cancelaria as próximas execuções do agendamento.
+        try {
+            sweepExpired();
+        } catch (RuntimeException e) {
+            log.warn("Falha ao devolver reservas vencidas: {}", e.getMessage());
+        }
+    }
+
+    private SessionImplementor session() {
+        return entityManager.unwrap(SessionImplementor.class);
+    }
+}
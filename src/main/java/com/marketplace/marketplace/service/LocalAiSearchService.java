@@ -0,0 +1,186 @@
+package com.marketplace.marketplace.service;
+
+import com.marketplace.marketplace.domain.ProductCategory;
+import com.marketplace.marketplace.dto.AiSearchResponse;
+import com.marketplace.marketplace.dto.SearchFilters;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Aplica localmente as regras determinísticas do prompt do Gemini: sinônimos de
+ * categoria, "barato"/"caro" como faixa de preço e "mais barato"/"mais caro" como
+ * ordenação. Junto com a resposta devolve uma confiança entre 0 e 1: a fração das
+ * palavras da consulta que alguma regra reconheceu. Palavras desconhecidas (erros de
+ * ortografia, produtos fora do dicionário) derrubam a confiança e a consulta fica
+ * para a IA.
+ */
+public class LocalAiSearchService implements AiSearchService {
+
+    private static final Set<String> CHEAP_WORDS = Set.of(
+            "barato", "barata", "baratos", "baratas", "baratinho", "baratinha", "economico", "economica");
+    private static final Set<String> EXPENSIVE_WORDS = Set.of("caro", "cara", "caros", "caras");
+    private static final Set<String> PRICE_WORDS = Set.of("preco", "valor");
+
+    /** Teto da confiança quando a consulta é ambígua (várias palavras de nome, categorias em conflito). */
+    private static final double AMBIGUOUS_CONFIDENCE = 0.5;
+
+    private final AiQueryNormalizer normalizer;
+    private final BigDecimal cheapMaxPrice;
+    private final BigDecimal expensiveMinPrice;
+    private final Map<String, ProductCategory> synonyms = new HashMap<>();
+    private final Map<String, ProductCategory> genericTerms = new HashMap<>();
+
+    public LocalAiSearchService(AiQueryNormalizer normalizer,
+                                Map<ProductCategory, List<String>> synonyms,
+                                Map<ProductCategory, List<String>> genericTerms,
+                                BigDecimal cheapMaxPrice, BigDecimal expensiveMinPrice) {
+        this.normalizer = normalizer;
+        this.cheapMaxPrice = cheapMaxPrice;
+        this.expensiveMinPrice = expensiveMinPrice;
+        synonyms.forEach((category, terms) -> terms.forEach(term -> this.synonyms.put(normalizer.fold(term), category)));
+        genericTerms.forEach((category, terms) -> terms.forEach(term -> this.genericTerms.put(normalizer.fold(term), category)));
+    }
+
+    public static class LocalParse {
+        private final AiSearchResponse response;
+        private final double confidence;
+
+        public LocalParse(AiSearchResponse response, double confidence) {
+            this.response = response;
+            this.confidence = confidence;
+        }
+
+        public AiSearchResponse getResponse() { return response; }
+        public double getConfidence() { return confidence; }
+    }
+
+    @Override
+    public AiSearchResponse parseSearchQuery(String query) {
+        return parse(query).getResponse();
+    }
+
+    public LocalParse parse(String query) {
+        List<String> originals = new ArrayList<>();
+        List<String> folded = new ArrayList<>();
+        if (query != null) {
+            for (String word : query.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+                String f = word.isEmpty() ? word : normalizer.fold(word);
+                if (!f.isEmpty() && !normalizer.isStopword(f)) {
+                    originals.add(word);
+                    folded.add(f);
+                }
+            }
+        }
+
+        SearchFilters filters = new SearchFilters();
+        List<String> nameWords = new ArrayList<>();
+        int recognized = 0;
+        boolean ambiguous = false;
+
+        for (int i = 0; i < folded.size(); i++) {
+            String word = folded.get(i);
+            String next = i + 1 < folded.size() ? folded.get(i + 1) : null;
+
+            // "mais barato", "menor preço" -> ordenação; consome as duas palavras
+            String sort = comparativeSort(word, next);
+            if (sort != null) {
+                filters.setSort(sort);
+                recognized += 2;
+                i++;
+                continue;
+            }
+            if (CHEAP_WORDS.contains(word)) {
+                filters.setMaxPrice(cheapMaxPrice);
+                recognized++;
+                continue;
+            }
+            if (EXPENSIVE_WORDS.contains(word)) {
+                filters.setMinPrice(expensiveMinPrice);
+                recognized++;
+                continue;
+            }
+
+            ProductCategory generic = lookup(genericTerms, word);
+            ProductCategory synonym = generic == null ? lookup(synonyms, word) : null;
+            ProductCategory category = generic != null ? generic : synonym;
+            if (category != null) {
+                if (filters.getCategory() != null && !filters.getCategory().equals(category.name())) {
+                    ambiguous = true;
+                } else {
+                    filters.setCategory(category.name());
+                }
+                recognized++;
+            }
+            if (generic == null) {
+                // Produto do dicionário ou palavra desconhecida: vai para o nome, como na regra 3 do prompt.
+                nameWords.add(originals.get(i));
+            }
+        }
+
+        if (!nameWords.isEmpty()) {
+            filters.setName(String.join(" ", nameWords));
+        }
+
+        double confidence = folded.isEmpty() ? 0.0 : (double) recognized / folded.size();
+        if (ambiguous || nameWords.size() > 1) {
+            confidence = Math.min(confidence, AMBIGUOUS_CONFIDENCE);
+        }
+        return new LocalParse(new AiSearchResponse(friendlyMessage(filters), filters), confidence);
+    }
+
+    private String comparativeSort(String word, String next) {
+        if (next == null) {
+            return null;
+        }
+        if ("mais".equals(word) && CHEAP_WORDS.contains(next)) return "price_asc";
+        if ("mais".equals(word) && EXPENSIVE_WORDS.contains(next)) return "price_desc";
+        if ("menor".equals(word) && PRICE_WORDS.contains(next)) return "price_asc";
+        if ("maior".equals(word) && PRICE_WORDS.contains(next)) return "price_desc";
+        return null;
+    }
+
+    /**
+     * Aceita o plural simples que não estiver no dicionário: "bolas" -> "bola", "racoes" -> "racao".
+     */
+    private ProductCategory lookup(Map<String, ProductCategory> dictionary, String word) {
+        ProductCategory category = dictionary.get(word);
+        if (category == null && word.endsWith("oes")) {
+            category = dictionary.get(word.substring(0, word.length() - 3) + "ao");
+        }
+        if (category == null && word.endsWith("s")) {
+            category = dictionary.get(word.substring(0, word.length() - 1));
+        }
+        return category;
+    }
+
+    private String friendlyMessage(SearchFilters filters) {
+        String subject;
+        if (filters.getName() != null) {
+            subject = filters.getName();
+        } else if (filters.getCategory() != null) {
+            subject = "itens de " + ProductCategory.valueOf(filters.getCategory()).getDisplayName().toLowerCase(Locale.ROOT);
+        } else {
+            subject = "produtos";
+        }
+
+        if ("price_asc".equals(filters.getSort())) {
+            return "Opa! Buscando " + subject + " pelo menor preço!";
+        }
+        if ("price_desc".equals(filters.getSort())) {
+            return "Certo! Buscando " + subject + " do maior para o menor preço!";
+        }
+        if (filters.getMaxPrice() != null) {
+            return "Claro! Buscando " + subject + " baratinhos, até R$ " + filters.getMaxPrice().toPlainString() + "!";
+        }
+        if (filters.getMinPrice() != null) {
+            return "Claro! Buscando " + subject + " a partir de R$ " + filters.getMinPrice().toPlainString() + "!";
+        }
+        return "Claro! Buscando " + subject + " para você!";
+    }
+}
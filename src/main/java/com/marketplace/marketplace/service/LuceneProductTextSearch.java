@@ -0,0 +1,378 @@
+package com.marketplace.marketplace.service;
+
+import com.marketplace.marketplace.config.TenantContext;
+import com.marketplace.marketplace.domain.Product;
+import com.marketplace.marketplace.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.br.BrazilianAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.CollectorManager;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.SimpleCollector;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Busca textual num índice Lucene em memória, com ranking BM25.
+ * O índice é reconstruído na subida e atualizado a cada produto salvo ou apagado
+ * (depois do commit). Os documentos só guardam o id; as entidades são carregadas
+ * do banco por quem chama.
+ * <p>
+ * A reconstrução escreve num índice novo enquanto o atual continua atendendo. Os eventos
+ * que chegam no meio dela vão para o índice atual e ficam guardados; no fim são
+ * reaplicados no novo, que então toma o lugar do atual. Até a primeira reconstrução
+ * terminar o motor não está pronto, e a listagem usa o LIKE.
+ */
+@Service
+@ConditionalOnProperty(name = "marketplace.search.engine", havingValue = "lucene")
+public class LuceneProductTextSearch implements ProductTextSearch {
+
+    private static final Logger log = LoggerFactory.getLogger(LuceneProductTextSearch.class);
+
+    private static final int REBUILD_BATCH_SIZE = 500;
+    private static final int MIN_PREFIX_LENGTH = 3;
+
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_ORGANIZATION_ID = "organization_id";
+    private static final Map<String, Float> FIELD_BOOSTS = Map.of(
+            "name", 3.0f,
+            "category", 2.0f,
+            "organization", 1.0f,
+            "description", 1.0f);
+
+    private final ProductRepository productRepository;
+    private final Analyzer analyzer = new BrazilianAnalyzer();
+
+    /** Escritas: o índice atual e os eventos guardados mudam sob o monitor deste objeto. */
+    private Index index;
+    /** Eventos recebidos durante a reconstrução; null fora dela. */
+    private List<ProductChangedEvent> pending;
+    /** Leitura para pegar um searcher, escrita para trocar e fechar o índice. */
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+
+    private volatile boolean ready;
+
+    public LuceneProductTextSearch(ProductRepository productRepository) throws IOException {
+        this.productRepository = productRepository;
+        this.index = new Index(analyzer);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIndex() throws IOException {
+        long start = System.currentTimeMillis();
+        synchronized (this) {
+            pending = new ArrayList<>();
+        }
+
+        Index rebuilt = new Index(analyzer);
+        int indexed = 0;
+        try {
+            Page<Product> page;
+            PageRequest request = PageRequest.of(0, REBUILD_BATCH_SIZE, Sort.by("id"));
+            do {
+                page = productRepository.findAll(request);
+                for (Product product : page) {
+                    rebuilt.writer.addDocument(toDocument(product));
+                }
+                indexed += page.getNumberOfElements();
+                request = request.next();
+            } while (page.hasNext());
+        } catch (IOException | RuntimeException e) {
+            synchronized (this) {
+                pending = null;
+            }
+            rebuilt.close();
+            throw e;
+        }
+
+        int replayed;
+        synchronized (this) {
+            for (ProductChangedEvent event : pending) {
+                rebuilt.apply(event, toDocument(event));
+            }
+            replayed = pending.size();
+            pending = null;
+            rebuilt.writer.commit();
+            rebuilt.searchers.maybeRefresh();
+
+            swapLock.writeLock().lock();
+            try {
+                // Searchers já pegos do índice antigo continuam valendo até o release.
+                index.close();
+                index = rebuilt;
+                ready = true;
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+        }
+        log.info("Índice Lucene de produtos reconstruído: {} produtos em {} ms ({} eventos reaplicados)",
+                indexed, System.currentTimeMillis() - start, replayed);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        if (pending != null) {
+            pending.add(event);
+        }
+        try {
+            index.apply(event, toDocument(event));
+        } catch (IOException e) {
+            log.error("Falha ao atualizar o índice Lucene para o produto {}", event.getProductId(), e);
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public List<UUID> search(String text, boolean matchAll, int limit) {
+        Query query = buildQuery(text, matchAll, TenantContext.currentOrganizationId());
+        if (query == null) {
+            return Collections.emptyList();
+        }
+        return withSearcher(searcher -> {
+            ScoreDoc[] hits = searcher.search(query, limit).scoreDocs;
+            List<Integer> docs = new ArrayList<>(hits.length);
+            for (ScoreDoc hit : hits) {
+                docs.add(hit.doc);
+            }
+            return loadIds(searcher, docs);
+        });
+    }
+
+    /**
+     * Todos os documentos que casam, sem score nem top-N: como filtro, o ranking não importa
+     * e nenhum acerto pode ficar de fora.
+     */
+    @Override
+    public Filter filter(String text) {
+        Query query = buildQuery(text, true, TenantContext.currentOrganizationId());
+        if (query == null) {
+            return null;
+        }
+        return Filter.anyOf(withSearcher(searcher -> loadIds(searcher, searcher.search(query, ALL_DOCS))));
+    }
+
+    /** Todos os documentos que casam, em ordem de documento; um coletor por fatia do índice. */
+    private static final CollectorManager<AllDocsCollector, List<Integer>> ALL_DOCS = new CollectorManager<>() {
+        @Override
+        public AllDocsCollector newCollector() {
+            return new AllDocsCollector();
+        }
+
+        @Override
+        public List<Integer> reduce(Collection<AllDocsCollector> collectors) {
+            List<Integer> docs = new ArrayList<>();
+            for (AllDocsCollector collector : collectors) {
+                docs.addAll(collector.docs);
+            }
+            return docs;
+        }
+    };
+
+    private static final class AllDocsCollector extends SimpleCollector {
+        final List<Integer> docs = new ArrayList<>();
+        private int docBase;
+
+        @Override
+        protected void doSetNextReader(LeafReaderContext context) {
+            docBase = context.docBase;
+        }
+
+        @Override
+        public void collect(int doc) {
+            docs.add(docBase + doc);
+        }
+
+        @Override
+        public ScoreMode scoreMode() {
+            return ScoreMode.COMPLETE_NO_SCORES;
+        }
+    }
+
+    private List<UUID> loadIds(IndexSearcher searcher, List<Integer> docs) throws IOException {
+        StoredFields storedFields = searcher.storedFields();
+        List<UUID> ids = new ArrayList<>(docs.size());
+        for (int doc : docs) {
+            ids.add(UUID.fromString(storedFields.document(doc).get(FIELD_ID)));
+        }
+        return ids;
+    }
+
+    private interface SearcherCall<T> {
+        T apply(IndexSearcher searcher) throws IOException;
+    }
+
+    private <T> T withSearcher(SearcherCall<T> call) {
+        SearcherManager searchers = null;
+        IndexSearcher searcher = null;
+        try {
+            swapLock.readLock().lock();
+            try {
+                searchers = index.searchers;
+                searcher = searchers.acquire();
+            } finally {
+                swapLock.readLock().unlock();
+            }
+            return call.apply(searcher);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (searcher != null) {
+                try {
+                    searchers.release(searcher);
+                } catch (IOException e) {
+                    log.warn("Falha ao liberar o searcher do Lucene", e);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        index.close();
+    }
+
+    /**
+     * Um índice em memória com o writer e os searchers dele.
+     */
+    private static final class Index {
+        final IndexWriter writer;
+        final SearcherManager searchers;
+
+        Index(Analyzer analyzer) throws IOException {
+            this.writer = new IndexWriter(new ByteBuffersDirectory(), new IndexWriterConfig(analyzer));
+            this.searchers = new SearcherManager(writer, new SearcherFactory());
+        }
+
+        /**
+         * @param document o documento do produto salvo, ou null quando ele foi apagado
+         */
+        void apply(ProductChangedEvent event, Document document) throws IOException {
+            Term idTerm = new Term(FIELD_ID, event.getProductId().toString());
+            if (document == null) {
+                writer.deleteDocuments(idTerm);
+            } else {
+                writer.updateDocument(idTerm, document);
+            }
+            searchers.maybeRefresh();
+        }
+
+        void close() throws IOException {
+            searchers.close();
+            writer.close();
+        }
+    }
+
+    private Document toDocument(ProductChangedEvent event) {
+        return event.isDeleted() ? null : toDocument(event.getProduct());
+    }
+
+    private Document toDocument(Product product) {
+        Document doc = new Document();
+        doc.add(new StringField(FIELD_ID, product.getId().toString(), Field.Store.YES));
+        if (product.getOrganization() != null) {
+            doc.add(new StringField(FIELD_ORGANIZATION_ID, product.getOrganization().getId().toString(), Field.Store.NO));
+            addText(doc, "organization", product.getOrganization().getName());
+        }
+        addText(doc, "name", product.getProductName());
+        addText(doc, "description", product.getDescription());
+        if (product.getCategory() != null) {
+            addText(doc, "category", product.getCategory().getDisplayName());
+        }
+        return doc;
+    }
+
+    private void addText(Document doc, String field, String value) {
+        if (value != null && !value.isEmpty()) {
+            doc.add(new TextField(field, value, Field.Store.NO));
+        }
+    }
+
+    /**
+     * Cada termo analisado vira uma disjunção entre os campos (com pesos) mais um
+     * prefixo no nome, para que "rac" encontre "ração". Com matchAll todos os termos
+     * são obrigatórios; o tenant entra como filtro, sem afetar o score.
+     */
+    private Query buildQuery(String text, boolean matchAll, UUID organizationId) {
+        List<String> terms = analyze(text);
+        if (terms.isEmpty()) {
+            return null;
+        }
+
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        for (String term : terms) {
+            BooleanQuery.Builder perTerm = new BooleanQuery.Builder();
+            FIELD_BOOSTS.forEach((field, boost) ->
+                    perTerm.add(new BoostQuery(new TermQuery(new Term(field, term)), boost), BooleanClause.Occur.SHOULD));
+            if (term.length() >= MIN_PREFIX_LENGTH) {
+                perTerm.add(new BoostQuery(new PrefixQuery(new Term("name", term)), 0.5f), BooleanClause.Occur.SHOULD);
+            }
+            query.add(perTerm.build(), matchAll ? BooleanClause.Occur.MUST : BooleanClause.Occur.SHOULD);
+        }
+        if (organizationId != null) {
+            query.add(new TermQuery(new Term(FIELD_ORGANIZATION_ID, organizationId.toString())), BooleanClause.Occur.FILTER);
+        }
+        return query.build();
+    }
+
+    private List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return terms;
+        }
+        try (TokenStream stream = analyzer.tokenStream("name", text)) {
+            CharTermAttribute attr = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                terms.add(attr.toString());
+            }
+            stream.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return terms;
+    }
+}
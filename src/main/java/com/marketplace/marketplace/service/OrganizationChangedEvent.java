@@ -0,0 +1,37 @@
+package com.marketplace.marketplace.service;
+
+import com.marketplace.marketplace.domain.Organization;
+
+import java.util.UUID;
+
+/**
+ * Publicado quando uma organização é criada, alterada ou apagada. Como em
+ * {@link ProductChangedEvent}, os ouvintes só reagem depois do commit.
+ */
+public class OrganizationChangedEvent {
+
+    private final UUID organizationId;
+    private final Organization organization;
+
+    private OrganizationChangedEvent(UUID organizationId, Organization organization) {
+        this.organizationId = organizationId;
+        this.organization = organization;
+    }
+
+    public static OrganizationChangedEvent saved(Organization organization) {
+        return new OrganizationChangedEvent(organization.getId(), organization);
+    }
+
+    public static OrganizationChangedEvent deleted(UUID organizationId) {
+        return new OrganizationChangedEvent(organizationId, null);
+    }
+
+    public UUID getOrganizationId() { return organizationId; }
+
+    /**
+     * Estado salvo da organização, ou null quando ela foi apagada.
+     */
+    public Organization getOrganization() { return organization; }
+
+    public boolean isDeleted() { return organization == null; }
+}
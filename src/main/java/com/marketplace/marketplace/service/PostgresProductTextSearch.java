@@ -0,0 +1,87 @@
+package com.marketplace.marketplace.service;
+
+import com.marketplace.marketplace.config.TenantContext;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Busca textual pelo full-text search do Postgres.
+ * Consulta a coluna tsvector gerada {@code produto.search_vector} (nome, categoria e
+ * descrição, com stemming em português; criada pela V5, com o índice GIN) e ordena os
+ * resultados por ts_rank.
+ */
+@Service
+@ConditionalOnProperty(name = "marketplace.search.engine", havingValue = "postgres")
+public class PostgresProductTextSearch implements ProductTextSearch {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PostgresProductTextSearch(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<UUID> search(String text, boolean matchAll, int limit) {
+        String tsQuery = toTsQuery(text, matchAll);
+        if (tsQuery == null) {
+            return Collections.emptyList();
+        }
+
+        StringBuilder sql = new StringBuilder(
+                "SELECT p.id FROM produto p, to_tsquery('portuguese', ?) q WHERE p.search_vector @@ q");
+        List<Object> params = new ArrayList<>();
+        params.add(tsQuery);
+
+        // Consulta nativa: o tenantFilter do Hibernate não se aplica aqui.
+        UUID organizationId = TenantContext.currentOrganizationId();
+        if (organizationId != null) {
+            sql.append(" AND p.organization_id = ?");
+            params.add(organizationId);
+        }
+        sql.append(" ORDER BY ts_rank(p.search_vector, q) DESC, p.id LIMIT ?");
+        params.add(limit);
+
+        return jdbcTemplate.queryForList(sql.toString(), UUID.class, params.toArray());
+    }
+
+    /**
+     * O tsquery direto na consulta, num semi-join com o índice GIN: sem lista de ids e sem
+     * ts_rank. O tenant fica com a consulta de fora.
+     */
+    @Override
+    public Filter filter(String text) {
+        String tsQuery = toTsQuery(text, true);
+        if (tsQuery == null) {
+            return null;
+        }
+        return new Filter("? IN (SELECT s.id FROM produto s " +
+                "WHERE s.search_vector @@ to_tsquery('portuguese', ?))", tsQuery);
+    }
+
+    /**
+     * Converte o texto livre em tsquery com prefixo (":*") em cada termo, para que
+     * "rac" encontre "ração" como o LIKE fazia. Só letras e dígitos passam, então o
+     * texto do usuário nunca vira operador de tsquery.
+     */
+    static String toTsQuery(String text, boolean matchAll) {
+        if (text == null) {
+            return null;
+        }
+        List<String> terms = new ArrayList<>();
+        for (String token : text.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                terms.add(token + ":*");
+            }
+        }
+        if (terms.isEmpty()) {
+            return null;
+        }
+        return String.join(matchAll ? " & " : " | ", terms);
+    }
+}
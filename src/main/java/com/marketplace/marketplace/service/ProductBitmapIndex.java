@@ -0,0 +1,493 @@
+package com.marketplace.marketplace.service;
+
+import com.marketplace.marketplace.config.TenantContext;
+import com.marketplace.marketplace.domain.Product;
+import com.marketplace.marketplace.domain.ProductCategory;
+import com.marketplace.marketplace.repository.ProductFacetQuery;
+import com.marketplace.marketplace.repository.ProductRepository;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice em memória dos filtros de baixa cardinalidade do catálogo: cada produto
+ * ganha um ordinal e há um Roaring bitmap por categoria, por organização e por faixa
+ * de preço. Um filtro vira uma interseção de bitmaps (as faixas de preço das pontas
+ * são conferidas produto a produto) e a página é escolhida em memória, então o banco
+ * só recebe os ids da página final.
+ * <p>
+ * Reconstruído na subida e atualizado a cada produto salvo ou apagado (depois do
+ * commit). Ordinais de produtos apagados não são reaproveitados até a próxima subida.
+ * A reconstrução monta um conteúdo novo ao lado, sem mexer no que está em uso, guarda os
+ * eventos que chegam enquanto isso e os reaplica antes da troca. Os bitmaps devolvidos
+ * por {@link #match} valem para o conteúdo da vez; como a troca só acontece na subida,
+ * antes do índice ficar pronto, nenhum deles atravessa uma troca.
+ */
+@Service
+@ConditionalOnProperty(name = "marketplace.search.bitmap-index.enabled", havingValue = "true")
+public class ProductBitmapIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductBitmapIndex.class);
+
+    private static final int REBUILD_BATCH_SIZE = 500;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ProductRepository productRepository;
+    /** Limites das faixas de preço em centavos; a faixa i vai de bounds[i-1] (inclusive) a bounds[i]. */
+    private final long[] bucketBounds;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Contents contents;
+    /** Eventos recebidos durante a reconstrução; null fora dela. */
+    private List<ProductChangedEvent> pending;
+
+    private volatile boolean ready;
+
+    public ProductBitmapIndex(ProductRepository productRepository,
+                              @Value("${marketplace.search.bitmap-index.price-buckets:10,25,50,100,200,500}") List<BigDecimal> priceBuckets) {
+        this.productRepository = productRepository;
+        this.bucketBounds = priceBuckets.stream().sorted().mapToLong(ProductBitmapIndex::toCents).distinct().toArray();
+        this.contents = new Contents();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIndex() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Contents rebuilt = new Contents();
+        try {
+            Page<Product> page;
+            PageRequest request = PageRequest.of(0, REBUILD_BATCH_SIZE, Sort.by("id"));
+            do {
+                page = productRepository.findAll(request);
+                for (Product product : page) {
+                    rebuilt.index(product);
+                }
+                request = request.next();
+            } while (page.hasNext());
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        int replayed;
+        lock.writeLock().lock();
+        try {
+            for (ProductChangedEvent event : pending) {
+                rebuilt.apply(event);
+            }
+            replayed = pending.size();
+            pending = null;
+            contents = rebuilt;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Índice de bitmaps do catálogo reconstruído: {} produtos em {} ms ({} eventos reaplicados)",
+                rebuilt.live.getCardinality(), System.currentTimeMillis() - start, replayed);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (pending != null) {
+                pending.add(event);
+            }
+            contents.apply(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Ordinais dos produtos que passam pelos filtros e pelo tenant do usuário atual,
+     * ou null enquanto o índice não está pronto.
+     */
+    public RoaringBitmap match(String category, BigDecimal minPrice, BigDecimal maxPrice) {
+        if (!ready) {
+            return null;
+        }
+        return match(category, minPrice, maxPrice, TenantContext.currentOrganizationId());
+    }
+
+    /**
+     * Mesma semântica do buildFilterSpec do ProductService: categoria inválida é ignorada
+     * e produtos sem preço não entram em filtros de preço.
+     */
+    RoaringBitmap match(String category, BigDecimal minPrice, BigDecimal maxPrice, UUID organizationId) {
+        lock.readLock().lock();
+        try {
+            Contents current = contents;
+            RoaringBitmap result = current.live.clone();
+            ProductCategory categoryEnum = parseCategory(category);
+            if (categoryEnum != null) {
+                result.and(current.byCategory.getOrDefault(categoryEnum, new RoaringBitmap()));
+            }
+            if (organizationId != null) {
+                result.and(current.byOrganization.getOrDefault(organizationId, new RoaringBitmap()));
+            }
+            if (minPrice != null || maxPrice != null) {
+                long low = minPrice != null ? minPrice.movePointRight(2).setScale(0, RoundingMode.CEILING).longValueExact() : Long.MIN_VALUE;
+                long high = maxPrice != null ? maxPrice.movePointRight(2).setScale(0, RoundingMode.FLOOR).longValueExact() : Long.MAX_VALUE;
+                result = current.filterByPrice(result, low, high);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Facetas com a mesma semântica do {@link ProductFacetQuery} (cada faceta ignora o
+     * próprio filtro), contadas por interseção de bitmaps; null enquanto o índice não
+     * está pronto.
+     */
+    public ProductFacetQuery.Counts facets(String category, BigDecimal minPrice, BigDecimal maxPrice) {
+        if (!ready) {
+            return null;
+        }
+        return facets(category, minPrice, maxPrice, TenantContext.currentOrganizationId());
+    }
+
+    ProductFacetQuery.Counts facets(String category, BigDecimal minPrice, BigDecimal maxPrice, UUID organizationId) {
+        RoaringBitmap forCategories = match(null, minPrice, maxPrice, organizationId);
+        RoaringBitmap forOrganizations = match(category, minPrice, maxPrice, organizationId);
+        RoaringBitmap forPrices = match(category, null, null, organizationId);
+
+        lock.readLock().lock();
+        try {
+            Contents current = contents;
+            Map<ProductCategory, Long> categoryCounts = new EnumMap<>(ProductCategory.class);
+            current.byCategory.forEach((value, bitmap) -> {
+                long count = RoaringBitmap.andCardinality(forCategories, bitmap);
+                if (count > 0) {
+                    categoryCounts.put(value, count);
+                }
+            });
+
+            Map<UUID, Long> organizationCounts = new HashMap<>();
+            long withOrganization = 0;
+            for (Map.Entry<UUID, RoaringBitmap> entry : current.byOrganization.entrySet()) {
+                long count = RoaringBitmap.andCardinality(forOrganizations, entry.getValue());
+                if (count > 0) {
+                    organizationCounts.put(entry.getKey(), count);
+                    withOrganization += count;
+                }
+            }
+
+            long[] priceCounts = new long[current.byPriceBucket.length];
+            for (int bucket = 0; bucket < current.byPriceBucket.length; bucket++) {
+                priceCounts[bucket] = RoaringBitmap.andCardinality(forPrices, current.byPriceBucket[bucket]);
+            }
+            return new ProductFacetQuery.Counts(categoryCounts, organizationCounts,
+                    forOrganizations.getLongCardinality() - withOrganization, priceCounts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids de uma página por keyset, na mesma ordem que o Postgres daria (price com
+     * NULLs por último em ASC e primeiro em DESC, desempate por id). Aceita as
+     * ordenações id, price_asc e price_desc.
+     */
+    public List<UUID> findPage(RoaringBitmap matches, String sortKey, ProductCursor after, int limit) {
+        lock.readLock().lock();
+        try {
+            Contents current = contents;
+            Comparator<Integer> order = current.ordinalOrder(sortKey);
+            PriorityQueue<Integer> worstFirst = new PriorityQueue<>(limit + 1, order.reversed());
+            matches.forEach((int ordinal) -> {
+                if (after != null && current.compareToCursor(ordinal, sortKey, after) <= 0) {
+                    return;
+                }
+                worstFirst.add(ordinal);
+                if (worstFirst.size() > limit) {
+                    worstFirst.poll();
+                }
+            });
+
+            List<UUID> page = new ArrayList<>(worstFirst.size());
+            while (!worstFirst.isEmpty()) {
+                page.add(current.ids[worstFirst.poll()]);
+            }
+            Collections.reverse(page);
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<UUID> findAll(RoaringBitmap matches, String sortKey) {
+        lock.readLock().lock();
+        try {
+            Contents current = contents;
+            Integer[] sorted = new Integer[matches.getCardinality()];
+            int i = 0;
+            for (int ordinal : matches) {
+                sorted[i++] = ordinal;
+            }
+            Arrays.sort(sorted, current.ordinalOrder(sortKey));
+
+            List<UUID> result = new ArrayList<>(sorted.length);
+            for (Integer ordinal : sorted) {
+                result.add(current.ids[ordinal]);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void index(UUID id, ProductCategory category, UUID organizationId, BigDecimal price) {
+        lock.writeLock().lock();
+        try {
+            contents.index(id, category, organizationId, price);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(UUID id) {
+        lock.writeLock().lock();
+        try {
+            contents.remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void markReady() {
+        ready = true;
+    }
+
+    /**
+     * Ordinais, atributos e bitmaps de uma geração do índice. Lido sob a trava de leitura
+     * e alterado sob a de escrita, exceto durante a reconstrução, quando só a thread que
+     * reconstrói o enxerga.
+     */
+    private final class Contents {
+        private final Map<UUID, Integer> ordinals = new HashMap<>();
+        private int nextOrdinal;
+        private UUID[] ids = new UUID[INITIAL_CAPACITY];
+        private long[] prices = new long[INITIAL_CAPACITY];
+        private ProductCategory[] categories = new ProductCategory[INITIAL_CAPACITY];
+        private UUID[] organizations = new UUID[INITIAL_CAPACITY];
+
+        private final RoaringBitmap live = new RoaringBitmap();
+        private final RoaringBitmap priced = new RoaringBitmap();
+        private final Map<ProductCategory, RoaringBitmap> byCategory = new EnumMap<>(ProductCategory.class);
+        private final Map<UUID, RoaringBitmap> byOrganization = new HashMap<>();
+        private final RoaringBitmap[] byPriceBucket = new RoaringBitmap[bucketBounds.length + 1];
+
+        Contents() {
+            for (int i = 0; i < byPriceBucket.length; i++) {
+                byPriceBucket[i] = new RoaringBitmap();
+            }
+        }
+
+        void apply(ProductChangedEvent event) {
+            if (event.isDeleted()) {
+                remove(event.getProductId());
+            } else {
+                index(event.getProduct());
+            }
+        }
+
+        void index(Product product) {
+            UUID organizationId = product.getOrganization() != null ? product.getOrganization().getId() : null;
+            index(product.getId(), product.getCategory(), organizationId, product.getPrice());
+        }
+
+        void index(UUID id, ProductCategory category, UUID organizationId, BigDecimal price) {
+            Integer ordinal = ordinals.get(id);
+            if (ordinal != null) {
+                unindex(ordinal);
+            } else {
+                ordinal = nextOrdinal++;
+                ordinals.put(id, ordinal);
+                ensureCapacity(ordinal + 1);
+            }
+
+            ids[ordinal] = id;
+            categories[ordinal] = category;
+            organizations[ordinal] = organizationId;
+            live.add(ordinal);
+            if (category != null) {
+                byCategory.computeIfAbsent(category, c -> new RoaringBitmap()).add(ordinal);
+            }
+            if (organizationId != null) {
+                byOrganization.computeIfAbsent(organizationId, o -> new RoaringBitmap()).add(ordinal);
+            }
+            if (price != null) {
+                prices[ordinal] = toCents(price);
+                priced.add(ordinal);
+                byPriceBucket[bucketOf(prices[ordinal])].add(ordinal);
+            }
+        }
+
+        void remove(UUID id) {
+            Integer ordinal = ordinals.remove(id);
+            if (ordinal != null) {
+                unindex(ordinal);
+                ids[ordinal] = null;
+            }
+        }
+
+        private void unindex(int ordinal) {
+            live.remove(ordinal);
+            if (categories[ordinal] != null) {
+                byCategory.get(categories[ordinal]).remove(ordinal);
+            }
+            if (organizations[ordinal] != null) {
+                RoaringBitmap organization = byOrganization.get(organizations[ordinal]);
+                organization.remove(ordinal);
+                if (organization.isEmpty()) {
+                    byOrganization.remove(organizations[ordinal]);
+                }
+            }
+            if (priced.contains(ordinal)) {
+                priced.remove(ordinal);
+                byPriceBucket[bucketOf(prices[ordinal])].remove(ordinal);
+            }
+            categories[ordinal] = null;
+            organizations[ordinal] = null;
+        }
+
+        private void ensureCapacity(int size) {
+            if (size <= ids.length) {
+                return;
+            }
+            int capacity = Math.max(size, ids.length * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            categories = Arrays.copyOf(categories, capacity);
+            organizations = Arrays.copyOf(organizations, capacity);
+        }
+
+        /**
+         * Faixas inteiramente dentro de [low, high] entram com um OR; nas faixas das pontas
+         * o preço de cada produto é conferido.
+         */
+        private RoaringBitmap filterByPrice(RoaringBitmap candidates, long low, long high) {
+            RoaringBitmap result = new RoaringBitmap();
+            if (low > high) {
+                return result;
+            }
+            for (int bucket = 0; bucket < byPriceBucket.length; bucket++) {
+                long bucketLow = bucket == 0 ? Long.MIN_VALUE : bucketBounds[bucket - 1];
+                long bucketHigh = bucket == bucketBounds.length ? Long.MAX_VALUE : bucketBounds[bucket] - 1;
+                if (bucketHigh < low || bucketLow > high) {
+                    continue;
+                }
+                RoaringBitmap inBucket = RoaringBitmap.and(candidates, byPriceBucket[bucket]);
+                if (bucketLow >= low && bucketHigh <= high) {
+                    result.or(inBucket);
+                } else {
+                    inBucket.forEach((int ordinal) -> {
+                        if (prices[ordinal] >= low && prices[ordinal] <= high) {
+                            result.add(ordinal);
+                        }
+                    });
+                }
+            }
+            return result;
+        }
+
+        private Comparator<Integer> ordinalOrder(String sortKey) {
+            return (a, b) -> compareKeys(sortKey, priced.contains(a), prices[a], ids[a], priced.contains(b), prices[b], ids[b]);
+        }
+
+        private int compareToCursor(int ordinal, String sortKey, ProductCursor after) {
+            BigDecimal cursorPrice = ProductCursor.SORT_ID.equals(sortKey) ? null : after.getPriceValue();
+            return compareKeys(sortKey, priced.contains(ordinal), prices[ordinal], ids[ordinal],
+                    cursorPrice != null, cursorPrice != null ? toCents(cursorPrice) : 0, after.getId());
+        }
+    }
+
+    private int bucketOf(long cents) {
+        int position = Arrays.binarySearch(bucketBounds, cents);
+        return position >= 0 ? position + 1 : -position - 1;
+    }
+
+    private static int compareKeys(String sortKey, boolean aPriced, long aPrice, UUID aId,
+                                   boolean bPriced, long bPrice, UUID bId) {
+        boolean ascending = "price_asc".equals(sortKey);
+        if (ascending || "price_desc".equals(sortKey)) {
+            if (aPriced != bPriced) {
+                // NULL é o maior valor para o Postgres: último em ASC, primeiro em DESC.
+                int nullsLast = aPriced ? -1 : 1;
+                return ascending ? nullsLast : -nullsLast;
+            }
+            if (aPriced) {
+                int byPrice = ascending ? Long.compare(aPrice, bPrice) : Long.compare(bPrice, aPrice);
+                if (byPrice != 0) {
+                    return byPrice;
+                }
+            }
+        }
+        return compareUuids(aId, bId);
+    }
+
+    /**
+     * Ordem de uuid do Postgres (bytes sem sinal), que difere de {@link UUID#compareTo}.
+     */
+    static int compareUuids(UUID a, UUID b) {
+        int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    private static ProductCategory parseCategory(String category) {
+        if (category == null || category.isEmpty()) {
+            return null;
+        }
+        try {
+            return ProductCategory.valueOf(category.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static long toCents(BigDecimal value) {
+        return value.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+}
@@ -0,0 +1,49 @@
+package com.marketplace.marketplace.service;
+
+import com.marketplace.marketplace.domain.Product;
+
+import java.util.UUID;
+
+/**
+ * Publicado quando um produto é salvo ou apagado. Os ouvintes usam
+ * {@code @TransactionalEventListener} e só reagem depois do commit.
+ * No checkout o evento também leva as unidades pedidas, que medem a popularidade.
+ */
+public class ProductChangedEvent {
+
+    private final UUID productId;
+    private final Product product;
+    private final int unitsOrdered;
+
+    private ProductChangedEvent(UUID productId, Product product, int unitsOrdered) {
+        this.productId = productId;
+        this.product = product;
+        this.unitsOrdered = unitsOrdered;
+    }
+
+    public static ProductChangedEvent saved(Product product) {
+        return new ProductChangedEvent(product.getId(), product, 0);
+    }
+
+    /**
+     * Estoque baixado por um pedido de {@code unitsOrdered} unidades.
+     */
+    public static ProductChangedEvent ordered(Product product, int unitsOrdered) {
+        return new ProductChangedEvent(product.getId(), product, unitsOrdered);
+    }
+
+    public static ProductChangedEvent deleted(UUID productId) {
+        return new ProductChangedEvent(productId, null, 0);
+    }
+
+    public UUID getProductId() { return productId; }
+
+    /**
+     * Estado salvo do produto, ou null quando ele foi apagado.
+     */
+    public Product getProduct() { return product; }
+
+    public boolean isDeleted() { return product == null; }
+
+    public int getUnitsOrdered() { return unitsOrdered; }
+}
@@ -0,0 +1,94 @@
+package com.marketplace.marketplace.service;
+
+import com.marketplace.marketplace.dto.ProductDTO;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Cursor opaco da paginação por keyset do catálogo.
+ * Guarda a chave de ordenação (price ou productName) do último item da página
+ * junto com o id, que desempata itens com o mesmo valor.
+ */
+public class ProductCursor {
+
+    public static final String SORT_ID = "id";
+    public static final String SORT_FALLBACK = "fallback";
+    public static final String SORT_RELEVANCE = "relevance";
+
+    private final String sort;
+    private final UUID id;
+    private final String value;
+    private final BigDecimal priceValue;
+
+    /**
+     * @throws NumberFormatException quando a ordenação é por preço e o valor não é um número
+     */
+    public ProductCursor(String sort, UUID id, String value) {
+        this.sort = sort;
+        this.id = id;
+        this.value = value;
+        this.priceValue = value != null && isPriceSort(sort) ? new BigDecimal(value) : null;
+    }
+
+    public static ProductCursor after(ProductDTO product, String sort) {
+        String value = null;
+        if (isPriceSort(sort)) {
+            value = product.getPrice() != null ? product.getPrice().toPlainString() : null;
+        } else if ("name_asc".equals(sort)) {
+            value = product.getProductName();
+        }
+        return new ProductCursor(sort, product.getId(), value);
+    }
+
+    public String encode() {
+        String raw = sort + "\n" + id + "\n" + (value == null ? "" : "v" + value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ProductCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\n", 3);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Cursor malformado");
+            }
+            String value = parts[2].isEmpty() ? null : parts[2].substring(1);
+            // O preço é lido aqui: um valor forjado vira 400, não erro na montagem da consulta.
+            return new ProductCursor(parts[0], UUID.fromString(parts[1]), value);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor inválido");
+        }
+    }
+
+    public String getSort() { return sort; }
+    public UUID getId() { return id; }
+    public String getValue() { return value; }
+
+    public BigDecimal getPriceValue() {
+        return priceValue;
+    }
+
+    /**
+     * Na ordenação por relevância o valor é a posição na lista ranqueada, não uma chave.
+     */
+    public int getOffset() {
+        try {
+            return value != null ? Math.max(Integer.parseInt(value), 0) : 0;
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor inválido");
+        }
+    }
+
+    private static boolean isPriceSort(String sort) {
+        return "price_asc".equals(sort) || "price_desc".equals(sort);
+    }
+
+    public boolean isFallback() {
+        return SORT_FALLBACK.equals(sort) || SORT_RELEVANCE.equals(sort);
+    }
+}
@@ -0,0 +1,192 @@
+package com.marketplace.marketplace.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.marketplace.marketplace.config.TenantContext;
+import com.marketplace.marketplace.domain.Product;
+import com.marketplace.marketplace.domain.ProductCategory;
+import com.marketplace.marketplace.dto.ProductDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Cache das listagens do catálogo (GET /api/product sem IA), com chave na tupla
+ * normalizada (nome, preço mínimo/máximo, categoria, ordenação, tenant, página).
+ * Guarda os DTOs já montados e os ids que eles contêm.
+ * <p>
+ * Invalidação por escrita, depois do commit: a entrada cai quando contém o produto
+ * alterado ou quando o novo estado do produto passa pelos filtros dela (ele pode ter
+ * entrado na lista). O filtro de texto não é reavaliado: com nome, basta categoria,
+ * preço e tenant baterem. Uma organização alterada derruba tudo, porque o nome dela vai
+ * nos DTOs. O tamanho é limitado por uma estimativa de bytes.
+ * Métricas: cache.*{cache=productListing} e catalog.cache.invalidations.
+ */
+@Component
+@ConditionalOnProperty(name = "marketplace.catalog.cache.enabled", havingValue = "true")
+public class ProductListingCache {
+
+    /** Custo fixo estimado de um ProductDTO (objeto, UUID, BigDecimal, referências). */
+    private static final int DTO_OVERHEAD_BYTES = 200;
+    private static final int ENTRY_OVERHEAD_BYTES = 300;
+
+    private final Cache<Key, Entry> cache;
+    private final Counter invalidations;
+    /** Muda a cada escrita: um resultado lido antes dela não entra no cache. */
+    private final AtomicLong writeVersion = new AtomicLong();
+
+    public ProductListingCache(@Value("${marketplace.catalog.cache.max-size:32MB}") DataSize maxSize,
+                               @Value("${marketplace.catalog.cache.ttl:10m}") Duration ttl,
+                               MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((Key key, Entry entry) -> entry.weight)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "productListing");
+        this.invalidations = meterRegistry.counter("catalog.cache.invalidations");
+    }
+
+    /**
+     * Chave da listagem para o usuário atual; o tenant entra na chave.
+     */
+    public Key key(String name, BigDecimal minPrice, BigDecimal maxPrice, String category, String sort,
+                   String cursor, Integer limit, boolean includeTotal) {
+        return new Key(normalizeText(name), normalizePrice(minPrice), normalizePrice(maxPrice), parseCategory(category),
+                sort, TenantContext.currentOrganizationId(), cursor, limit, includeTotal);
+    }
+
+    public <T> T get(Key key, Supplier<T> loader, Function<T, List<ProductDTO>> items) {
+        Entry cached = cache.getIfPresent(key);
+        if (cached != null) {
+            @SuppressWarnings("unchecked")
+            T value = (T) cached.value;
+            return value;
+        }
+
+        long version = writeVersion.get();
+        T value = loader.get();
+        List<ProductDTO> dtos = items.apply(value);
+        Entry entry = new Entry(value, dtos);
+        if (writeVersion.get() == version) {
+            cache.put(key, entry);
+            // Uma escrita entre a conferência e o put pode ter varrido o cache antes da
+            // entrada existir; conferindo de novo depois do put, ou a varredura dela vê a
+            // entrada, ou a versão já mudou e a entrada sai aqui.
+            if (writeVersion.get() != version) {
+                cache.asMap().remove(key, entry);
+            }
+        }
+        return value;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        writeVersion.incrementAndGet();
+        UUID productId = event.getProductId();
+        Product product = event.getProduct();
+
+        cache.asMap().entrySet().removeIf(cached -> {
+            boolean stale = cached.getValue().productIds.contains(productId)
+                    || (product != null && cached.getKey().couldContain(product));
+            if (stale) {
+                invalidations.increment();
+            }
+            return stale;
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrganizationChanged(OrganizationChangedEvent event) {
+        writeVersion.incrementAndGet();
+        invalidations.increment(cache.estimatedSize());
+        cache.invalidateAll();
+    }
+
+    private static String normalizeText(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            return null;
+        }
+        return text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static BigDecimal normalizePrice(BigDecimal price) {
+        return price != null ? price.stripTrailingZeros() : null;
+    }
+
+    // Categoria inválida é ignorada pelo filtro, então vira "sem categoria" também na chave.
+    private static ProductCategory parseCategory(String category) {
+        if (category == null || category.isEmpty()) {
+            return null;
+        }
+        try {
+            return ProductCategory.valueOf(category.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public record Key(String name, BigDecimal minPrice, BigDecimal maxPrice, ProductCategory category, String sort,
+                      UUID organizationId, String cursor, Integer limit, boolean includeTotal) {
+
+        /**
+         * Se o produto, no estado atual, pode aparecer nesta listagem.
+         */
+        boolean couldContain(Product product) {
+            if (organizationId != null && (product.getOrganization() == null
+                    || !organizationId.equals(product.getOrganization().getId()))) {
+                return false;
+            }
+            if (category != null && category != product.getCategory()) {
+                return false;
+            }
+            if (minPrice != null && (product.getPrice() == null || product.getPrice().compareTo(minPrice) < 0)) {
+                return false;
+            }
+            if (maxPrice != null && (product.getPrice() == null || product.getPrice().compareTo(maxPrice) > 0)) {
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private static final class Entry {
+        private final Object value;
+        private final Set<UUID> productIds;
+        private final int weight;
+
+        private Entry(Object value, List<ProductDTO> items) {
+            this.value = value;
+            this.productIds = new HashSet<>(items.size() * 2);
+            long bytes = ENTRY_OVERHEAD_BYTES;
+            for (ProductDTO dto : items) {
+                productIds.add(dto.getId());
+                bytes += DTO_OVERHEAD_BYTES + 2L * (length(dto.getProductName()) + length(dto.getDescription())
+                        + length(dto.getImageUrl()) + length(dto.getCategory()) + length(dto.getOrganizationName()));
+            }
+            this.weight = (int) Math.min(bytes, Integer.MAX_VALUE);
+        }
+
+        private static int length(String value) {
+            return Objects.requireNonNullElse(value, "").length();
+        }
+    }
+}
@@ -1,42 +1,119 @@
 package com.marketplace.marketplace.service;
 
+import com.marketplace.marketplace.config.AiSearchProperties;
+import com.marketplace.marketplace.config.SearchExecutors;
 import com.marketplace.marketplace.domain.*;
 import com.marketplace.marketplace.dto.AiSearchResult;
 import com.marketplace.marketplace.dto.ProductDTO;
+import com.marketplace.marketplace.dto.ProductFacets;
+import com.marketplace.marketplace.dto.ProductPage;
+import com.marketplace.marketplace.dto.ProductSuggestion;
 import com.marketplace.marketplace.dto.SearchFilters;
 import com.marketplace.marketplace.dto.AiSearchResponse;
 import com.marketplace.marketplace.repository.OrganizationRepository;
+import com.marketplace.marketplace.repository.ProductCountEstimator;
+import com.marketplace.marketplace.repository.ProductFacetQuery;
 import com.marketplace.marketplace.repository.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 @Service
 public class ProductService {
 
+    private static final Logger log = LoggerFactory.getLogger(ProductService.class);
+
+    static final int DEFAULT_PAGE_SIZE = 20;
+    static final int MAX_PAGE_SIZE = 100;
+    static final int MAX_TEXT_CANDIDATES = 1000;
+    static final int DEFAULT_SUGGESTIONS = 8;
+
+    private static final String AI_FALLBACK_MESSAGE = "Não achei com os filtros da IA... Mas veja se é um destes:";
+
     private final ProductRepository productRepository;
     private final OrganizationRepository organizationRepository;
     private final AiSearchService aiSearchService;
+    private final ProductCountEstimator productCountEstimator;
+    private final ProductFacetQuery productFacetQuery;
+    private final ProductTextSearch productTextSearch;
+    private final ProductBitmapIndex productBitmapIndex;
+    private final ProductSuggestIndex productSuggestIndex;
+    private final ProductListingCache productListingCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate readOnlyTransaction;
+    private final SearchExecutors searchExecutors;
+    private final AiSearchProperties.Speculative speculative;
+    private final MeterRegistry meterRegistry;
 
     public ProductService(ProductRepository productRepository,
                           OrganizationRepository organizationRepository,
-                          AiSearchService aiSearchService) {
+                          AiSearchService aiSearchService,
+                          ProductCountEstimator productCountEstimator,
+                          ProductFacetQuery productFacetQuery,
+                          Optional<ProductTextSearch> productTextSearch,
+                          Optional<ProductBitmapIndex> productBitmapIndex,
+                          Optional<ProductSuggestIndex> productSuggestIndex,
+                          Optional<ProductListingCache> productListingCache,
+                          ApplicationEventPublisher eventPublisher,
+                          PlatformTransactionManager transactionManager,
+                          SearchExecutors searchExecutors,
+                          AiSearchProperties aiSearchProperties,
+                          MeterRegistry meterRegistry) {
         this.productRepository = productRepository;
         this.organizationRepository = organizationRepository;
         this.aiSearchService = aiSearchService;
+        this.productCountEstimator = productCountEstimator;
+        this.productFacetQuery = productFacetQuery;
+        this.productTextSearch = productTextSearch.orElse(null);
+        this.productBitmapIndex = productBitmapIndex.orElse(null);
+        this.productSuggestIndex = productSuggestIndex.orElse(null);
+        this.productListingCache = productListingCache.orElse(null);
+        this.eventPublisher = eventPublisher;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.searchExecutors = searchExecutors;
+        this.speculative = aiSearchProperties.getSpeculative();
+        this.meterRegistry = meterRegistry;
     }
 
     @Transactional
@@ -65,6 +142,7 @@ public class ProductService {
             }
         }
         Product savedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.saved(savedProduct));
         return new ProductDTO(savedProduct);
     }
 
@@ -82,6 +160,7 @@ public class ProductService {
         }
         product.setOrderItems(null);
         Product savedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.saved(savedProduct));
         return new ProductDTO(savedProduct);
     }
 
@@ -95,50 +174,210 @@ public class ProductService {
             }
         }
         productRepository.delete(product);
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(productId));
     }
 
 
     public List<ProductDTO> findWithFilters(String name, BigDecimal minPrice, BigDecimal maxPrice, String category, String sort) {
+        if (productListingCache == null) {
+            return loadWithFilters(name, minPrice, maxPrice, category, sort);
+        }
+        return productListingCache.get(
+                productListingCache.key(name, minPrice, maxPrice, category, sort, null, null, false),
+                () -> loadWithFilters(name, minPrice, maxPrice, category, sort),
+                products -> products);
+    }
 
-        Specification<Product> spec = (root, query, cb) -> {
-            if (query.getResultType() != Long.class && query.getResultType() != long.class) {
-                root.fetch("organization", JoinType.LEFT);
-            }
-            List<Predicate> predicates = new ArrayList<>();
+    private List<ProductDTO> loadWithFilters(String name, BigDecimal minPrice, BigDecimal maxPrice, String category, String sort) {
 
-            if (name != null && !name.isEmpty()) {
-                predicates.add(cb.like(cb.lower(root.get("productName")), "%" + name.toLowerCase() + "%"));
-            }
-            if (minPrice != null) {
-                predicates.add(cb.greaterThanOrEqualTo(root.get("price"), minPrice));
-            }
-            if (maxPrice != null) {
-                predicates.add(cb.lessThanOrEqualTo(root.get("price"), maxPrice));
+        if (canUseBitmapIndex(name, normalizeSort(sort))) {
+            RoaringBitmap matches = productBitmapIndex.match(category, minPrice, maxPrice);
+            // Listas grandes sairiam num IN enorme; aí o Specification resolve melhor.
+            if (matches != null && matches.getCardinality() <= MAX_TEXT_CANDIDATES) {
+                return findAllInOrder(productBitmapIndex.findAll(matches, normalizeSort(sort)));
             }
-            if (category != null && !category.isEmpty()) {
-                try {
-                    ProductCategory catEnum = ProductCategory.valueOf(category.toUpperCase());
-                    predicates.add(cb.equal(root.get("category"), catEnum));
-                } catch (IllegalArgumentException e) {
-                    System.err.println("Categoria inválida recebida: " + category);
-                }
-            }
-            return cb.and(predicates.toArray(new Predicate[0]));
-        };
+        }
+
+        Specification<Product> spec = buildFilterSpec(name, minPrice, maxPrice, category);
 
         Sort sortOrder = buildSortOrder(sort);
 
-        List<Product> products = productRepository.findAll(spec, sortOrder);
+        List<ProductDTO> products = productRepository.findDtos(spec, sortOrder);
+        if (sortOrder.isUnsorted()) {
+            sortByRelevance(products, name);
+        }
+        return products;
+    }
+
+    /**
+     * Variante paginada por keyset de {@link #findWithFilters}: lê no máximo {@code limit}
+     * produtos depois do cursor, sem OFFSET nem COUNT(*). O total, quando pedido, é estimado.
+     */
+    public ProductPage findPageWithFilters(String name, BigDecimal minPrice, BigDecimal maxPrice, String category, String sort,
+                                           String cursor, Integer limit, boolean includeTotal) {
+        if (productListingCache == null) {
+            return loadPageWithFilters(name, minPrice, maxPrice, category, sort, cursor, limit, includeTotal);
+        }
+        return productListingCache.get(
+                productListingCache.key(name, minPrice, maxPrice, category, sort, cursor, limit, includeTotal),
+                () -> loadPageWithFilters(name, minPrice, maxPrice, category, sort, cursor, limit, includeTotal),
+                ProductPage::getItems);
+    }
+
+    private ProductPage loadPageWithFilters(String name, BigDecimal minPrice, BigDecimal maxPrice, String category, String sort,
+                                            String cursor, Integer limit, boolean includeTotal) {
+
+        String sortKey = normalizeSort(sort);
+        ProductCursor after = cursor != null && !cursor.isEmpty() ? ProductCursor.decode(cursor) : null;
+        if (after != null && !after.getSort().equals(sortKey)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor não corresponde à ordenação pedida");
+        }
+        int pageSize = resolvePageSize(limit);
+
+        List<ProductDTO> products = null;
+        if (canUseBitmapIndex(name, sortKey)) {
+            RoaringBitmap matches = productBitmapIndex.match(category, minPrice, maxPrice);
+            if (matches != null) {
+                products = findAllInOrder(productBitmapIndex.findPage(matches, sortKey, after, pageSize + 1));
+            }
+        }
+        if (products == null) {
+            Specification<Product> spec = buildFilterSpec(name, minPrice, maxPrice, category);
+            products = findPage(spec, sortKey, after, pageSize);
+        }
+        String nextCursor = trimToPage(products, sortKey, pageSize);
+
+        Long estimatedTotal = includeTotal ? productCountEstimator.estimate(name, minPrice, maxPrice, category) : null;
+
+        return new ProductPage(products, nextCursor, estimatedTotal);
+    }
+
+    /**
+     * Contagens por categoria, por organização e por faixa de preço para os filtros atuais
+     * (ver {@link ProductFacetQuery} para a semântica). Sem texto e com o índice de bitmaps
+     * ligado, saem da memória; senão, de uma consulta agregada.
+     */
+    public ProductFacets findFacets(String name, BigDecimal minPrice, BigDecimal maxPrice, String category) {
+        ProductFacetQuery.Counts counts = null;
+        if (canUseBitmapIndex(name, null)) {
+            counts = productBitmapIndex.facets(category, minPrice, maxPrice);
+        }
+        if (counts == null) {
+            counts = countFacets(name, minPrice, maxPrice, category);
+        }
+
+        List<ProductFacets.FacetCount> categories = new ArrayList<>();
+        counts.categories().forEach((value, count) ->
+                categories.add(new ProductFacets.FacetCount(value.name(), value.getDisplayName(), count)));
+
+        List<ProductFacets.FacetCount> organizations = new ArrayList<>();
+        for (Organization organization : organizationRepository.findAllById(counts.organizations().keySet())) {
+            organizations.add(new ProductFacets.FacetCount(organization.getId().toString(), organization.getName(),
+                    counts.organizations().get(organization.getId())));
+        }
+        if (counts.withoutOrganization() > 0) {
+            organizations.add(new ProductFacets.FacetCount(null, "Marketplace", counts.withoutOrganization()));
+        }
+        categories.sort(Comparator.comparingLong(ProductFacets.FacetCount::getCount).reversed());
+        organizations.sort(Comparator.comparingLong(ProductFacets.FacetCount::getCount).reversed());
+
+        List<BigDecimal> bounds = productFacetQuery.getPriceBounds();
+        List<ProductFacets.PriceRangeCount> prices = new ArrayList<>();
+        for (int bucket = 0; bucket < counts.priceBuckets().length; bucket++) {
+            prices.add(new ProductFacets.PriceRangeCount(
+                    bucket == 0 ? null : bounds.get(bucket - 1),
+                    bucket == bounds.size() ? null : bounds.get(bucket),
+                    counts.priceBuckets()[bucket]));
+        }
+        return new ProductFacets(categories, organizations, prices);
+    }
+
+    /**
+     * As facetas com o mesmo filtro de nome da listagem: todos os produtos que casam com o
+     * texto contam, não só os mais relevantes.
+     */
+    private ProductFacetQuery.Counts countFacets(String name, BigDecimal minPrice, BigDecimal maxPrice, String category) {
+        ProductTextSearch textSearch = readyTextSearch();
+        if (textSearch == null || name == null || name.isEmpty()) {
+            return productFacetQuery.count(name, null, null, minPrice, maxPrice, category);
+        }
+        ProductTextSearch.Filter filter = textSearch.filter(name);
+        if (filter == null) {
+            return ProductFacetQuery.Counts.empty(productFacetQuery.getPriceBounds().size() + 1);
+        }
+        return productFacetQuery.count(name, filter.on("p.id"), filter.param(), minPrice, maxPrice, category);
+    }
+
+    /**
+     * Autocomplete: categorias e nomes de produto com uma palavra começando por
+     * {@code prefix}, mais populares primeiro. Sai do {@link ProductSuggestIndex}; sem ele,
+     * ou enquanto ele sobe, de uma consulta por prefixo, sem ranking de popularidade.
+     */
+    public List<ProductSuggestion> suggest(String prefix, Integer limit) {
+        if (prefix == null || prefix.isBlank()) {
+            return List.of();
+        }
+        int maxResults = productSuggestIndex != null ? productSuggestIndex.getMaxResults() : DEFAULT_SUGGESTIONS;
+        int size = Math.max(1, Math.min(limit != null ? limit : DEFAULT_SUGGESTIONS, maxResults));
+
+        if (productSuggestIndex != null) {
+            List<ProductSuggestion> suggestions = productSuggestIndex.suggest(prefix, size);
+            if (suggestions != null) {
+                return suggestions;
+            }
+        }
+        return loadSuggestions(prefix.trim().toLowerCase(), size);
+    }
+
+    private List<ProductSuggestion> loadSuggestions(String prefix, int size) {
+        List<ProductSuggestion> suggestions = new ArrayList<>();
+        for (ProductCategory category : ProductCategory.values()) {
+            if (suggestions.size() < size && category.getDisplayName().toLowerCase().startsWith(prefix)) {
+                suggestions.add(new ProductSuggestion(category.getDisplayName(), ProductSuggestion.TYPE_CATEGORY, category.name()));
+            }
+        }
 
-        return products.stream()
-                .map(ProductDTO::new)
-                .collect(Collectors.toList());
+        Specification<Product> spec = (root, query, cb) -> {
+            Expression<String> name = cb.lower(root.get("productName"));
+            return cb.or(cb.like(name, prefix + "%"), cb.like(name, "% " + prefix + "%"));
+        };
+        // Nomes repetidos viram uma sugestão só.
+        Set<String> names = new LinkedHashSet<>();
+        for (ProductDTO product : productRepository.findDtos(spec, Sort.by("productName"), size * 4)) {
+            names.add(product.getProductName());
+        }
+        for (String name : names) {
+            if (suggestions.size() == size) {
+                break;
+            }
+            suggestions.add(new ProductSuggestion(name, ProductSuggestion.TYPE_PRODUCT, name));
+        }
+        return suggestions;
     }
 
     public AiSearchResult aiSearch(String aiQuery) {
+        return aiSearch(aiQuery, null, null);
+    }
+
+    /**
+     * Busca por IA. Com {@code cursor} ou {@code limit} o resultado (filtrado ou do fallback)
+     * é paginado por keyset e o {@link AiSearchResult#getNextCursor()} aponta a próxima página.
+     */
+    public AiSearchResult aiSearch(String aiQuery, String cursor, Integer limit) {
 
         System.out.println("\n\n--- 1. ENTREI NA BUSCA DA IA (aiSearch) COM O TERMO: '" + aiQuery + "' ---");
 
+        ProductCursor after = cursor != null && !cursor.isEmpty() ? ProductCursor.decode(cursor) : null;
+        Integer pageSize = (after != null || limit != null) ? resolvePageSize(limit) : null;
+
+        if (speculative.isEnabled() && after == null) {
+            return speculativeAiSearch(aiQuery, pageSize);
+        }
+        if (speculative.isEnabled() && after.isFallback()) {
+            // O fallback especulativo busca pela consulta original, não pelo nome extraído pela IA.
+            return fallbackAiSearch(aiQuery, AI_FALLBACK_MESSAGE, true, after, pageSize);
+        }
+
         try {
             System.out.println("--- 2. CHAMANDO A IA (GEMINI)... ---");
             AiSearchResponse aiResponse = aiSearchService.parseSearchQuery(aiQuery);
@@ -146,72 +385,331 @@ public class ProductService {
             String friendlyMessage = aiResponse.getFriendlyMessage();
             System.out.println("--- 3. IA RESPONDEU COM FILTROS: " + filters.getName() + " | " + filters.getCategory() + " | " + filters.getSort() + " ---");
 
-            Specification<Product> spec = (root, query, cb) -> {
-                if (query.getResultType() != Long.class && query.getResultType() != long.class) {
-                    root.fetch("organization", JoinType.LEFT);
-                }
-                List<Predicate> predicates = new ArrayList<>();
+            String fallbackQuery = (filters.getName() != null && !filters.getName().isEmpty()) ? filters.getName() : aiQuery;
+            String message = (friendlyMessage == null || friendlyMessage.isEmpty()) ? AI_FALLBACK_MESSAGE : friendlyMessage;
 
-                if (filters.getName() != null && !filters.getName().isEmpty()) {
-                    predicates.add(cb.like(cb.lower(root.get("productName")), "%" + filters.getName().toLowerCase() + "%"));
-                }
-                if (filters.getMinPrice() != null) {
-                    predicates.add(cb.greaterThanOrEqualTo(root.get("price"), filters.getMinPrice()));
-                }
-                if (filters.getMaxPrice() != null) {
-                    predicates.add(cb.lessThanOrEqualTo(root.get("price"), filters.getMaxPrice()));
-                }
-                if (filters.getCategory() != null && !filters.getCategory().isEmpty()) {
-                    try {
-                        ProductCategory catEnum = ProductCategory.valueOf(filters.getCategory().toUpperCase());
-                        predicates.add(cb.equal(root.get("category"), catEnum));
-                    } catch (IllegalArgumentException e) {
-                        System.err.println("IA retornou categoria inválida: " + filters.getCategory());
-                    }
-                }
-                return cb.and(predicates.toArray(new Predicate[0]));
-            };
+            if (after != null && after.isFallback()) {
+                return fallbackAiSearch(fallbackQuery, message, true, after, pageSize);
+            }
 
-            System.out.println("--- 4. EXECUTANDO BUSCA INTELIGENTE NO BANCO... ---");
+            AiSearchResult result = searchWithAiFilters(filters, friendlyMessage, after, pageSize);
 
-            Sort sortOrder = buildSortOrder(filters.getSort());
+            if (result.getProducts().isEmpty() && after == null) {
+                System.out.println("--- 6. BUSCA INTELIGENTE FALHOU. ATIVANDO FALLBACK... ---");
+                System.out.println("--- 6b. USANDO TERMO DE FALLBACK: '" + fallbackQuery + "' ---");
 
-            List<Product> products = productRepository.findAll(spec, sortOrder);
-            System.out.println("--- 5. BUSCA INTELIGENTE ACHOU: " + products.size() + " PRODUTOS ---");
+                return fallbackAiSearch(fallbackQuery, message, true, null, pageSize);
+            }
 
-            if (products.isEmpty()) {
-                System.out.println("--- 6. BUSCA INTELIGENTE FALHOU. ATIVANDO FALLBACK... ---");
+            System.out.println("--- 6. BUSCA INTELIGENTE TEVE SUCESSO. RETORNANDO " + result.getProducts().size() + " PRODUTOS. ---");
+            return result;
 
-                String fallbackQuery = (filters.getName() != null && !filters.getName().isEmpty()) ? filters.getName() : aiQuery;
-                System.out.println("--- 6b. USANDO TERMO DE FALLBACK: '" + fallbackQuery + "' ---");
+        } catch (Exception e) {
+            System.out.println("--- 6. ERRO AO CHAMAR API DO GEMINI: " + e.getMessage() + " ---");
+            return fallbackAiSearch(aiQuery, offlineMessage(aiQuery), false, after, pageSize);
+        }
+    }
+
+    /**
+     * Primeira etapa da busca em streaming: a busca ampla por palavra-chave, sem a IA.
+     * Roda fora da thread da requisição, por isso abre a própria transação.
+     */
+    @Transactional(readOnly = true)
+    public AiSearchResult keywordSearch(String query, Integer limit) {
+        return fallbackAiSearch(query, null, false, null, resolvePageSize(limit));
+    }
+
+    public AiSearchResponse parseAiQuery(String aiQuery) throws Exception {
+        return aiSearchService.parseSearchQuery(aiQuery);
+    }
+
+    /**
+     * Segunda etapa da busca em streaming: aplica os filtros que a IA devolveu.
+     * A lista vem vazia quando os filtros não acham nada; a busca por palavra-chave já
+     * foi entregue e continua valendo.
+     */
+    @Transactional(readOnly = true)
+    public AiSearchResult refineAiSearch(AiSearchResponse aiResponse, Integer limit) {
+        if (aiResponse.getFilters() == null) {
+            return new AiSearchResult(new ArrayList<>(), aiResponse.getFriendlyMessage(), null);
+        }
+        return searchWithAiFilters(aiResponse.getFilters(), aiResponse.getFriendlyMessage(), null, resolvePageSize(limit));
+    }
+
+    private AiSearchResult searchWithAiFilters(SearchFilters filters, String friendlyMessage,
+                                               ProductCursor after, Integer pageSize) {
+        Specification<Product> spec = buildFilterSpec(filters.getName(), filters.getMinPrice(), filters.getMaxPrice(), filters.getCategory());
 
-                String fallbackMessage = "Não achei com os filtros da IA... Mas veja se é um destes:";
-                String message = (friendlyMessage == null || friendlyMessage.isEmpty()) ? fallbackMessage : friendlyMessage;
+        System.out.println("--- 4. EXECUTANDO BUSCA INTELIGENTE NO BANCO... ---");
 
-                return fallbackAiSearch(fallbackQuery, message, true);
+        List<ProductDTO> products;
+        String nextCursor = null;
+        if (pageSize == null) {
+            Sort sortOrder = buildSortOrder(filters.getSort());
+            products = productRepository.findDtos(spec, sortOrder);
+            if (sortOrder.isUnsorted()) {
+                sortByRelevance(products, filters.getName());
             }
+        } else {
+            // Nas páginas seguintes a ordenação vem do cursor, para não depender de a IA repetir a mesma resposta.
+            String sortKey = after != null ? after.getSort() : normalizeSort(filters.getSort());
+            products = findPage(spec, sortKey, after, pageSize);
+            nextCursor = trimToPage(products, sortKey, pageSize);
+        }
+        System.out.println("--- 5. BUSCA INTELIGENTE ACHOU: " + products.size() + " PRODUTOS ---");
 
-            List<ProductDTO> productDTOs = products.stream()
-                    .map(ProductDTO::new)
-                    .collect(Collectors.toList());
+        return new AiSearchResult(products, friendlyMessage, filters, nextCursor);
+    }
 
-            System.out.println("--- 6. BUSCA INTELIGENTE TEVE SUCESSO. RETORNANDO " + productDTOs.size() + " PRODUTOS. ---");
-            return new AiSearchResult(productDTOs, friendlyMessage, filters);
+    /**
+     * Modo especulativo: a busca ampla do fallback roda no banco enquanto a IA responde.
+     * Se a IA responder dentro do orçamento e os filtros dela acharem algo, vale a busca
+     * filtrada; se ela falhar, estourar o orçamento ou não achar nada, o fallback já está
+     * pronto e o pior caso fica perto de uma consulta ao banco. A IA que passa do orçamento
+     * continua rodando e a resposta dela ainda entra no cache. Quando a IA vence, o resultado
+     * do fallback é descartado e, se ele ainda estava na fila, nem chega ao banco; se o
+     * fallback falha ou passa do prazo, a busca devolve uma lista vazia em vez de um erro.
+     * <p>
+     * Cada etapa tem o seu pool limitado em {@link SearchExecutors}: o fallback não entra na
+     * fila atrás de chamadas lentas à IA e nenhuma das duas ocupa o executor padrão. Pool
+     * cheio recusa a etapa na hora, que conta como falha dela.
+     * <p>
+     * A busca paralela roda em outra thread: o SecurityContext vai junto e ela abre a
+     * própria transação, senão o TenantFilterAspect não teria sessão onde ligar o filtro.
+     */
+    private AiSearchResult speculativeAiSearch(String aiQuery, Integer pageSize) {
+        long deadline = System.nanoTime() + speculative.getFallbackTimeout().toNanos();
+        AtomicBoolean aiWon = new AtomicBoolean();
+        CompletableFuture<AiSearchResult> fallback = submit(() -> aiWon.get() ? null :
+                readOnlyTransaction.execute(status -> fallbackAiSearch(aiQuery, AI_FALLBACK_MESSAGE, true, null, pageSize)),
+                searchExecutors.speculativeFallback());
+        CompletableFuture<AiSearchResponse> ai = submit(() -> {
+            try {
+                return aiSearchService.parseSearchQuery(aiQuery);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, searchExecutors.speculativeAi());
 
-        } catch (Exception e) {
-            System.out.println("--- 6. ERRO AO CHAMAR API DO GEMINI: " + e.getMessage() + " ---");
-            return fallbackAiSearch(aiQuery, "Desculpe, a IA está offline. Fiz uma busca ampla por '" + aiQuery + "'.", false);
+        String outcome;
+        String message;
+        try {
+            AiSearchResponse aiResponse = ai.get(speculative.getBudget().toMillis(), TimeUnit.MILLISECONDS);
+            SearchFilters filters = aiResponse.getFilters();
+            String friendlyMessage = aiResponse.getFriendlyMessage();
+            if (filters != null) {
+                AiSearchResult result = searchWithAiFilters(filters, friendlyMessage, null, pageSize);
+                if (!result.getProducts().isEmpty()) {
+                    aiWon.set(true);
+                    fallback.cancel(false);
+                    meterRegistry.counter("ai.search.speculative", "result", "ai").increment();
+                    return result;
+                }
+            }
+            outcome = "fallback_no_match";
+            message = (friendlyMessage == null || friendlyMessage.isEmpty()) ? AI_FALLBACK_MESSAGE : friendlyMessage;
+        } catch (TimeoutException e) {
+            outcome = "fallback_slow";
+            message = slowMessage(aiQuery);
+        } catch (ExecutionException e) {
+            log.warn("Busca por IA falhou, seguindo com a busca ampla: {}", e.getCause().getMessage());
+            outcome = "fallback_error";
+            message = offlineMessage(aiQuery);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            outcome = "fallback_error";
+            message = offlineMessage(aiQuery);
+        }
+
+        meterRegistry.counter("ai.search.speculative", "result", outcome).increment();
+        AiSearchResult result;
+        try {
+            result = fallback.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Busca ampla especulativa passou de {}", speculative.getFallbackTimeout());
+            fallback.cancel(false);
+            result = emptyResult(aiQuery);
+        } catch (ExecutionException e) {
+            log.warn("Busca ampla especulativa falhou: {}", e.getCause().getMessage());
+            result = emptyResult(aiQuery);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result = emptyResult(aiQuery);
+        }
+        result.setFriendlyMessage(message);
+        return result;
+    }
+
+    /**
+     * Agenda a etapa no pool com o SecurityContext de quem chamou; pool cheio vira uma etapa
+     * que já falhou.
+     */
+    private static <T> CompletableFuture<T> submit(Supplier<T> task, Executor pool) {
+        try {
+            return CompletableFuture.supplyAsync(task, new DelegatingSecurityContextExecutor(pool));
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
         }
     }
 
-    private AiSearchResult fallbackAiSearch(String fallbackQuery, String message, boolean isAiFallback) {
+    private static AiSearchResult emptyResult(String aiQuery) {
+        return new AiSearchResult(new ArrayList<>(), null, new SearchFilters(aiQuery, null, null, null));
+    }
+
+    private static String offlineMessage(String aiQuery) {
+        return "Desculpe, a IA está offline. Fiz uma busca ampla por '" + aiQuery + "'.";
+    }
+
+    private static String slowMessage(String aiQuery) {
+        return "A IA está demorando para responder. Fiz uma busca ampla por '" + aiQuery + "'.";
+    }
+
+    private AiSearchResult fallbackAiSearch(String fallbackQuery, String message, boolean isAiFallback,
+                                            ProductCursor after, Integer pageSize) {
 
         System.out.println("--- 7. ENTREI NO FALLBACK (BUSCA AMPLA) POR: '" + fallbackQuery + "' ---");
 
-        Specification<Product> fuzzySpec = (root, query, cb) -> {
-            if (query.getResultType() != Long.class && query.getResultType() != long.class) {
-                root.fetch("organization", JoinType.LEFT);
+        List<ProductDTO> products;
+        String nextCursor = null;
+        ProductTextSearch textSearch = readyTextSearch();
+        if (textSearch != null) {
+            // Motor de busca textual: os ids já vêm ordenados por relevância.
+            List<UUID> ranked = textSearch.search(fallbackQuery, false, MAX_TEXT_CANDIDATES);
+            if (pageSize != null) {
+                // A página é cortada nos ids; só ela é carregada do banco.
+                int from = after != null && ProductCursor.SORT_RELEVANCE.equals(after.getSort()) ? after.getOffset() : 0;
+                int to = Math.min(from + pageSize, ranked.size());
+                if (to < ranked.size()) {
+                    nextCursor = new ProductCursor(ProductCursor.SORT_RELEVANCE, ranked.get(to - 1), String.valueOf(to)).encode();
+                }
+                ranked = ranked.subList(Math.min(from, to), to);
+            }
+            products = findAllInOrder(ranked);
+        } else {
+            Specification<Product> fuzzySpec = buildFuzzySpec(fallbackQuery);
+            if (pageSize == null) {
+                products = productRepository.findDtos(fuzzySpec, Sort.unsorted());
+            } else {
+                if (after != null && !ProductCursor.SORT_FALLBACK.equals(after.getSort())) {
+                    after = null;
+                }
+                products = findPage(fuzzySpec, ProductCursor.SORT_FALLBACK, after, pageSize);
+                nextCursor = trimToPage(products, ProductCursor.SORT_FALLBACK, pageSize);
             }
+        }
+        System.out.println("--- 8. BUSCA AMPLA ACHOU: " + products.size() + " PRODUTOS ---");
+
+        SearchFilters fallbackFilters = new SearchFilters(fallbackQuery, null, null, null);
+
+        System.out.println("--- 9. SAINDO DO FALLBACK. --- \n\n");
+        return new AiSearchResult(products, message, fallbackFilters, nextCursor);
+    }
+
+    private Specification<Product> buildFilterSpec(String name, BigDecimal minPrice, BigDecimal maxPrice, String category) {
+        return (root, query, cb) -> {
+            fetchOrganization(root, query);
+            List<Predicate> predicates = new ArrayList<>();
+
+            if (name != null && !name.isEmpty()) {
+                predicates.add(nameFilter(name, root, cb));
+            }
+            if (minPrice != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("price"), minPrice));
+            }
+            if (maxPrice != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("price"), maxPrice));
+            }
+            if (category != null && !category.isEmpty()) {
+                try {
+                    ProductCategory catEnum = ProductCategory.valueOf(category.toUpperCase());
+                    predicates.add(cb.equal(root.get("category"), catEnum));
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Categoria inválida recebida: " + category);
+                }
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * O nome pelo motor de busca textual, quando há um, com todos os produtos que casam
+     * (o limite de {@link #MAX_TEXT_CANDIDATES} é só do ranking); senão, LIKE.
+     */
+    private Predicate nameFilter(String name, Root<Product> root, CriteriaBuilder cb) {
+        ProductTextSearch textSearch = readyTextSearch();
+        if (textSearch == null) {
+            return cb.like(cb.lower(root.get("productName")), "%" + name.toLowerCase() + "%");
+        }
+        ProductTextSearch.Filter filter = textSearch.filter(name);
+        if (filter == null) {
+            return cb.disjunction();
+        }
+        // sql() do Hibernate: o SQL do motor entra como está, com o id e o parâmetro nos '?'.
+        return cb.isTrue(cb.function("sql", Boolean.class,
+                cb.literal(filter.sql()), root.get("id"), cb.literal(filter.param())));
+    }
+
+    /**
+     * Sem ordenação pedida, os mais relevantes para {@code name} primeiro; o que ficou fora
+     * dos {@link #MAX_TEXT_CANDIDATES} primeiros vem depois.
+     */
+    private void sortByRelevance(List<ProductDTO> products, String name) {
+        List<UUID> ranked = findTextMatches(name, true);
+        if (ranked != null) {
+            sortByRelevance(products, ranked);
+        }
+    }
+
+    private List<UUID> findTextMatches(String text, boolean matchAll) {
+        ProductTextSearch textSearch = readyTextSearch();
+        if (textSearch == null || text == null || text.isEmpty()) {
+            return null;
+        }
+        return textSearch.search(text, matchAll, MAX_TEXT_CANDIDATES);
+    }
+
+    /**
+     * O motor de busca textual, ou null sem motor ou enquanto ele monta o índice (e então
+     * vale o LIKE).
+     */
+    private ProductTextSearch readyTextSearch() {
+        return productTextSearch != null && productTextSearch.isReady() ? productTextSearch : null;
+    }
+
+    /**
+     * Carrega os produtos de {@code orderedIds} mantendo a ordem da lista.
+     */
+    private List<ProductDTO> findAllInOrder(List<UUID> orderedIds) {
+        if (orderedIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Specification<Product> byIds = (root, query, cb) -> root.get("id").in(orderedIds);
+        List<ProductDTO> products = productRepository.findDtos(byIds, Sort.unsorted());
+        sortByRelevance(products, orderedIds);
+        return products;
+    }
+
+    /**
+     * As leituras do catálogo vão para {@link ProductDTO} por projeção, que já traz o nome
+     * da organização; o fetch só vale quando a consulta devolve a entidade.
+     */
+    private static void fetchOrganization(Root<Product> root, CriteriaQuery<?> query) {
+        if (query.getResultType() == Product.class) {
+            root.fetch("organization", JoinType.LEFT);
+        }
+    }
+
+    private void sortByRelevance(List<ProductDTO> products, List<UUID> ranked) {
+        Map<UUID, Integer> position = new HashMap<>();
+        for (int i = 0; i < ranked.size(); i++) {
+            position.put(ranked.get(i), i);
+        }
+        products.sort(Comparator.comparingInt(p -> position.getOrDefault(p.getId(), Integer.MAX_VALUE)));
+    }
+
+    private Specification<Product> buildFuzzySpec(String fallbackQuery) {
+        return (root, query, cb) -> {
+            fetchOrganization(root, query);
 
             String likePattern = "%" + fallbackQuery.toLowerCase() + "%";
 
@@ -221,18 +719,85 @@ public class ProductService {
 
             return cb.or(nameLike, descriptionLike, categoryLike);
         };
+    }
 
-        List<Product> products = productRepository.findAll(fuzzySpec);
-        System.out.println("--- 8. BUSCA AMPLA ACHOU: " + products.size() + " PRODUTOS ---");
+    private List<ProductDTO> findPage(Specification<Product> spec, String sortKey, ProductCursor after, int pageSize) {
+        Specification<Product> pageSpec = after != null ? spec.and(buildKeysetSpec(after)) : spec;
+        Sort keysetSort = buildKeysetSort(sortKey);
+        // Um item a mais indica se existe próxima página.
+        return new ArrayList<>(productRepository.findDtos(pageSpec, keysetSort, pageSize + 1));
+    }
 
-        List<ProductDTO> productDTOs = products.stream()
-                .map(ProductDTO::new)
-                .collect(Collectors.toList());
+    /**
+     * O índice de bitmaps cobre categoria, organização e preço; texto e ordenação por
+     * nome continuam no banco.
+     */
+    private boolean canUseBitmapIndex(String name, String sortKey) {
+        return productBitmapIndex != null && (name == null || name.isEmpty()) && !"name_asc".equals(sortKey);
+    }
 
-        SearchFilters fallbackFilters = new SearchFilters(fallbackQuery, null, null, null);
+    private String trimToPage(List<ProductDTO> products, String sortKey, int pageSize) {
+        if (products.size() <= pageSize) {
+            return null;
+        }
+        products.subList(pageSize, products.size()).clear();
+        return ProductCursor.after(products.get(pageSize - 1), sortKey).encode();
+    }
 
-        System.out.println("--- 9. SAINDO DO FALLBACK. --- \n\n");
-        return new AiSearchResult(productDTOs, message, fallbackFilters);
+    private Specification<Product> buildKeysetSpec(ProductCursor after) {
+        return (root, query, cb) -> {
+            Predicate afterId = cb.greaterThan(root.get("id"), after.getId());
+            switch (after.getSort()) {
+                case "price_asc":
+                    return keysetPredicate(cb, root.get("price"), after.getPriceValue(), afterId, true);
+                case "price_desc":
+                    return keysetPredicate(cb, root.get("price"), after.getPriceValue(), afterId, false);
+                case "name_asc":
+                    return keysetPredicate(cb, root.get("productName"), after.getValue(), afterId, true);
+                default:
+                    return afterId;
+            }
+        };
+    }
+
+    // O Postgres ordena NULLs por último em ASC e primeiro em DESC; o predicado segue essa ordem.
+    private <T extends Comparable<? super T>> Predicate keysetPredicate(CriteriaBuilder cb, Path<T> key, T value,
+                                                                        Predicate afterId, boolean ascending) {
+        if (value == null) {
+            Predicate sameNull = cb.and(cb.isNull(key), afterId);
+            return ascending ? sameNull : cb.or(sameNull, cb.isNotNull(key));
+        }
+        Predicate beyond = ascending ? cb.greaterThan(key, value) : cb.lessThan(key, value);
+        Predicate keyset = cb.or(beyond, cb.and(cb.equal(key, value), afterId));
+        return ascending ? cb.or(keyset, cb.isNull(key)) : keyset;
+    }
+
+    private Sort buildKeysetSort(String sortKey) {
+        Sort byId = Sort.by("id").ascending();
+        switch (sortKey) {
+            case "price_asc":
+                return Sort.by("price").ascending().and(byId);
+            case "price_desc":
+                return Sort.by("price").descending().and(byId);
+            case "name_asc":
+                return Sort.by("productName").ascending().and(byId);
+            default:
+                return byId;
+        }
+    }
+
+    private String normalizeSort(String sort) {
+        if ("price_asc".equals(sort) || "price_desc".equals(sort) || "name_asc".equals(sort)) {
+            return sort;
+        }
+        return ProductCursor.SORT_ID;
+    }
+
+    private int resolvePageSize(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
     }
 
     private Sort buildSortOrder(String sort) {
@@ -0,0 +1,566 @@
+package com.marketplace.marketplace.service;
+
+import com.marketplace.marketplace.config.TenantContext;
+import com.marketplace.marketplace.domain.Product;
+import com.marketplace.marketplace.domain.ProductCategory;
+import com.marketplace.marketplace.dto.ProductSuggestion;
+import com.marketplace.marketplace.repository.OrderItemRepository;
+import com.marketplace.marketplace.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Autocomplete do catálogo: uma trie em memória com os nomes dos produtos e as
+ * categorias, dobrados como na busca por IA (minúsculas, sem acento). Cada nome entra a
+ * partir do início de cada palavra, então "prem" acha "Ração Premium". Cada nó guarda as
+ * melhores entradas da sua subárvore por popularidade (unidades pedidas), e a consulta
+ * só desce o prefixo e copia essa lista.
+ * <p>
+ * Há uma trie com o catálogo todo e uma por organização, para o tenant do usuário.
+ * Reconstruído na subida e atualizado a cada produto salvo ou apagado (depois do
+ * commit); os pedidos do checkout somam popularidade. A reconstrução monta tries novas e
+ * só no fim as troca pelas atuais; os eventos que chegam no meio dela ficam guardados e
+ * são aplicados depois da troca, para que um pedido não some duas vezes.
+ */
+@Service
+@ConditionalOnProperty(name = "marketplace.search.suggest.enabled", havingValue = "true")
+public class ProductSuggestIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSuggestIndex.class);
+
+    private static final int REBUILD_BATCH_SIZE = 500;
+    /** Os tokens são cortados neste tamanho; prefixos maiores são conferidos entrada a entrada. */
+    static final int MAX_TOKEN_LENGTH = 24;
+    /** Quantas palavras de um nome viram início de token. */
+    static final int MAX_WORD_STARTS = 6;
+
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    /** Mais popular primeiro; empate em ordem alfabética. A chave torna a ordem total. */
+    private static final Comparator<Entry> SUGGESTION_ORDER = Comparator
+            .comparingLong((Entry entry) -> entry.popularity).reversed()
+            .thenComparing(entry -> entry.folded)
+            .thenComparing(entry -> entry.key);
+
+    private final ProductRepository productRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final AiQueryNormalizer normalizer;
+    private final int maxResults;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Contents contents;
+    /** Eventos recebidos durante a reconstrução; null fora dela. */
+    private List<ProductChangedEvent> pending;
+
+    private volatile boolean ready;
+
+    private record Indexed(String name, ProductCategory category, UUID organizationId, long unitsOrdered) {}
+
+    public ProductSuggestIndex(ProductRepository productRepository, OrderItemRepository orderItemRepository,
+                               AiQueryNormalizer normalizer,
+                               @Value("${marketplace.search.suggest.max-results:10}") int maxResults) {
+        this.productRepository = productRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.normalizer = normalizer;
+        this.maxResults = maxResults;
+        this.contents = new Contents(maxResults);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIndex() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Contents rebuilt = new Contents(maxResults);
+        try {
+            // A soma das unidades é lida depois de começar a guardar os eventos, então um pedido
+            // confirmado depois dela chega como evento e é somado na troca. Só um pedido
+            // confirmado entre as duas linhas seria contado duas vezes; na ordem inversa, os
+            // confirmados durante a consulta se perderiam.
+            Map<UUID, Long> unitsOrdered = new HashMap<>();
+            for (Object[] row : orderItemRepository.sumQuantityByProduct()) {
+                unitsOrdered.put((UUID) row[0], ((Number) row[1]).longValue());
+            }
+
+            Page<Product> page;
+            PageRequest request = PageRequest.of(0, REBUILD_BATCH_SIZE, Sort.by("id"));
+            do {
+                page = productRepository.findAll(request);
+                for (Product product : page) {
+                    rebuilt.index(product, unitsOrdered.getOrDefault(product.getId(), 0L));
+                }
+                request = request.next();
+            } while (page.hasNext());
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        int replayed;
+        lock.writeLock().lock();
+        try {
+            for (ProductChangedEvent event : pending) {
+                rebuilt.apply(event);
+            }
+            replayed = pending.size();
+            pending = null;
+            contents = rebuilt;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Índice do autocomplete reconstruído: {} produtos em {} ms ({} eventos reaplicados)",
+                rebuilt.products.size(), System.currentTimeMillis() - start, replayed);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (pending != null) {
+                pending.add(event);
+            }
+            contents.apply(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    /**
+     * Até {@code limit} sugestões (no máximo max-results) para o prefixo digitado, no
+     * tenant do usuário atual, ou null enquanto o índice não está pronto.
+     */
+    public List<ProductSuggestion> suggest(String prefix, int limit) {
+        if (!ready) {
+            return null;
+        }
+        return suggest(prefix, limit, TenantContext.currentOrganizationId());
+    }
+
+    List<ProductSuggestion> suggest(String prefix, int limit, UUID organizationId) {
+        String folded = normalize(prefix);
+        int size = Math.min(limit, maxResults);
+        if (folded.isEmpty() || size <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Trie trie = organizationId == null ? contents.catalog : contents.byOrganization.get(organizationId);
+            if (trie == null) {
+                return List.of();
+            }
+            List<ProductSuggestion> suggestions = new ArrayList<>(size);
+            for (Entry entry : trie.find(folded, size)) {
+                suggestions.add(new ProductSuggestion(entry.text, entry.type, entry.value));
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void index(Product product, long addedUnits) {
+        lock.writeLock().lock();
+        try {
+            contents.index(product, addedUnits);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void index(UUID id, String name, ProductCategory category, UUID organizationId, long addedUnits) {
+        lock.writeLock().lock();
+        try {
+            contents.index(id, name, category, organizationId, addedUnits);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(UUID id) {
+        lock.writeLock().lock();
+        try {
+            contents.remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void markReady() {
+        ready = true;
+    }
+
+    /**
+     * Os produtos indexados e as tries montadas a partir deles. Só é acessado com o lock
+     * de escrita, exceto a cópia montada pela reconstrução antes da troca.
+     */
+    private final class Contents {
+        final Map<UUID, Indexed> products = new HashMap<>();
+        final Map<UUID, Trie> byOrganization = new HashMap<>();
+        final Trie catalog;
+
+        Contents(int topSize) {
+            this.catalog = new Trie(topSize);
+        }
+
+        void apply(ProductChangedEvent event) {
+            if (event.isDeleted()) {
+                remove(event.getProductId());
+            } else {
+                index(event.getProduct(), event.getUnitsOrdered());
+            }
+        }
+
+        void index(Product product, long addedUnits) {
+            UUID organizationId = product.getOrganization() != null ? product.getOrganization().getId() : null;
+            index(product.getId(), product.getProductName(), product.getCategory(), organizationId, addedUnits);
+        }
+
+        /**
+         * Indexa ou reindexa o produto. A popularidade acumulada é mantida e soma
+         * {@code addedUnits}.
+         */
+        void index(UUID id, String name, ProductCategory category, UUID organizationId, long addedUnits) {
+            Indexed previous = products.remove(id);
+            long unitsOrdered = addedUnits;
+            if (previous != null) {
+                apply(previous, -1);
+                unitsOrdered += previous.unitsOrdered();
+            }
+            Indexed current = new Indexed(name, category, organizationId, unitsOrdered);
+            products.put(id, current);
+            apply(current, 1);
+        }
+
+        void remove(UUID id) {
+            Indexed previous = products.remove(id);
+            if (previous != null) {
+                apply(previous, -1);
+            }
+        }
+
+        /**
+         * Soma ({@code sign} = 1) ou tira ({@code sign} = -1) o produto das entradas do nome e
+         * da categoria, no catálogo e na trie da organização.
+         */
+        private void apply(Indexed product, int sign) {
+            applyTo(catalog, product, sign);
+            if (product.organizationId() != null) {
+                Trie trie = byOrganization.computeIfAbsent(product.organizationId(), id -> new Trie(maxResults));
+                applyTo(trie, product, sign);
+                if (trie.isEmpty()) {
+                    byOrganization.remove(product.organizationId());
+                }
+            }
+        }
+
+        private void applyTo(Trie trie, Indexed product, int sign) {
+            long popularity = sign * product.unitsOrdered();
+            String name = product.name() != null ? product.name().trim() : "";
+            String foldedName = normalize(name);
+            if (!foldedName.isEmpty()) {
+                trie.adjust("p:" + foldedName, ProductSuggestion.TYPE_PRODUCT, name, name, foldedName, sign, popularity);
+            }
+            ProductCategory category = product.category();
+            if (category != null) {
+                trie.adjust("c:" + category.name(), ProductSuggestion.TYPE_CATEGORY, category.getDisplayName(), category.name(),
+                        normalize(category.getDisplayName()), sign, popularity);
+            }
+        }
+    }
+
+    /**
+     * "  Ração-Premium " vira "racao premium": dobrado e com as palavras separadas por um espaço.
+     */
+    private String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return String.join(" ", normalizer.fold(text).split("[^\\p{L}\\p{N}]+")).trim();
+    }
+
+    /**
+     * Um nome de produto (somando os produtos com o mesmo nome dobrado) ou uma categoria.
+     */
+    private static final class Entry {
+        final String key;
+        final String type;
+        final String value;
+        final String folded;
+        String text;
+        int products;
+        long popularity;
+
+        Entry(String key, String type, String text, String value, String folded) {
+            this.key = key;
+            this.type = type;
+            this.text = text;
+            this.value = value;
+            this.folded = folded;
+        }
+
+        boolean matches(String prefix) {
+            return folded.startsWith(prefix) || folded.contains(" " + prefix);
+        }
+    }
+
+    private static final class Node {
+        /** Filhos em ordem de caractere, para busca binária. */
+        char[] keys = NO_KEYS;
+        Node[] children = NO_CHILDREN;
+        /** Entradas com um token que termina neste nó. */
+        Entry[] here = NO_ENTRIES;
+        /** As melhores entradas da subárvore, já na ordem das sugestões. */
+        Entry[] top = NO_ENTRIES;
+
+        Node child(char key) {
+            int position = Arrays.binarySearch(keys, key);
+            return position >= 0 ? children[position] : null;
+        }
+
+        Node addChild(char key) {
+            int position = Arrays.binarySearch(keys, key);
+            if (position >= 0) {
+                return children[position];
+            }
+            int insertAt = -position - 1;
+            Node child = new Node();
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newKeys[insertAt] = key;
+            newChildren[insertAt] = child;
+            System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+
+        void removeChild(char key) {
+            int position = Arrays.binarySearch(keys, key);
+            if (position < 0) {
+                return;
+            }
+            char[] newKeys = new char[keys.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, position);
+            System.arraycopy(children, 0, newChildren, 0, position);
+            System.arraycopy(keys, position + 1, newKeys, position, keys.length - position - 1);
+            System.arraycopy(children, position + 1, newChildren, position, children.length - position - 1);
+            keys = newKeys;
+            children = newChildren;
+        }
+
+        boolean isEmpty() {
+            return here.length == 0 && keys.length == 0;
+        }
+    }
+
+    private static final class Trie {
+        private final int topSize;
+        private final Node root = new Node();
+        private final Map<String, Entry> entries = new HashMap<>();
+
+        Trie(int topSize) {
+            this.topSize = topSize;
+        }
+
+        boolean isEmpty() {
+            return entries.isEmpty();
+        }
+
+        /**
+         * Muda em {@code products} o número de produtos da entrada e em {@code popularity}
+         * a popularidade dela; a entrada some quando não tem mais produtos. Depois refaz as
+         * listas de melhores ao longo dos tokens dela.
+         */
+        void adjust(String key, String type, String text, String value, String folded, int products, long popularity) {
+            Entry entry = entries.get(key);
+            List<String> tokens = tokens(folded);
+            if (entry == null) {
+                if (products <= 0) {
+                    return;
+                }
+                entry = new Entry(key, type, text, value, folded);
+                entries.put(key, entry);
+                for (String token : tokens) {
+                    insert(token, entry);
+                }
+            }
+            entry.products += products;
+            entry.popularity += popularity;
+            if (entry.products <= 0) {
+                entries.remove(key);
+                for (String token : tokens) {
+                    delete(token, entry);
+                }
+            }
+            for (String token : tokens) {
+                refresh(token);
+            }
+        }
+
+        List<Entry> find(String prefix, int size) {
+            String path = prefix.length() > MAX_TOKEN_LENGTH ? prefix.substring(0, MAX_TOKEN_LENGTH) : prefix;
+            Node node = root;
+            for (int i = 0; i < path.length() && node != null; i++) {
+                node = node.child(path.charAt(i));
+            }
+            if (node == null) {
+                return List.of();
+            }
+            if (prefix.length() <= MAX_TOKEN_LENGTH) {
+                return Arrays.asList(node.top).subList(0, Math.min(size, node.top.length));
+            }
+
+            // Prefixo mais longo que os tokens: a subárvore é pequena e cada entrada é conferida.
+            Set<Entry> candidates = new LinkedHashSet<>();
+            collect(node, candidates);
+            List<Entry> matches = new ArrayList<>();
+            for (Entry entry : candidates) {
+                if (entry.matches(prefix)) {
+                    matches.add(entry);
+                }
+            }
+            matches.sort(SUGGESTION_ORDER);
+            return matches.subList(0, Math.min(size, matches.size()));
+        }
+
+        private void insert(String token, Entry entry) {
+            Node node = root;
+            for (int i = 0; i < token.length(); i++) {
+                node = node.addChild(token.charAt(i));
+            }
+            if (!Arrays.asList(node.here).contains(entry)) {
+                Entry[] here = Arrays.copyOf(node.here, node.here.length + 1);
+                here[here.length - 1] = entry;
+                node.here = here;
+            }
+        }
+
+        private void delete(String token, Entry entry) {
+            Node[] path = path(token);
+            if (path.length <= token.length()) {
+                return;
+            }
+            Node node = path[token.length()];
+            node.here = Arrays.stream(node.here).filter(e -> e != entry).toArray(Entry[]::new);
+            // Nós que ficaram sem entradas e sem filhos saem da árvore.
+            for (int depth = token.length(); depth > 0 && path[depth].isEmpty(); depth--) {
+                path[depth - 1].removeChild(token.charAt(depth - 1));
+            }
+        }
+
+        /**
+         * Refaz a lista de melhores de baixo para cima: a de um nó sai das entradas dele e
+         * das listas dos filhos.
+         */
+        private void refresh(String token) {
+            Node[] path = path(token);
+            for (int depth = path.length - 1; depth >= 0; depth--) {
+                Node node = path[depth];
+                List<Entry> candidates = new ArrayList<>(Arrays.asList(node.here));
+                for (Node child : node.children) {
+                    candidates.addAll(Arrays.asList(child.top));
+                }
+                candidates.sort(SUGGESTION_ORDER);
+
+                List<Entry> top = new ArrayList<>(Math.min(topSize, candidates.size()));
+                for (Entry candidate : candidates) {
+                    if (top.size() == topSize) {
+                        break;
+                    }
+                    // A mesma entrada pode chegar por dois tokens; iguais ficam lado a lado.
+                    if (top.isEmpty() || top.get(top.size() - 1) != candidate) {
+                        top.add(candidate);
+                    }
+                }
+                node.top = top.toArray(NO_ENTRIES);
+            }
+        }
+
+        /**
+         * Nós da raiz até onde o token existe na árvore; path[i] é o nó do prefixo de tamanho i.
+         */
+        private Node[] path(String token) {
+            List<Node> path = new ArrayList<>(token.length() + 1);
+            Node node = root;
+            path.add(node);
+            for (int i = 0; i < token.length(); i++) {
+                node = node.child(token.charAt(i));
+                if (node == null) {
+                    break;
+                }
+                path.add(node);
+            }
+            return path.toArray(NO_CHILDREN);
+        }
+
+        private static void collect(Node node, Set<Entry> entries) {
+            entries.addAll(Arrays.asList(node.here));
+            for (Node child : node.children) {
+                collect(child, entries);
+            }
+        }
+
+        /**
+         * O nome a partir do início de cada palavra, cortado em MAX_TOKEN_LENGTH.
+         */
+        private static List<String> tokens(String folded) {
+            List<String> tokens = new ArrayList<>();
+            int start = 0;
+            for (int word = 0; word < MAX_WORD_STARTS && start < folded.length(); word++) {
+                tokens.add(folded.substring(start, Math.min(folded.length(), start + MAX_TOKEN_LENGTH)));
+                int space = folded.indexOf(' ', start);
+                if (space < 0) {
+                    break;
+                }
+                start = space + 1;
+            }
+            return tokens;
+        }
+    }
+}
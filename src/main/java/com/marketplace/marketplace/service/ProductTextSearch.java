@@ -0,0 +1,61 @@
+package com.marketplace.marketplace.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.stream.Collectors;
+
+/**
+ * Motor de busca textual do catálogo. Devolve apenas os ids dos produtos, do mais
+ * para o menos relevante, já restritos à organização do usuário atual; quem chama
+ * carrega as entidades pelo repositório.
+ */
+public interface ProductTextSearch {
+
+    /**
+     * @param matchAll true exige todos os termos (filtro por nome); false aceita qualquer
+     *                 termo (busca ampla do fallback da IA)
+     */
+    List<UUID> search(String text, boolean matchAll, int limit);
+
+    /**
+     * False enquanto o motor ainda monta o índice: a listagem usa o LIKE até lá.
+     */
+    default boolean isReady() {
+        return true;
+    }
+
+    /**
+     * O filtro por nome (todos os termos) para entrar na consulta junto com preço, categoria
+     * e cursor: casa com todos os produtos, sem o limite do ranking de {@link #search}.
+     * Null quando o texto não tem termo buscável, e então nada casa.
+     * <p>
+     * O padrão é a lista inteira de ids numa constante de array.
+     */
+    default Filter filter(String text) {
+        return Filter.anyOf(search(text, true, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Predicado SQL sobre um produto: o primeiro '?' de {@code sql} é a coluna id e o
+     * segundo recebe {@code param}.
+     */
+    record Filter(String sql, Object param) {
+
+        /**
+         * Ids numa constante de array, com um parâmetro só, qualquer que seja o número de ids.
+         */
+        static Filter anyOf(Collection<UUID> ids) {
+            return new Filter("? = ANY (CAST(? AS uuid[]))",
+                    ids.stream().map(UUID::toString).collect(Collectors.joining(",", "{", "}")));
+        }
+
+        /**
+         * O SQL com {@code idColumn} no lugar do primeiro '?', para consultas nativas.
+         */
+        public String on(String idColumn) {
+            return sql.replaceFirst("\\?", Matcher.quoteReplacement(idColumn));
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.marketplace.marketplace.service;
+
+import com.marketplace.marketplace.dto.AiSearchResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decorador de {@link AiSearchService} que limita quanto uma busca pode esperar pela IA.
+ * <ul>
+ *     <li>cada chamada tem um prazo total; estourado, a busca segue para o fallback;</li>
+ *     <li>com o circuito aberto a chamada remota nem é feita;</li>
+ *     <li>com hedging, se a primeira tentativa passa do percentil configurado da
+ *     latência recente, uma segunda é disparada e vale a primeira que responder.</li>
+ * </ul>
+ * Métricas: ai.search.remote.latency{outcome} (histograma), ai.search.remote.timeouts,
+ * ai.search.remote.short_circuited, ai.search.remote.hedges{result} e ai.search.circuit.state.
+ */
+public class ResilientAiSearchService implements AiSearchService {
+
+    private final AiSearchService delegate;
+    private final ExecutorService executor;
+    private final Duration deadline;
+    private final AiCircuitBreaker circuitBreaker;
+    private final boolean hedgingEnabled;
+    private final double hedgePercentile;
+    private final long hedgeMinSamples;
+
+    private final Timer successLatency;
+    private final Timer failureLatency;
+    private final Counter timeouts;
+    private final Counter shortCircuited;
+    private final Counter hedgesLaunched;
+    private final Counter hedgesWon;
+
+    public ResilientAiSearchService(AiSearchService delegate, ExecutorService executor, Duration deadline,
+                                    AiCircuitBreaker circuitBreaker, boolean hedgingEnabled,
+                                    double hedgePercentile, long hedgeMinSamples, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.deadline = deadline;
+        this.circuitBreaker = circuitBreaker;
+        this.hedgingEnabled = hedgingEnabled;
+        this.hedgePercentile = hedgePercentile;
+        this.hedgeMinSamples = hedgeMinSamples;
+
+        this.successLatency = latencyTimer("success", meterRegistry);
+        this.failureLatency = latencyTimer("failure", meterRegistry);
+        this.timeouts = meterRegistry.counter("ai.search.remote.timeouts");
+        this.shortCircuited = meterRegistry.counter("ai.search.remote.short_circuited");
+        this.hedgesLaunched = meterRegistry.counter("ai.search.remote.hedges", "result", "launched");
+        this.hedgesWon = meterRegistry.counter("ai.search.remote.hedges", "result", "won");
+        Gauge.builder("ai.search.circuit.state", circuitBreaker, cb -> cb.getState().ordinal())
+                .description("0 = fechado, 1 = aberto, 2 = meio-aberto")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public AiSearchResponse parseSearchQuery(String query) throws Exception {
+        AiCircuitBreaker.Permit permit = circuitBreaker.tryAcquire();
+        if (permit == null) {
+            shortCircuited.increment();
+            throw new AiUnavailableException("IA indisponível no momento (circuito aberto).");
+        }
+
+        long deadlineAt = System.nanoTime() + deadline.toNanos();
+        CompletableFuture<AiSearchResponse> result = new CompletableFuture<>();
+        AtomicInteger pendingAttempts = new AtomicInteger();
+        List<Future<?>> attempts = new ArrayList<>(2);
+
+        try {
+            attempts.add(launch(query, result, pendingAttempts, false));
+
+            Long hedgeDelayNanos = hedgeDelayNanos();
+            if (hedgeDelayNanos != null && hedgeDelayNanos < deadline.toNanos()) {
+                try {
+                    AiSearchResponse response = result.get(hedgeDelayNanos, TimeUnit.NANOSECONDS);
+                    permit.onSuccess();
+                    return response;
+                } catch (TimeoutException slow) {
+                    hedgesLaunched.increment();
+                    attempts.add(launch(query, result, pendingAttempts, true));
+                }
+            }
+
+            AiSearchResponse response = result.get(Math.max(deadlineAt - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+            permit.onSuccess();
+            return response;
+
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            permit.onFailure();
+            throw new TimeoutException("A IA não respondeu em " + deadline.toMillis() + " ms.");
+        } catch (ExecutionException e) {
+            permit.onFailure();
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        } catch (RejectedExecutionException e) {
+            permit.onFailure();
+            throw new AiUnavailableException("Sem capacidade para novas chamadas à IA.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        } finally {
+            // Sem resultado (interrompida, erro inesperado): devolve a vaga do meio-aberto.
+            permit.release();
+            for (Future<?> attempt : attempts) {
+                attempt.cancel(true);
+            }
+        }
+    }
+
+    private Future<?> launch(String query, CompletableFuture<AiSearchResponse> result,
+                             AtomicInteger pendingAttempts, boolean hedge) {
+        pendingAttempts.incrementAndGet();
+        return executor.submit(() -> {
+            long start = System.nanoTime();
+            try {
+                AiSearchResponse response = delegate.parseSearchQuery(query);
+                successLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                if (result.complete(response) && hedge) {
+                    hedgesWon.increment();
+                }
+            } catch (Exception e) {
+                failureLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                if (pendingAttempts.decrementAndGet() == 0) {
+                    result.completeExceptionally(e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Atraso do hedge: o percentil configurado da latência das chamadas bem-sucedidas,
+     * ou null enquanto o hedging está desligado ou há poucas amostras.
+     */
+    private Long hedgeDelayNanos() {
+        if (!hedgingEnabled || successLatency.count() < hedgeMinSamples) {
+            return null;
+        }
+        for (ValueAtPercentile value : successLatency.takeSnapshot().percentileValues()) {
+            if (value.percentile() == hedgePercentile) {
+                return (long) value.value(TimeUnit.NANOSECONDS);
+            }
+        }
+        return null;
+    }
+
+    private Timer latencyTimer(String outcome, MeterRegistry meterRegistry) {
+        return Timer.builder("ai.search.remote.latency")
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99, hedgePercentile)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,100 @@
+package com.marketplace.marketplace.service;
+
+import org.hibernate.engine.jdbc.spi.JdbcCoordinator;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SQL escrito à mão, executado pelo JdbcCoordinator da sessão do Hibernate: mesma conexão
+ * e transação, mesmo log de SQL e contado nas estatísticas ({@code RequestDbStatistics}).
+ * O Hibernate não fica sabendo o que mudou, então nada sai do cache de segundo nível:
+ * quem chama decide o que tirar.
+ */
+final class SessionSql {
+
+    private SessionSql() {
+    }
+
+    /**
+     * Nome da tabela da entidade, já com o schema padrão quando houver um.
+     */
+    static String table(SessionImplementor session, Class<?> entity) {
+        return ((AbstractEntityPersister) session.getFactory().getMappingMetamodel()
+                .getEntityDescriptor(entity)).getTableName();
+    }
+
+    /**
+     * Um único batch JDBC; devolve as linhas afetadas por cada conjunto de parâmetros.
+     */
+    static int[] batch(SessionImplementor session, String sql, List<Object[]> rows) {
+        JdbcCoordinator jdbcCoordinator = session.getJdbcCoordinator();
+        PreparedStatement statement = jdbcCoordinator.getStatementPreparer().prepareStatement(sql);
+        try {
+            for (Object[] row : rows) {
+                bind(statement, row);
+                statement.addBatch();
+            }
+            return statement.executeBatch();
+        } catch (SQLException e) {
+            throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "Falha no batch", sql);
+        } finally {
+            release(jdbcCoordinator, statement);
+        }
+    }
+
+    static int update(SessionImplementor session, String sql, Object... params) {
+        JdbcCoordinator jdbcCoordinator = session.getJdbcCoordinator();
+        PreparedStatement statement = jdbcCoordinator.getStatementPreparer().prepareStatement(sql);
+        try {
+            bind(statement, params);
+            return jdbcCoordinator.getResultSetReturn().executeUpdate(statement, sql);
+        } catch (SQLException e) {
+            throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "Falha no update", sql);
+        } finally {
+            release(jdbcCoordinator, statement);
+        }
+    }
+
+    /**
+     * Linhas do resultado, cada uma com as {@code columns} primeiras colunas.
+     */
+    static List<Object[]> query(SessionImplementor session, String sql, int columns, Object... params) {
+        JdbcCoordinator jdbcCoordinator = session.getJdbcCoordinator();
+        PreparedStatement statement = jdbcCoordinator.getStatementPreparer().prepareStatement(sql);
+        try {
+            bind(statement, params);
+            ResultSet resultSet = jdbcCoordinator.getResultSetReturn().extract(statement, sql);
+            List<Object[]> rows = new ArrayList<>();
+            while (resultSet.next()) {
+                Object[] row = new Object[columns];
+                for (int i = 0; i < columns; i++) {
+                    row[i] = resultSet.getObject(i + 1);
+                }
+                rows.add(row);
+            }
+            return rows;
+        } catch (SQLException e) {
+            throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "Falha na consulta", sql);
+        } finally {
+            release(jdbcCoordinator, statement);
+        }
+    }
+
+    private static void bind(PreparedStatement statement, Object[] params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            statement.setObject(i + 1, params[i]);
+        }
+    }
+
+    private static void release(JdbcCoordinator jdbcCoordinator, PreparedStatement statement) {
+        // Fecha o statement e o ResultSet registrados nele.
+        jdbcCoordinator.getLogicalConnection().getResourceRegistry().release(statement);
+        jdbcCoordinator.afterStatementExecution();
+    }
+}
@@ -0,0 +1,48 @@
+package com.marketplace.marketplace.service;
+
+import com.marketplace.marketplace.dto.AiSearchResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Primeiro nível da busca por IA: tenta o {@link LocalAiSearchService} e só chama o
+ * resto da cadeia (cache, Gemini) quando a confiança local fica abaixo do limite.
+ * Métricas: ai.search.tier{tier=local|remote} (quantas consultas cada nível resolveu)
+ * e ai.search.local.confidence. Os acertos do cache, dentro do nível remoto, ficam em
+ * cache.gets{cache=aiSearch}.
+ */
+public class TieredAiSearchService implements AiSearchService {
+
+    private final LocalAiSearchService local;
+    private final AiSearchService remote;
+    private final double confidenceThreshold;
+
+    private final Counter localTier;
+    private final Counter remoteTier;
+    private final DistributionSummary confidence;
+
+    public TieredAiSearchService(LocalAiSearchService local, AiSearchService remote,
+                                 double confidenceThreshold, MeterRegistry meterRegistry) {
+        this.local = local;
+        this.remote = remote;
+        this.confidenceThreshold = confidenceThreshold;
+        this.localTier = meterRegistry.counter("ai.search.tier", "tier", "local");
+        this.remoteTier = meterRegistry.counter("ai.search.tier", "tier", "remote");
+        this.confidence = DistributionSummary.builder("ai.search.local.confidence")
+                .publishPercentiles(0.5, 0.9)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public AiSearchResponse parseSearchQuery(String query) throws Exception {
+        LocalAiSearchService.LocalParse parse = local.parse(query);
+        confidence.record(parse.getConfidence());
+        if (parse.getConfidence() >= confidenceThreshold) {
+            localTier.increment();
+            return parse.getResponse();
+        }
+        remoteTier.increment();
+        return remote.parseSearchQuery(query);
+    }
+}
@@ -0,0 +1,54 @@
+-- Schema como o ddl-auto=update o deixava antes das migrações (mesmos nomes de chaves
+-- estrangeiras). Bancos antigos entram nesta versão pelo baseline sem rodar este arquivo,
+-- então ele não muda: tabelas novas vão em migrações seguintes.
+
+CREATE TABLE organization (
+    id uuid NOT NULL,
+    name varchar(255) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE users (
+    id uuid NOT NULL,
+    organization_id uuid,
+    password varchar(255) NOT NULL,
+    role varchar(255) NOT NULL CHECK (role IN ('ROLE_ADMIN', 'ROLE_GERENTE', 'ROLE_USUARIO')),
+    username varchar(255) NOT NULL UNIQUE,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE produto (
+    price numeric(10, 2),
+    quantity integer,
+    id uuid NOT NULL,
+    organization_id uuid,
+    image_url varchar(1024),
+    amout varchar(255),
+    category varchar(255) CHECK (category IN ('ALIMENTO', 'BRINQUEDO', 'ACESSORIO', 'HIGIENE', 'MEDICAMENTO', 'OUTRO')),
+    description varchar(255),
+    product_name varchar(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE orders (
+    order_date timestamp(6),
+    id uuid NOT NULL,
+    organization_id uuid NOT NULL,
+    user_id uuid NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE order_item (
+    quantity integer NOT NULL,
+    id uuid NOT NULL,
+    order_id uuid NOT NULL,
+    product_id uuid NOT NULL,
+    PRIMARY KEY (id)
+);
+
+ALTER TABLE users ADD CONSTRAINT FK9q8fdenwsqjwrjfivd5ovv5k3 FOREIGN KEY (organization_id) REFERENCES organization;
+ALTER TABLE produto ADD CONSTRAINT FKckyjsuf82hq5vf5d339v1pg22 FOREIGN KEY (organization_id) REFERENCES organization;
+ALTER TABLE orders ADD CONSTRAINT FKrnfbar8sj4a1s8vfdyakx153d FOREIGN KEY (organization_id) REFERENCES organization;
+ALTER TABLE orders ADD CONSTRAINT FK32ql8ubntj5uh44ph9659tiih FOREIGN KEY (user_id) REFERENCES users;
+ALTER TABLE order_item ADD CONSTRAINT FKt4dc2r9nbvbujrljv3e23iibt FOREIGN KEY (order_id) REFERENCES orders;
+ALTER TABLE order_item ADD CONSTRAINT FKfiwudb3n7foxsntb4e1c2ohs3 FOREIGN KEY (product_id) REFERENCES produto;
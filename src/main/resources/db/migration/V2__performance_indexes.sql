@@ -0,0 +1,34 @@
+-- Índices das consultas quentes. IF NOT EXISTS: bancos antigos podem já ter algum criado à mão.
+-- QueryPlanTest confere, num banco semeado, que nenhuma delas volta a ser Seq Scan.
+
+-- tenantFilter (organization_id = :organizationId) do GERENTE e consultas nativas por tenant
+CREATE INDEX IF NOT EXISTS idx_produto_organization ON produto (organization_id);
+-- Filtro de categoria com faixa de preço e as páginas por keyset de price_asc/price_desc (preço, id)
+CREATE INDEX IF NOT EXISTS idx_produto_category_price ON produto (category, price, id);
+-- Mesmas páginas sem categoria, e a ordenação name_asc (nome, id)
+CREATE INDEX IF NOT EXISTS idx_produto_price ON produto (price, id);
+CREATE INDEX IF NOT EXISTS idx_produto_name ON produto (product_name, id);
+
+-- lower(product_name) LIKE '%texto%' (filtro de nome) e lower(description) LIKE no fallback da
+-- busca por IA: só um índice de trigramas serve a um LIKE com % no começo
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+DO $$
+DECLARE
+    trgm_schema text;
+BEGIN
+    -- A extensão pode já existir em outro schema (public) que não está no search_path da migração.
+    SELECT n.nspname INTO trgm_schema
+    FROM pg_extension e JOIN pg_namespace n ON n.oid = e.extnamespace
+    WHERE e.extname = 'pg_trgm';
+    EXECUTE format('CREATE INDEX IF NOT EXISTS idx_produto_name_trgm ON produto USING gin (lower(product_name) %I.gin_trgm_ops)', trgm_schema);
+    EXECUTE format('CREATE INDEX IF NOT EXISTS idx_produto_description_trgm ON produto USING gin (lower(description) %I.gin_trgm_ops)', trgm_schema);
+END $$;
+
+-- Pedidos de um usuário por data, e o tenantFilter em orders e users
+CREATE INDEX IF NOT EXISTS idx_orders_user_date ON orders (user_id, order_date);
+CREATE INDEX IF NOT EXISTS idx_orders_organization ON orders (organization_id);
+CREATE INDEX IF NOT EXISTS idx_users_organization ON users (organization_id);
+
+-- Itens de um pedido; itens de um produto (soma de unidades pedidas e exclusão em cascata)
+CREATE INDEX IF NOT EXISTS idx_order_item_order ON order_item (order_id);
+CREATE INDEX IF NOT EXISTS idx_order_item_product ON order_item (product_id);
@@ -0,0 +1,29 @@
+-- Reservas de estoque: cada carrinho segura unidades de um produto até expires_at, e
+-- produto.reserved guarda a soma dos holds vivos, para ler o disponível (quantity - reserved)
+-- sem somar holds. As duas mudam juntas, na mesma transação.
+
+ALTER TABLE produto ADD COLUMN reserved integer DEFAULT 0 NOT NULL;
+ALTER TABLE produto ADD CONSTRAINT ck_produto_reserved CHECK (reserved >= 0);
+
+CREATE TABLE inventory_hold (
+    quantity integer NOT NULL,
+    expires_at timestamp(6) NOT NULL,
+    cart_id uuid NOT NULL,
+    id uuid NOT NULL,
+    product_id uuid NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_inventory_hold_cart_product UNIQUE (cart_id, product_id)
+);
+
+-- Produto apagado leva os holds junto. Não com produto já particionado pelo TenantPartitioning:
+-- sem chave única em id, nenhuma FK aponta para ele (a conversão apagaria esta de qualquer jeito).
+DO $$
+BEGIN
+    IF (SELECT relkind FROM pg_class WHERE oid = 'produto'::regclass) <> 'p' THEN
+        ALTER TABLE inventory_hold ADD CONSTRAINT fk_inventory_hold_product
+            FOREIGN KEY (product_id) REFERENCES produto ON DELETE CASCADE;
+    END IF;
+END $$;
+
+-- A varredura dos holds vencidos
+CREATE INDEX idx_inventory_hold_expires ON inventory_hold (expires_at);
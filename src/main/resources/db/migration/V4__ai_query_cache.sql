@@ -0,0 +1,10 @@
+-- Cache das respostas da IA por consulta normalizada (CachingAiSearchService).
+-- IF NOT EXISTS: bancos criados antes desta migração podem já ter a tabela, pelo
+-- ddl-auto=update ou por uma versão anterior da V1.
+
+CREATE TABLE IF NOT EXISTS ai_query_cache (
+    created_at timestamp(6) NOT NULL,
+    normalized_query varchar(500) NOT NULL,
+    response_json text NOT NULL,
+    PRIMARY KEY (normalized_query)
+);
@@ -0,0 +1,20 @@
+-- Busca full-text do Postgres (marketplace.search.engine=postgres): nome, categoria e
+-- descrição com stemming em português, pesos A/B/C para o ts_rank. GENERATED: o Postgres
+-- mantém a coluna a cada INSERT/UPDATE, inclusive os feitos fora da aplicação.
+-- IF NOT EXISTS: bancos que já usavam este motor ganharam a coluna e o índice na subida.
+-- Os nomes da categoria seguem ProductCategory.getDisplayName().
+
+ALTER TABLE produto ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('portuguese'::regconfig, coalesce(product_name, '')), 'A') ||
+    setweight(to_tsvector('portuguese'::regconfig, CASE category
+        WHEN 'ALIMENTO' THEN 'Alimento'
+        WHEN 'BRINQUEDO' THEN 'Brinquedo'
+        WHEN 'ACESSORIO' THEN 'Acessório'
+        WHEN 'HIGIENE' THEN 'Higiene'
+        WHEN 'MEDICAMENTO' THEN 'Medicamento'
+        WHEN 'OUTRO' THEN 'Outro'
+        ELSE '' END), 'B') ||
+    setweight(to_tsvector('portuguese'::regconfig, coalesce(description, '')), 'C')
+) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_produto_search_vector ON produto USING GIN (search_vector);
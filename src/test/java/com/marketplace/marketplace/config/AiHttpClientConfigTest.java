@@ -0,0 +1,64 @@
+package com.marketplace.marketplace.config;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AiHttpClientConfigTest {
+
+    private HttpServer server;
+    private HttpComponentsClientHttpRequestFactory requestFactory;
+
+    @BeforeEach
+    void startStub() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/gemini", exchange -> {
+            byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        if (requestFactory != null) {
+            requestFactory.destroy();
+        }
+        server.stop(0);
+    }
+
+    @Test
+    void sequentialCallsReuseThePooledConnection() {
+        AiHttpClientConfig config = new AiHttpClientConfig();
+        AiSearchProperties properties = new AiSearchProperties();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        PoolingHttpClientConnectionManager connectionManager = config.aiHttpConnectionManager(properties, meterRegistry);
+        requestFactory = config.aiHttpRequestFactory(connectionManager, properties);
+        RestTemplate restTemplate = config.restTemplate(requestFactory, meterRegistry);
+
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/gemini";
+        for (int i = 0; i < 5; i++) {
+            restTemplate.postForObject(url, "{}", String.class);
+        }
+
+        assertEquals(5.0, meterRegistry.get("ai.http.client.requests").counter().count());
+        assertEquals(1.0, meterRegistry.get("ai.http.client.connections.created").counter().count());
+        assertEquals(0.8, meterRegistry.get("ai.http.client.connection.reuse").gauge().value(), 1e-9);
+        assertEquals(5, meterRegistry.get("ai.http.client.ttfb").timer().count());
+    }
+}
@@ -0,0 +1,140 @@
+package com.marketplace.marketplace.config;
+
+import com.marketplace.marketplace.Application;
+import com.marketplace.marketplace.domain.Organization;
+import com.marketplace.marketplace.domain.Role;
+import com.marketplace.marketplace.domain.User;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH: o custo por chamada de repositório do filtro de tenant, com um GERENTE logado,
+ * dentro de uma transação e de uma requisição. {@code resolveAndReapplyEveryCall} é o
+ * que o TenantFilterAspect fazia antes (unwrap da sessão, disable, leitura do
+ * SecurityContext e enable com o parâmetro); {@code tenantContext} é o caminho atual.
+ * Sobe o contexto da aplicação num schema próprio (as tabelas ficam vazias):
+ * BENCHMARK_DB_URL=jdbc:postgresql://localhost:5432/marketplace_db BENCHMARK_DB_USER=... BENCHMARK_DB_PASSWORD=...
+ * mvn test -Dtest=TenantContextBenchmark
+ */
+@EnabledIfEnvironmentVariable(named = "BENCHMARK_DB_URL", matches = ".+")
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TenantContextBenchmark {
+
+    private static final String SCHEMA = "bench_tenant";
+
+    private ConfigurableApplicationContext context;
+    private EntityManager sharedEntityManager;
+    private TenantContext tenantContext;
+    private PlatformTransactionManager transactionManager;
+    private TransactionStatus transaction;
+
+    @Test
+    void runBenchmarks() throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(TenantContextBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                // no mesmo processo do surefire: o classpath dele não é repassável a um fork
+                .forks(0)
+                .build()).run();
+    }
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        // Argumentos de linha de comando: passam por cima do application.properties.
+        context = new SpringApplicationBuilder(Application.class).run(
+                "--spring.datasource.url=" + System.getenv("BENCHMARK_DB_URL"),
+                "--spring.datasource.username=" + System.getenv("BENCHMARK_DB_USER"),
+                "--spring.datasource.password=" + System.getenv("BENCHMARK_DB_PASSWORD"),
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.flyway.enabled=false",
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.default_schema=" + SCHEMA,
+                "--spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true",
+                "--marketplace.catalog.cache.enabled=false",
+                "--server.port=0",
+                "--api.base.url=http://localhost",
+                "--gemini.api.key=benchmark",
+                "--gemini.api.url=http://localhost/benchmark");
+        sharedEntityManager = context.getBean(EntityManager.class);
+        tenantContext = context.getBean(TenantContext.class);
+        transactionManager = context.getBean(PlatformTransactionManager.class);
+    }
+
+    /**
+     * Cada iteração é uma "requisição": usuário logado, atributos de requisição novos e
+     * uma transação aberta na thread do benchmark.
+     */
+    @Setup(Level.Iteration)
+    public void beginRequest() {
+        Organization organization = new Organization();
+        organization.setId(UUID.randomUUID());
+        User manager = new User();
+        manager.setRole(Role.ROLE_GERENTE);
+        manager.setOrganization(organization);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(manager, null, manager.getAuthorities()));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        transaction = transactionManager.getTransaction(new DefaultTransactionDefinition());
+    }
+
+    @TearDown(Level.Iteration)
+    public void endRequest() {
+        transactionManager.rollback(transaction);
+        RequestContextHolder.resetRequestAttributes();
+        SecurityContextHolder.clearContext();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public Session resolveAndReapplyEveryCall() {
+        Session session = sharedEntityManager.unwrap(Session.class);
+        session.disableFilter(TenantContext.FILTER_NAME);
+        UUID organizationId = TenantContext.resolve(SecurityContextHolder.getContext().getAuthentication());
+        if (organizationId != null) {
+            session.enableFilter(TenantContext.FILTER_NAME).setParameter("organizationId", organizationId);
+        }
+        return session;
+    }
+
+    @Benchmark
+    public void tenantContext() {
+        tenantContext.applyToCurrentSession();
+    }
+}
@@ -0,0 +1,204 @@
+package com.marketplace.marketplace.config;
+
+import com.marketplace.marketplace.Application;
+import com.marketplace.marketplace.domain.Organization;
+import com.marketplace.marketplace.domain.Product;
+import com.marketplace.marketplace.domain.ProductCategory;
+import com.marketplace.marketplace.domain.Role;
+import com.marketplace.marketplace.domain.User;
+import com.marketplace.marketplace.dto.ProductDTO;
+import com.marketplace.marketplace.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH: uma página do catálogo (categoria, ordenada por preço) lida por um GERENTE, como numa
+ * requisição (transação nova por operação), com o isolamento pelo tenantFilter do Hibernate
+ * e pelas políticas de RLS do Postgres. {@code sameTenant} repete o mesmo usuário;
+ * {@code alternatingTenants} troca de organização a cada operação, o que no modo RLS faz o
+ * set_config ir ao banco na saída do pool. Há um índice (organization_id, category, price).
+ * Precisa de um Postgres descartável; sobe o contexto da aplicação num schema próprio:
+ * BENCHMARK_DB_URL=jdbc:postgresql://localhost:5432/marketplace_db BENCHMARK_DB_USER=... BENCHMARK_DB_PASSWORD=...
+ * mvn test -Dtest=TenantIsolationBenchmark (BENCHMARK_ROWS muda o tamanho, padrão 200000).
+ */
+@EnabledIfEnvironmentVariable(named = "BENCHMARK_DB_URL", matches = ".+")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TenantIsolationBenchmark {
+
+    private static final String SCHEMA = "bench_tenant_isolation";
+    private static final ProductCategory[] CATEGORIES = ProductCategory.values();
+    private static final int ORGANIZATIONS = 300;
+
+    @Param({"filter", "rls"})
+    public String isolation;
+
+    private ConfigurableApplicationContext context;
+    private ProductRepository productRepository;
+    private TransactionTemplate readOnlyTransaction;
+    private Authentication[] managers;
+    private Specification<Product> spec;
+    private Sort sort;
+    private int next;
+
+    @Test
+    void runBenchmarks() throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(TenantIsolationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                // no mesmo processo do surefire: o classpath dele não é repassável a um fork
+                .forks(0)
+                .build()).run();
+    }
+
+    @Setup(Level.Trial)
+    public void startApplication() throws Exception {
+        // Argumentos de linha de comando: passam por cima do application.properties.
+        context = new SpringApplicationBuilder(Application.class).run(
+                "--spring.datasource.url=" + System.getenv("BENCHMARK_DB_URL"),
+                "--spring.datasource.username=" + System.getenv("BENCHMARK_DB_USER"),
+                "--spring.datasource.password=" + System.getenv("BENCHMARK_DB_PASSWORD"),
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.flyway.enabled=false",
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.default_schema=" + SCHEMA,
+                "--spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true",
+                "--marketplace.tenant.isolation=" + isolation,
+                "--marketplace.catalog.cache.enabled=false",
+                "--marketplace.search.suggest.enabled=false",
+                "--server.port=0",
+                "--api.base.url=http://localhost",
+                "--gemini.api.key=benchmark",
+                "--gemini.api.url=http://localhost/benchmark");
+        productRepository = context.getBean(ProductRepository.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+        UUID[] organizations = seedCatalog(context.getBean(DataSource.class),
+                Integer.parseInt(System.getenv().getOrDefault("BENCHMARK_ROWS", "200000")));
+
+        managers = new Authentication[2];
+        for (int i = 0; i < managers.length; i++) {
+            Organization organization = new Organization();
+            organization.setId(organizations[i]);
+            User manager = new User();
+            manager.setRole(Role.ROLE_GERENTE);
+            manager.setOrganization(organization);
+            managers[i] = new UsernamePasswordAuthenticationToken(manager, null, manager.getAuthorities());
+        }
+        spec = (root, query, cb) -> cb.equal(root.get("category"), ProductCategory.ALIMENTO);
+        sort = Sort.by("price").ascending().and(Sort.by("id").ascending());
+    }
+
+    private UUID[] seedCatalog(DataSource dataSource, int rows) throws Exception {
+        // Sem usuário na thread: no modo RLS a conexão sai sem restrição.
+        UUID[] organizations = new UUID[ORGANIZATIONS];
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "INSERT INTO " + SCHEMA + ".organization (id, name) VALUES (?, ?)")) {
+                for (int i = 0; i < organizations.length; i++) {
+                    organizations[i] = UUID.randomUUID();
+                    ps.setObject(1, organizations[i]);
+                    ps.setString(2, "ONG " + i);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            try (PreparedStatement ps = connection.prepareStatement("INSERT INTO " + SCHEMA + ".produto " +
+                    "(id, product_name, description, price, quantity, image_url, category, organization_id) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+                for (int i = 0; i < rows; i++) {
+                    ps.setObject(1, UUID.randomUUID());
+                    ps.setString(2, "Produto " + i);
+                    ps.setString(3, "Doação lote " + i);
+                    ps.setBigDecimal(4, BigDecimal.valueOf((i * 7919L) % 20000, 2));
+                    ps.setInt(5, i % 50);
+                    ps.setString(6, "https://img.example/" + i + ".jpg");
+                    ps.setString(7, CATEGORIES[i % CATEGORIES.length].name());
+                    ps.setObject(8, organizations[i % organizations.length]);
+                    ps.addBatch();
+                    if (i % 1000 == 999) {
+                        ps.executeBatch();
+                    }
+                }
+                ps.executeBatch();
+            }
+            connection.commit();
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "CREATE INDEX ON " + SCHEMA + ".produto (organization_id, category, price)")) {
+                ps.execute();
+            }
+            try (PreparedStatement ps = connection.prepareStatement("ANALYZE " + SCHEMA + ".produto")) {
+                ps.execute();
+            }
+            connection.commit();
+        }
+        System.out.printf("Catálogo sintético (%s): %d produtos em %d organizações%n", isolation, rows, ORGANIZATIONS);
+        return organizations;
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        // create-drop apaga as tabelas (e as políticas junto) no fechamento do contexto.
+        context.close();
+    }
+
+    @Benchmark
+    public List<ProductDTO> sameTenant() {
+        return page(managers[0]);
+    }
+
+    @Benchmark
+    public List<ProductDTO> alternatingTenants() {
+        return page(managers[next++ & 1]);
+    }
+
+    private List<ProductDTO> page(Authentication manager) {
+        SecurityContextHolder.getContext().setAuthentication(manager);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        try {
+            return readOnlyTransaction.execute(status -> productRepository.findDtos(spec, sort, 20));
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.marketplace.marketplace.config;
+
+import com.marketplace.marketplace.Application;
+import com.marketplace.marketplace.domain.Organization;
+import com.marketplace.marketplace.domain.Product;
+import com.marketplace.marketplace.domain.ProductCategory;
+import com.marketplace.marketplace.domain.Role;
+import com.marketplace.marketplace.domain.User;
+import com.marketplace.marketplace.dto.ProductDTO;
+import com.marketplace.marketplace.repository.OrderRepository;
+import com.marketplace.marketplace.repository.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * JMH: leituras de GERENTE (uma página do catálogo por categoria e o total de pedidos da
+ * organização) com centenas de ONGs, em tabelas comuns e particionadas por organization_id.
+ * As duas têm o índice (organization_id, ...); cada operação é de uma organização diferente.
+ * No caso particionado, os dados são semeados nas tabelas comuns e convertidos pela
+ * migração de {@link TenantPartitioning}, que loga quanto levou.
+ * Precisa de um Postgres descartável; sobe o contexto da aplicação num schema próprio:
+ * BENCHMARK_DB_URL=jdbc:postgresql://localhost:5432/marketplace_db BENCHMARK_DB_USER=... BENCHMARK_DB_PASSWORD=...
+ * mvn test -Dtest=TenantPartitioningBenchmark (BENCHMARK_ROWS muda o número de produtos, padrão
+ * 200000; pedidos são um quarto disso).
+ */
+@EnabledIfEnvironmentVariable(named = "BENCHMARK_DB_URL", matches = ".+")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TenantPartitioningBenchmark {
+
+    private static final String SCHEMA = "bench_partitioning";
+    private static final ProductCategory[] CATEGORIES = ProductCategory.values();
+    private static final int ORGANIZATIONS = 300;
+
+    @Param({"false", "true"})
+    public boolean partitioned;
+
+    private ConfigurableApplicationContext context;
+    private ProductRepository productRepository;
+    private OrderRepository orderRepository;
+    private TransactionTemplate readOnlyTransaction;
+    private Authentication[] managers;
+    private Specification<Product> spec;
+    private Sort sort;
+    private int next;
+
+    @Test
+    void runBenchmarks() throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(TenantPartitioningBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                // no mesmo processo do surefire: o classpath dele não é repassável a um fork
+                .forks(0)
+                .build()).run();
+    }
+
+    @Setup(Level.Trial)
+    public void startApplication() throws Exception {
+        // Argumentos de linha de comando: passam por cima do application.properties.
+        context = new SpringApplicationBuilder(Application.class).run(
+                "--spring.datasource.url=" + System.getenv("BENCHMARK_DB_URL"),
+                "--spring.datasource.username=" + System.getenv("BENCHMARK_DB_USER"),
+                "--spring.datasource.password=" + System.getenv("BENCHMARK_DB_PASSWORD"),
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.flyway.enabled=false",
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.default_schema=" + SCHEMA,
+                "--spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true",
+                "--marketplace.catalog.cache.enabled=false",
+                "--marketplace.search.suggest.enabled=false",
+                "--server.port=0",
+                "--api.base.url=http://localhost",
+                "--gemini.api.key=benchmark",
+                "--gemini.api.url=http://localhost/benchmark");
+        productRepository = context.getBean(ProductRepository.class);
+        orderRepository = context.getBean(OrderRepository.class);
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        UUID[] organizations = seed(context.getBean(DataSource.class),
+                Integer.parseInt(System.getenv().getOrDefault("BENCHMARK_ROWS", "200000")));
+        if (partitioned) {
+            new TenantPartitioning(jdbcTemplate, transactionManager, context.getBean(EntityManagerFactory.class),
+                    SCHEMA, 16).migrate();
+        } else {
+            jdbcTemplate.execute("CREATE INDEX ON " + SCHEMA + ".produto (organization_id, category, price)");
+            jdbcTemplate.execute("CREATE INDEX ON " + SCHEMA + ".orders (organization_id, order_date)");
+            jdbcTemplate.execute("ANALYZE " + SCHEMA + ".produto");
+            jdbcTemplate.execute("ANALYZE " + SCHEMA + ".orders");
+        }
+
+        managers = new Authentication[organizations.length];
+        for (int i = 0; i < managers.length; i++) {
+            Organization organization = new Organization();
+            organization.setId(organizations[i]);
+            User manager = new User();
+            manager.setRole(Role.ROLE_GERENTE);
+            manager.setOrganization(organization);
+            managers[i] = new UsernamePasswordAuthenticationToken(manager, null, manager.getAuthorities());
+        }
+        spec = (root, query, cb) -> cb.equal(root.get("category"), ProductCategory.ALIMENTO);
+        sort = Sort.by("price").ascending().and(Sort.by("id").ascending());
+    }
+
+    private UUID[] seed(DataSource dataSource, int rows) throws Exception {
+        UUID[] organizations = new UUID[ORGANIZATIONS];
+        UUID[] users = new UUID[ORGANIZATIONS];
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "INSERT INTO " + SCHEMA + ".organization (id, name) VALUES (?, ?)")) {
+                for (int i = 0; i < organizations.length; i++) {
+                    organizations[i] = UUID.randomUUID();
+                    ps.setObject(1, organizations[i]);
+                    ps.setString(2, "ONG " + i);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            try (PreparedStatement ps = connection.prepareStatement("INSERT INTO " + SCHEMA + ".users " +
+                    "(id, username, password, role, organization_id) VALUES (?, ?, ?, ?, ?)")) {
+                for (int i = 0; i < users.length; i++) {
+                    users[i] = UUID.randomUUID();
+                    ps.setObject(1, users[i]);
+                    ps.setString(2, "usuario" + i);
+                    ps.setString(3, "-");
+                    ps.setString(4, Role.ROLE_USUARIO.name());
+                    ps.setObject(5, organizations[i]);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            try (PreparedStatement ps = connection.prepareStatement("INSERT INTO " + SCHEMA + ".produto " +
+                    "(id, product_name, description, price, quantity, image_url, category, organization_id) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+                for (int i = 0; i < rows; i++) {
+                    ps.setObject(1, UUID.randomUUID());
+                    ps.setString(2, "Produto " + i);
+                    ps.setString(3, "Doação lote " + i);
+                    ps.setBigDecimal(4, BigDecimal.valueOf((i * 7919L) % 20000, 2));
+                    ps.setInt(5, i % 50);
+                    ps.setString(6, "https://img.example/" + i + ".jpg");
+                    ps.setString(7, CATEGORIES[i % CATEGORIES.length].name());
+                    ps.setObject(8, organizations[i % organizations.length]);
+                    ps.addBatch();
+                    if (i % 1000 == 999) {
+                        ps.executeBatch();
+                    }
+                }
+                ps.executeBatch();
+            }
+            LocalDateTime start = LocalDateTime.now().minusDays(365);
+            try (PreparedStatement ps = connection.prepareStatement("INSERT INTO " + SCHEMA + ".orders " +
+                    "(id, user_id, organization_id, order_date) VALUES (?, ?, ?, ?)")) {
+                for (int i = 0; i < rows / 4; i++) {
+                    int organization = (i * 31) % organizations.length;
+                    ps.setObject(1, UUID.randomUUID());
+                    ps.setObject(2, users[organization]);
+                    ps.setObject(3, organizations[organization]);
+                    ps.setTimestamp(4, Timestamp.valueOf(start.plusMinutes(i)));
+                    ps.addBatch();
+                    if (i % 1000 == 999) {
+                        ps.executeBatch();
+                    }
+                }
+                ps.executeBatch();
+            }
+            connection.commit();
+        }
+        System.out.printf("Dados sintéticos: %d produtos e %d pedidos em %d organizações%n", rows, rows / 4, ORGANIZATIONS);
+        return organizations;
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        // create-drop apaga as tabelas (com as partições) no fechamento do contexto.
+        context.close();
+    }
+
+    @Benchmark
+    public List<ProductDTO> tenantProductPage() {
+        return asNextManager(() -> productRepository.findDtos(spec, sort, 20));
+    }
+
+    @Benchmark
+    public Long tenantOrderCount() {
+        return asNextManager(orderRepository::count);
+    }
+
+    private <T> T asNextManager(Supplier<T> read) {
+        SecurityContextHolder.getContext().setAuthentication(managers[next++ % managers.length]);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        try {
+            return readOnlyTransaction.execute(status -> read.get());
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.marketplace.marketplace.controller;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.marketplace.marketplace.dto.AiSearchResponse;
+import com.marketplace.marketplace.dto.AiSearchResult;
+import com.marketplace.marketplace.dto.SearchFilters;
+import com.marketplace.marketplace.service.ProductService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * A busca por IA em SSE com o serviço simulado e um emitter que só grava os eventos.
+ */
+class AiSearchStreamTest {
+
+    private final ProductService productService = mock(ProductService.class);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final RecordingEmitter emitter = new RecordingEmitter();
+
+    @AfterEach
+    void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void sendsKeywordMessageRefinedAndComplete() throws Exception {
+        when(productService.keywordSearch(anyString(), any())).thenReturn(result());
+        when(productService.parseAiQuery(anyString())).thenReturn(aiResponse());
+        when(productService.refineAiSearch(any(), any())).thenReturn(result());
+
+        stream().start();
+
+        assertTrue(emitter.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("keyword", "message", "refined", "complete"), emitter.events());
+    }
+
+    @Test
+    void aiFailureThatIsAnIOExceptionStillGetsTheOfflineMessage() throws Exception {
+        when(productService.keywordSearch(anyString(), any())).thenReturn(result());
+        when(productService.parseAiQuery(anyString())).thenThrow(new JsonParseException(null, "resposta do Gemini inválida"));
+
+        stream().start();
+
+        assertTrue(emitter.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("keyword", "message", "complete"), emitter.events());
+        assertTrue(emitter.payloads.get(1).contains("offline"), emitter.payloads.get(1));
+    }
+
+    @Test
+    void clientDisconnectStopsTheSearch() throws Exception {
+        emitter.failSends = true;
+        when(productService.keywordSearch(anyString(), any())).thenReturn(result());
+        when(productService.parseAiQuery(anyString())).thenReturn(aiResponse());
+
+        stream().start();
+
+        verify(productService, after(300).never()).refineAiSearch(any(), any());
+        assertFalse(emitter.completed.await(0, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void timeoutStopsStepsThatHaveNotStarted() throws Exception {
+        CountDownLatch aiCall = new CountDownLatch(1);
+        when(productService.keywordSearch(anyString(), any())).thenReturn(result());
+        when(productService.parseAiQuery(anyString())).thenAnswer(invocation -> {
+            aiCall.await();
+            return aiResponse();
+        });
+
+        stream().start();
+        for (int i = 0; i < 200 && emitter.events().isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+        emitter.timeout.run();
+        aiCall.countDown();
+
+        verify(productService, after(300).never()).refineAiSearch(any(), any());
+        assertEquals(List.of("keyword"), emitter.events());
+        assertFalse(emitter.completed.await(0, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void rejectedStepFailsTheStartAndSendsNothing() throws Exception {
+        when(productService.keywordSearch(anyString(), any())).thenReturn(result());
+        List<Runnable> accepted = new ArrayList<>();
+        Executor full = task -> {
+            if (!accepted.isEmpty()) {
+                throw new RejectedExecutionException("fila cheia");
+            }
+            accepted.add(task);
+        };
+
+        assertThrows(RejectedExecutionException.class,
+                () -> new AiSearchStream(productService, full, emitter, "ração barata", null).start());
+        accepted.forEach(Runnable::run);
+
+        verify(productService, never()).parseAiQuery(anyString());
+        assertTrue(emitter.events().isEmpty());
+    }
+
+    private AiSearchStream stream() {
+        return new AiSearchStream(productService, executor, emitter, "ração barata", null);
+    }
+
+    private static AiSearchResponse aiResponse() {
+        return new AiSearchResponse("Achei estas rações", new SearchFilters("ração", null, null, null));
+    }
+
+    private static AiSearchResult result() {
+        return new AiSearchResult(new ArrayList<>(), null, null);
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+
+        final List<String> payloads = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch completed = new CountDownLatch(1);
+        volatile boolean failSends;
+        volatile Runnable timeout;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (failSends) {
+                throw new IOException("Broken pipe");
+            }
+            StringBuilder payload = new StringBuilder();
+            for (DataWithMediaType part : builder.build()) {
+                payload.append(part.getData());
+            }
+            payloads.add(payload.toString());
+        }
+
+        @Override
+        public void send(Object object, MediaType mediaType) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+
+        @Override
+        public synchronized void onTimeout(Runnable callback) {
+            timeout = callback;
+        }
+
+        List<String> events() {
+            List<String> events = new ArrayList<>();
+            synchronized (payloads) {
+                for (String payload : payloads) {
+                    events.add(payload.substring("event:".length(), payload.indexOf('\n')));
+                }
+            }
+            return events;
+        }
+    }
+}
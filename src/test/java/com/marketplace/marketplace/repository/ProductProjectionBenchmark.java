@@ -0,0 +1,178 @@
+package com.marketplace.marketplace.repository;
+
+import com.marketplace.marketplace.Application;
+import com.marketplace.marketplace.domain.Product;
+import com.marketplace.marketplace.domain.ProductCategory;
+import com.marketplace.marketplace.dto.ProductDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import jakarta.persistence.criteria.JoinType;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * JMH: uma página do catálogo (categoria + faixa de preço, ordenada por preço) lida como
+ * entidade e convertida em ProductDTO, contra a projeção direta em ProductDTO.
+ * O GCProfiler mostra a alocação por operação (gc.alloc.rate.norm).
+ * Sobe o contexto da aplicação contra um Postgres descartável, num schema próprio:
+ * BENCHMARK_DB_URL=jdbc:postgresql://localhost:5432/marketplace_db BENCHMARK_DB_USER=... BENCHMARK_DB_PASSWORD=...
+ * mvn test -Dtest=ProductProjectionBenchmark (BENCHMARK_ROWS muda o tamanho, padrão 200000).
+ */
+@EnabledIfEnvironmentVariable(named = "BENCHMARK_DB_URL", matches = ".+")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductProjectionBenchmark {
+
+    private static final String SCHEMA = "bench_dto";
+    private static final BigDecimal MIN_PRICE = new BigDecimal("20");
+    private static final BigDecimal MAX_PRICE = new BigDecimal("180");
+    private static final ProductCategory[] CATEGORIES = ProductCategory.values();
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private ProductRepository productRepository;
+    private TransactionTemplate readOnlyTransaction;
+    private Specification<Product> spec;
+    private Sort sort;
+
+    @Test
+    void runBenchmarks() throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(ProductProjectionBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                // no mesmo processo do surefire: o classpath dele não é repassável a um fork
+                .forks(0)
+                .build()).run();
+    }
+
+    @Setup(Level.Trial)
+    public void startApplication() throws Exception {
+        // Argumentos de linha de comando: passam por cima do application.properties.
+        context = new SpringApplicationBuilder(Application.class).run(
+                "--spring.datasource.url=" + System.getenv("BENCHMARK_DB_URL"),
+                "--spring.datasource.username=" + System.getenv("BENCHMARK_DB_USER"),
+                "--spring.datasource.password=" + System.getenv("BENCHMARK_DB_PASSWORD"),
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.flyway.enabled=false",
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.default_schema=" + SCHEMA,
+                "--spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true",
+                "--marketplace.catalog.cache.enabled=false",
+                "--server.port=0",
+                "--api.base.url=http://localhost",
+                "--gemini.api.key=benchmark",
+                "--gemini.api.url=http://localhost/benchmark");
+        productRepository = context.getBean(ProductRepository.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+        seedCatalog(context.getBean(DataSource.class),
+                Integer.parseInt(System.getenv().getOrDefault("BENCHMARK_ROWS", "200000")));
+
+        spec = (root, query, cb) -> cb.and(
+                cb.equal(root.get("category"), ProductCategory.ALIMENTO),
+                cb.between(root.get("price"), MIN_PRICE, MAX_PRICE));
+        sort = Sort.by("price").ascending().and(Sort.by("id").ascending());
+    }
+
+    private void seedCatalog(DataSource dataSource, int rows) throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            UUID[] organizations = new UUID[300];
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "INSERT INTO " + SCHEMA + ".organization (id, name) VALUES (?, ?)")) {
+                for (int i = 0; i < organizations.length; i++) {
+                    organizations[i] = UUID.randomUUID();
+                    ps.setObject(1, organizations[i]);
+                    ps.setString(2, "ONG " + i);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            try (PreparedStatement ps = connection.prepareStatement("INSERT INTO " + SCHEMA + ".produto " +
+                    "(id, product_name, description, price, quantity, image_url, category, organization_id) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+                for (int i = 0; i < rows; i++) {
+                    ps.setObject(1, UUID.randomUUID());
+                    ps.setString(2, "Produto " + i);
+                    ps.setString(3, "Doação lote " + i);
+                    ps.setBigDecimal(4, BigDecimal.valueOf((i * 7919L) % 20000, 2));
+                    ps.setInt(5, i % 50);
+                    ps.setString(6, "https://img.example/" + i + ".jpg");
+                    ps.setString(7, CATEGORIES[i % CATEGORIES.length].name());
+                    ps.setObject(8, organizations[i % organizations.length]);
+                    ps.addBatch();
+                    if (i % 1000 == 999) {
+                        ps.executeBatch();
+                    }
+                }
+                ps.executeBatch();
+            }
+            connection.commit();
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "CREATE INDEX ON " + SCHEMA + ".produto (category, price)")) {
+                ps.execute();
+            }
+            connection.commit();
+        }
+        System.out.printf("Catálogo sintético: %d produtos%n", rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        // create-drop apaga as tabelas no fechamento do contexto.
+        context.close();
+    }
+
+    /** Caminho anterior: entidades com a organização em fetch join, convertidas depois. */
+    @Benchmark
+    public List<ProductDTO> entityThenMap() {
+        Specification<Product> withFetch = (root, query, cb) -> {
+            if (query.getResultType() == Product.class) {
+                root.fetch("organization", JoinType.LEFT);
+            }
+            return spec.toPredicate(root, query, cb);
+        };
+        return readOnlyTransaction.execute(status ->
+                productRepository.findBy(withFetch, q -> q.sortBy(sort).limit(pageSize).all()).stream()
+                        .map(ProductDTO::new)
+                        .collect(Collectors.toList()));
+    }
+
+    @Benchmark
+    public List<ProductDTO> dtoProjection() {
+        return readOnlyTransaction.execute(status -> productRepository.findDtos(spec, sort, pageSize));
+    }
+}
@@ -0,0 +1,250 @@
+package com.marketplace.marketplace.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketplace.marketplace.Application;
+import com.marketplace.marketplace.domain.ProductCategory;
+import com.marketplace.marketplace.domain.Role;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Os planos das consultas quentes, num schema criado pelas migrações e semeado com
+ * centenas de ONGs: nenhuma pode ler produto, orders ou order_item por Seq Scan.
+ * O SQL é o que o Hibernate gera para os Specifications de ProductSpecification e as
+ * ordenações/keyset de ProductService, reduzido ao que importa para o plano.
+ * Precisa de um Postgres descartável:
+ * BENCHMARK_DB_URL=jdbc:postgresql://localhost:5432/marketplace_db BENCHMARK_DB_USER=... BENCHMARK_DB_PASSWORD=...
+ * mvn test -Dtest=QueryPlanTest
+ */
+@EnabledIfEnvironmentVariable(named = "BENCHMARK_DB_URL", matches = ".+")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanTest {
+
+    private static final String SCHEMA = "query_plan";
+    private static final Set<String> HOT_TABLES = Set.of("produto", "orders", "order_item");
+    private static final String[] WORDS = {"racao", "petisco", "coleira", "areia", "bola", "caminha", "shampoo", "vermifugo"};
+    private static final ProductCategory[] CATEGORIES = ProductCategory.values();
+    private static final int ORGANIZATIONS = 300;
+    private static final int PRODUCTS = 100_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private UUID organization;
+    private UUID user;
+    private UUID order;
+
+    @BeforeAll
+    void migrateAndSeed() throws Exception {
+        // Argumentos de linha de comando: passam por cima do application.properties.
+        context = new SpringApplicationBuilder(Application.class).run(
+                "--spring.datasource.url=" + System.getenv("BENCHMARK_DB_URL"),
+                "--spring.datasource.username=" + System.getenv("BENCHMARK_DB_USER"),
+                "--spring.datasource.password=" + System.getenv("BENCHMARK_DB_PASSWORD"),
+                "--spring.flyway.schemas=" + SCHEMA,
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.default_schema=" + SCHEMA,
+                "--marketplace.catalog.cache.enabled=false",
+                "--marketplace.search.suggest.enabled=false",
+                "--server.port=0",
+                "--api.base.url=http://localhost",
+                "--gemini.api.key=plan",
+                "--gemini.api.url=http://localhost/plan");
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        seed(context.getBean(DataSource.class));
+        for (String table : List.of("organization", "users", "produto", "orders", "order_item")) {
+            jdbcTemplate.execute("ANALYZE " + SCHEMA + "." + table);
+        }
+    }
+
+    @AfterAll
+    void dropSchema() {
+        if (context != null) {
+            jdbcTemplate.execute("DROP SCHEMA " + SCHEMA + " CASCADE");
+            context.close();
+        }
+    }
+
+    private void seed(DataSource dataSource) throws Exception {
+        UUID[] organizations = new UUID[ORGANIZATIONS];
+        UUID[] users = new UUID[ORGANIZATIONS * 2];
+        UUID[] products = new UUID[PRODUCTS];
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "INSERT INTO " + SCHEMA + ".organization (id, name) VALUES (?, ?)")) {
+                for (int i = 0; i < organizations.length; i++) {
+                    organizations[i] = UUID.randomUUID();
+                    ps.setObject(1, organizations[i]);
+                    ps.setString(2, "ONG " + i);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            try (PreparedStatement ps = connection.prepareStatement("INSERT INTO " + SCHEMA + ".users " +
+                    "(id, username, password, role, organization_id) VALUES (?, ?, ?, ?, ?)")) {
+                for (int i = 0; i < users.length; i++) {
+                    users[i] = UUID.randomUUID();
+                    ps.setObject(1, users[i]);
+                    ps.setString(2, "usuario" + i);
+                    ps.setString(3, "-");
+                    ps.setString(4, Role.ROLE_USUARIO.name());
+                    ps.setObject(5, organizations[i % organizations.length]);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            try (PreparedStatement ps = connection.prepareStatement("INSERT INTO " + SCHEMA + ".produto " +
+                    "(id, product_name, description, price, quantity, image_url, category, organization_id) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+                for (int i = 0; i < products.length; i++) {
+                    products[i] = UUID.randomUUID();
+                    ps.setObject(1, products[i]);
+                    // Uma palavra rara a cada mil produtos, para a busca por nome ser seletiva.
+                    String word = i % 1000 == 0 ? "hamster" : WORDS[i % WORDS.length];
+                    ps.setString(2, word + " " + WORDS[(i / 7) % WORDS.length] + " " + i);
+                    ps.setString(3, "Doação lote " + i);
+                    ps.setBigDecimal(4, BigDecimal.valueOf((i * 7919L) % 20000, 2));
+                    ps.setInt(5, i % 50);
+                    ps.setString(6, "https://img.example/" + i + ".jpg");
+                    ps.setString(7, CATEGORIES[i % CATEGORIES.length].name());
+                    ps.setObject(8, organizations[i % organizations.length]);
+                    ps.addBatch();
+                    if (i % 1000 == 999) {
+                        ps.executeBatch();
+                    }
+                }
+                ps.executeBatch();
+            }
+            LocalDateTime start = LocalDateTime.now().minusDays(365);
+            try (PreparedStatement orders = connection.prepareStatement("INSERT INTO " + SCHEMA + ".orders " +
+                    "(id, user_id, organization_id, order_date) VALUES (?, ?, ?, ?)");
+                 PreparedStatement items = connection.prepareStatement("INSERT INTO " + SCHEMA + ".order_item " +
+                         "(id, order_id, product_id, quantity) VALUES (?, ?, ?, ?)")) {
+                for (int i = 0; i < PRODUCTS / 2; i++) {
+                    UUID orderId = UUID.randomUUID();
+                    int buyer = (i * 31) % users.length;
+                    orders.setObject(1, orderId);
+                    orders.setObject(2, users[buyer]);
+                    orders.setObject(3, organizations[buyer % organizations.length]);
+                    orders.setTimestamp(4, Timestamp.valueOf(start.plusMinutes(i)));
+                    orders.addBatch();
+                    for (int j = 0; j < 2; j++) {
+                        items.setObject(1, UUID.randomUUID());
+                        items.setObject(2, orderId);
+                        items.setObject(3, products[(i * 13 + j * 7) % products.length]);
+                        items.setInt(4, 1 + j);
+                        items.addBatch();
+                    }
+                    if (i % 1000 == 999) {
+                        orders.executeBatch();
+                        items.executeBatch();
+                    }
+                    if (i == 0) {
+                        order = orderId;
+                        user = users[buyer];
+                    }
+                }
+                orders.executeBatch();
+                items.executeBatch();
+            }
+            connection.commit();
+        }
+        organization = organizations[0];
+    }
+
+    @Test
+    void tenantCatalogPage() throws Exception {
+        assertNoSeqScan("SELECT p.id FROM " + SCHEMA + ".produto p WHERE p.organization_id = ? " +
+                "ORDER BY p.price, p.id LIMIT 21", organization);
+    }
+
+    @Test
+    void categoryPageByPrice() throws Exception {
+        assertNoSeqScan("SELECT p.id FROM " + SCHEMA + ".produto p WHERE p.category = ? " +
+                "ORDER BY p.price DESC, p.id LIMIT 21", ProductCategory.ALIMENTO.name());
+    }
+
+    @Test
+    void categoryAndPriceRangeAfterCursor() throws Exception {
+        assertNoSeqScan("SELECT p.id FROM " + SCHEMA + ".produto p WHERE p.category = ? AND p.price >= ? AND p.price <= ? " +
+                        "AND (p.price > ? OR (p.price = ? AND p.id > ?)) ORDER BY p.price, p.id LIMIT 21",
+                ProductCategory.BRINQUEDO.name(), new BigDecimal("20"), new BigDecimal("40"),
+                new BigDecimal("30"), new BigDecimal("30"), new UUID(0, 0));
+    }
+
+    @Test
+    void catalogPageByPrice() throws Exception {
+        assertNoSeqScan("SELECT p.id FROM " + SCHEMA + ".produto p ORDER BY p.price, p.id LIMIT 21");
+    }
+
+    @Test
+    void catalogPageByName() throws Exception {
+        assertNoSeqScan("SELECT p.id FROM " + SCHEMA + ".produto p WHERE (p.product_name > ? OR (p.product_name = ? AND p.id > ?)) " +
+                "ORDER BY p.product_name, p.id LIMIT 21", "coleira", "coleira", new UUID(0, 0));
+    }
+
+    @Test
+    void nameContains() throws Exception {
+        assertNoSeqScan("SELECT p.id FROM " + SCHEMA + ".produto p WHERE lower(p.product_name) LIKE ?", "%hamster%");
+    }
+
+    @Test
+    void aiFallbackOnNameOrDescription() throws Exception {
+        assertNoSeqScan("SELECT p.id FROM " + SCHEMA + ".produto p " +
+                "WHERE lower(p.product_name) LIKE ? OR lower(p.description) LIKE ?", "%hamster%", "%hamster%");
+    }
+
+    @Test
+    void fullTextSearch() throws Exception {
+        assertNoSeqScan("SELECT p.id FROM " + SCHEMA + ".produto p, to_tsquery('portuguese', ?) q " +
+                "WHERE p.search_vector @@ q ORDER BY ts_rank(p.search_vector, q) DESC, p.id LIMIT 1000", "hamster:*");
+    }
+
+    @Test
+    void ordersOfUserByDate() throws Exception {
+        assertNoSeqScan("SELECT o.id FROM " + SCHEMA + ".orders o WHERE o.user_id = ? ORDER BY o.order_date DESC", user);
+    }
+
+    @Test
+    void itemsOfOrder() throws Exception {
+        assertNoSeqScan("SELECT oi.id FROM " + SCHEMA + ".order_item oi WHERE oi.order_id = ?", order);
+    }
+
+    private void assertNoSeqScan(String sql, Object... params) throws Exception {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + sql, String.class, params);
+        List<String> seqScans = new ArrayList<>();
+        collectSeqScans(objectMapper.readTree(plan).get(0).get("Plan"), seqScans);
+        assertTrue(seqScans.isEmpty(), () -> "Seq Scan em " + seqScans + ":\n" + plan);
+    }
+
+    private static void collectSeqScans(JsonNode node, List<String> seqScans) {
+        if ("Seq Scan".equals(node.path("Node Type").asText())
+                && HOT_TABLES.contains(node.path("Relation Name").asText())) {
+            seqScans.add(node.path("Relation Name").asText());
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collectSeqScans(child, seqScans);
+        }
+    }
+}
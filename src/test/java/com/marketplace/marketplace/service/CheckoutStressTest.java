@@ -0,0 +1,236 @@
+package com.marketplace.marketplace.service;
+
+import com.marketplace.marketplace.Application;
+import com.marketplace.marketplace.domain.Product;
+import com.marketplace.marketplace.domain.Role;
+import com.marketplace.marketplace.domain.User;
+import com.marketplace.marketplace.dto.CartItem;
+import com.marketplace.marketplace.repository.UserRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checkouts concorrentes disputando poucos produtos com pouco estoque: cada carrinho reserva
+ * os itens antes, parte dos carrinhos é abandonada e as reservas vencem durante o teste. Nenhum
+ * produto pode ficar negativo, o que saiu do estoque tem que bater com os itens dos pedidos
+ * gravados e, depois da última varredura, não sobra reserva. Imprime os pedidos por segundo
+ * e os statements por pedido. Também dispara adições simultâneas do mesmo produto no mesmo
+ * carrinho, que têm que terminar num hold só. Precisa de um Postgres descartável; sobe o
+ * contexto da aplicação num schema próprio, criado pelas migrações do Flyway:
+ * BENCHMARK_DB_URL=jdbc:postgresql://localhost:5432/marketplace_db BENCHMARK_DB_USER=... BENCHMARK_DB_PASSWORD=...
+ * mvn test -Dtest=CheckoutStressTest (CHECKOUT_THREADS muda o número de threads, padrão 16).
+ */
+@EnabledIfEnvironmentVariable(named = "BENCHMARK_DB_URL", matches = ".+")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class CheckoutStressTest {
+
+    private static final String SCHEMA = "stress_checkout";
+    private static final int PRODUCTS = 20;
+    private static final int INITIAL_STOCK = 200;
+    private static final int CHECKOUTS_PER_THREAD = 200;
+    private static final long HOLD_TTL_MILLIS = 500;
+
+    private ConfigurableApplicationContext context;
+    private CheckoutService checkoutService;
+    private InventoryReservationService inventoryReservationService;
+    private JdbcTemplate jdbcTemplate;
+    private final List<UUID> products = new ArrayList<>();
+    private UUID organization;
+    private User buyer;
+
+    @BeforeAll
+    void startApplication() {
+        // Argumentos de linha de comando: passam por cima do application.properties.
+        context = new SpringApplicationBuilder(Application.class).run(
+                "--spring.datasource.url=" + System.getenv("BENCHMARK_DB_URL"),
+                "--spring.datasource.username=" + System.getenv("BENCHMARK_DB_USER"),
+                "--spring.datasource.password=" + System.getenv("BENCHMARK_DB_PASSWORD"),
+                "--spring.flyway.schemas=" + SCHEMA,
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.default_schema=" + SCHEMA,
+                "--marketplace.catalog.cache.enabled=false",
+                "--marketplace.search.suggest.enabled=false",
+                "--marketplace.inventory.hold-ttl=" + HOLD_TTL_MILLIS + "ms",
+                "--marketplace.inventory.sweep-interval=100ms",
+                "--server.port=0",
+                "--api.base.url=http://localhost",
+                "--gemini.api.key=stress",
+                "--gemini.api.url=http://localhost/stress");
+        checkoutService = context.getBean(CheckoutService.class);
+        inventoryReservationService = context.getBean(InventoryReservationService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        organization = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO " + SCHEMA + ".organization (id, name) VALUES (?, ?)", organization, "ONG");
+        UUID user = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO " + SCHEMA + ".users (id, username, password, role, organization_id) " +
+                "VALUES (?, ?, ?, ?, ?)", user, "comprador", "-", Role.ROLE_USUARIO.name(), organization);
+        for (int i = 0; i < PRODUCTS; i++) {
+            UUID id = UUID.randomUUID();
+            jdbcTemplate.update("INSERT INTO " + SCHEMA + ".produto (id, product_name, price, quantity, organization_id) " +
+                    "VALUES (?, ?, ?, ?, ?)", id, "Produto " + i, BigDecimal.TEN, INITIAL_STOCK, organization);
+            products.add(id);
+        }
+        buyer = context.getBean(UserRepository.class).findById(user).orElseThrow();
+    }
+
+    @AfterAll
+    void dropSchema() {
+        if (context != null) {
+            jdbcTemplate.execute("DROP SCHEMA " + SCHEMA + " CASCADE");
+            context.close();
+        }
+    }
+
+    @Test
+    void concurrentCheckoutsNeverOversell() throws Exception {
+        int threads = Integer.parseInt(System.getenv().getOrDefault("CHECKOUT_THREADS", "16"));
+        AtomicInteger placed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger abandoned = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < CHECKOUTS_PER_THREAD; i++) {
+                        UUID cartId = UUID.randomUUID();
+                        List<CartItem> cart = holdRandomCart(cartId);
+                        if (cart.isEmpty()) {
+                            rejected.incrementAndGet();
+                        } else if (ThreadLocalRandom.current().nextInt(4) == 0) {
+                            // Abandonado: a reserva fica até a varredura devolver.
+                            abandoned.incrementAndGet();
+                        } else {
+                            try {
+                                checkoutService.placeOrder(buyer, cartId, cart);
+                                placed.incrementAndGet();
+                            } catch (ResponseStatusException e) {
+                                // Só quando a reserva já venceu e o estoque livre acabou.
+                                assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+                                rejected.incrementAndGet();
+                            }
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Checkout: %d pedidos, %d recusas e %d abandonos em %.2fs com %d threads (%.0f pedidos/s)%n",
+                placed.get(), rejected.get(), abandoned.get(), seconds, threads, placed.get() / seconds);
+        DistributionSummary statements = context.getBean(MeterRegistry.class).get("checkout.statements").summary();
+        System.out.printf("Statements por pedido: média %.1f, máximo %.0f%n", statements.mean(), statements.max());
+
+        assertEquals(placed.get(), jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM " + SCHEMA + ".orders", Integer.class));
+        for (Map<String, Object> row : jdbcTemplate.queryForList("SELECT p.id, p.quantity, " +
+                "coalesce((SELECT sum(oi.quantity) FROM " + SCHEMA + ".order_item oi WHERE oi.product_id = p.id), 0) AS sold " +
+                "FROM " + SCHEMA + ".produto p")) {
+            int quantity = ((Number) row.get("quantity")).intValue();
+            int sold = ((Number) row.get("sold")).intValue();
+            assertTrue(quantity >= 0, () -> "Estoque negativo: " + row);
+            assertEquals(INITIAL_STOCK, quantity + sold, () -> "Estoque e pedidos não batem: " + row);
+        }
+
+        // Os abandonados vencem e voltam ao estoque: nada fica reservado.
+        Thread.sleep(HOLD_TTL_MILLIS * 2);
+        inventoryReservationService.sweepExpired();
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM " + SCHEMA + ".inventory_hold", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM " + SCHEMA + ".produto WHERE reserved <> 0", Integer.class));
+    }
+
+    @Test
+    void concurrentAddsToOneCartKeepASingleHold() throws Exception {
+        int threads = Integer.parseInt(System.getenv().getOrDefault("CHECKOUT_THREADS", "16"));
+        // Produto próprio: o outro teste pode ter esgotado os demais.
+        UUID productId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO " + SCHEMA + ".produto (id, product_name, price, quantity, organization_id) " +
+                "VALUES (?, ?, ?, ?, ?)", productId, "Produto disputado", BigDecimal.TEN, INITIAL_STOCK, organization);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 50; round++) {
+                UUID cartId = UUID.randomUUID();
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        inventoryReservationService.hold(cartId, productId, 2);
+                        return null;
+                    }));
+                }
+                start.countDown();
+                // Um INSERT duplicado do hold sairia aqui como violação da chave única.
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+                assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM " + SCHEMA + ".inventory_hold " +
+                        "WHERE cart_id = ?", Integer.class, cartId));
+                assertEquals(2, jdbcTemplate.queryForObject("SELECT reserved FROM " + SCHEMA + ".produto " +
+                        "WHERE id = ?", Integer.class, productId));
+                inventoryReservationService.release(cartId, productId);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Até três produtos, em qualquer ordem (o serviço é que ordena pelos ids), reservados um a
+     * um como no adicionar ao carrinho; o que não tem disponível fica fora do carrinho.
+     */
+    private List<CartItem> holdRandomCart(UUID cartId) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<CartItem> cart = new ArrayList<>();
+        for (int i = random.nextInt(1, 4); i > 0; i--) {
+            UUID productId = products.get(random.nextInt(PRODUCTS));
+            if (cart.stream().anyMatch(item -> item.getProduct().getId().equals(productId))) {
+                continue;
+            }
+            int quantity = random.nextInt(1, 4);
+            try {
+                inventoryReservationService.hold(cartId, productId, quantity);
+            } catch (ResponseStatusException e) {
+                assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+                continue;
+            }
+            Product product = new Product();
+            product.setId(productId);
+            cart.add(new CartItem(product, quantity));
+        }
+        return cart;
+    }
+}
@@ -0,0 +1,123 @@
+package com.marketplace.marketplace.service;
+
+import com.marketplace.marketplace.dto.AiSearchResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Single-flight: chamadas simultâneas para a mesma consulta normalizada chegam ao serviço
+ * remoto uma vez só, e o que o líder recebe, resposta ou falha, chega a todos.
+ */
+class CoalescingAiSearchServiceTest {
+
+    private static final int CALLERS = 8;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger remoteCalls = new AtomicInteger();
+
+    @AfterEach
+    void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentIdenticalQueriesCallTheDelegateOnce() throws Exception {
+        AiSearchResponse response = new AiSearchResponse("ok", null);
+        CoalescingAiSearchService service = coalescing(query -> response);
+
+        List<Future<AiSearchResponse>> calls = callConcurrently(service);
+        release.countDown();
+
+        for (Future<AiSearchResponse> call : calls) {
+            assertSame(response, call.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, remoteCalls.get());
+        assertEquals(CALLERS - 1, meterRegistry.get("ai.search.coalescing").tag("role", "collapsed").counter().count());
+    }
+
+    @Test
+    void leaderFailureReachesEveryWaiter() throws Exception {
+        IllegalStateException failure = new IllegalStateException("Gemini fora do ar");
+        CoalescingAiSearchService service = coalescing(query -> {
+            throw failure;
+        });
+
+        List<Future<AiSearchResponse>> calls = callConcurrently(service);
+        release.countDown();
+
+        for (Future<AiSearchResponse> call : calls) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> call.get(5, TimeUnit.SECONDS));
+            assertSame(failure, e.getCause());
+        }
+        assertEquals(1, remoteCalls.get());
+    }
+
+    @Test
+    void errorFromTheDelegateReleasesWaitersBeforeTheTimeout() throws Exception {
+        AssertionError failure = new AssertionError("erro fora de Exception");
+        CoalescingAiSearchService service = coalescing(query -> {
+            throw failure;
+        });
+
+        List<Future<AiSearchResponse>> calls = callConcurrently(service);
+        long start = System.nanoTime();
+        release.countDown();
+
+        for (Future<AiSearchResponse> call : calls) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> call.get(5, TimeUnit.SECONDS));
+            assertSame(failure, e.getCause());
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(elapsedMs < 5000, "Quem espera deveria sair com o Error do líder, levou " + elapsedMs + " ms");
+    }
+
+    /**
+     * O líder fica preso no serviço remoto até {@link #release}; devolve quando todos os
+     * outros já estão esperando por ele.
+     */
+    private List<Future<AiSearchResponse>> callConcurrently(CoalescingAiSearchService service) throws InterruptedException {
+        List<Future<AiSearchResponse>> calls = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            // Escritas diferentes, mesma consulta normalizada.
+            String query = i % 2 == 0 ? "Tem RAÇÃO barata?" : "ração   barata";
+            calls.add(executor.submit(() -> service.parseSearchQuery(query)));
+        }
+        for (int i = 0; i < 500 && collapsed() < CALLERS - 1; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(CALLERS - 1, collapsed());
+        return calls;
+    }
+
+    private double collapsed() {
+        return meterRegistry.get("ai.search.coalescing").tag("role", "collapsed").counter().count();
+    }
+
+    private CoalescingAiSearchService coalescing(AiSearchService remote) {
+        AiSearchService delegate = query -> {
+            remoteCalls.incrementAndGet();
+            release.await();
+            return remote.parseSearchQuery(query);
+        };
+        return new CoalescingAiSearchService(delegate, new AiQueryNormalizer(), Duration.ofSeconds(30), meterRegistry);
+    }
+}
@@ -0,0 +1,53 @@
+package com.marketplace.marketplace.service;
+
+import com.marketplace.marketplace.config.AiSearchProperties;
+import com.marketplace.marketplace.dto.SearchFilters;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalAiSearchServiceTest {
+
+    private final AiSearchProperties.Local defaults = new AiSearchProperties().getLocal();
+    private final LocalAiSearchService service = new LocalAiSearchService(new AiQueryNormalizer(),
+            defaults.getSynonyms(), defaults.getGenericTerms(), defaults.getCheapMaxPrice(), defaults.getExpensiveMinPrice());
+
+    @Test
+    void genericTermOnlySetsCategory() {
+        LocalAiSearchService.LocalParse parse = service.parse("tem comida?");
+
+        assertEquals("ALIMENTO", parse.getResponse().getFilters().getCategory());
+        assertNull(parse.getResponse().getFilters().getName());
+        assertEquals(1.0, parse.getConfidence());
+    }
+
+    @Test
+    void cheapestProductBecomesSortedNameAndCategory() {
+        LocalAiSearchService.LocalParse parse = service.parse("qual o feijão mais barato?");
+        SearchFilters filters = parse.getResponse().getFilters();
+
+        assertEquals("feijão", filters.getName());
+        assertEquals("ALIMENTO", filters.getCategory());
+        assertEquals("price_asc", filters.getSort());
+        assertNull(filters.getMaxPrice());
+        assertEquals(1.0, parse.getConfidence());
+    }
+
+    @Test
+    void cheapAndExpensiveBecomePriceRange() {
+        assertEquals(new BigDecimal("50"), service.parse("ração barata").getResponse().getFilters().getMaxPrice());
+        assertEquals(new BigDecimal("100"), service.parse("coleiras caras").getResponse().getFilters().getMinPrice());
+        assertEquals("ACESSORIO", service.parse("coleiras caras").getResponse().getFilters().getCategory());
+    }
+
+    @Test
+    void misspellingsAndUnknownWordsLowerConfidence() {
+        assertTrue(service.parse("presiso de um rmedio para piolho").getConfidence() < defaults.getConfidenceThreshold());
+        assertTrue(service.parse("remédio para piolho").getConfidence() < defaults.getConfidenceThreshold());
+        assertEquals(0.0, service.parse("???").getConfidence());
+    }
+}
@@ -0,0 +1,159 @@
+package com.marketplace.marketplace.service;
+
+import com.marketplace.marketplace.domain.Organization;
+import com.marketplace.marketplace.domain.Product;
+import com.marketplace.marketplace.domain.ProductCategory;
+import com.marketplace.marketplace.domain.Role;
+import com.marketplace.marketplace.domain.User;
+import com.marketplace.marketplace.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * O índice Lucene em memória, com o repositório simulado.
+ */
+class LuceneProductTextSearchTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final Organization ong = organization("ONG Patinhas");
+    private final Organization outra = organization("Abrigo Central");
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void matchesPrefixesAndIgnoresAccents() throws Exception {
+        Product racao = product("Ração Premium", ong);
+        Product coleira = product("Coleira Refletiva", ong);
+        LuceneProductTextSearch search = rebuilt(racao, coleira);
+
+        assertEquals(List.of(racao.getId()), search.search("racao", true, 10));
+        assertEquals(List.of(racao.getId()), search.search("RAÇ", true, 10));
+        assertEquals(List.of(coleira.getId()), search.search("colei", true, 10));
+        assertEquals(List.of(), search.search("racao coleira", true, 10));
+        assertEquals(2, search.search("racao coleira", false, 10).size());
+    }
+
+    @Test
+    void restrictsResultsToTheTenant() throws Exception {
+        Product nossa = product("Ração para Gatos", ong);
+        Product deles = product("Ração para Cães", outra);
+        LuceneProductTextSearch search = rebuilt(nossa, deles);
+
+        User gerente = new User();
+        gerente.setRole(Role.ROLE_GERENTE);
+        gerente.setOrganization(ong);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(gerente, null, List.of()));
+
+        assertEquals(List.of(nossa.getId()), search.search("racao", true, 10));
+        assertEquals(List.of(nossa.getId()), uuids(ids(search.filter("racao"))));
+    }
+
+    @Test
+    void followsUpdateAndDeleteEvents() throws Exception {
+        Product areia = product("Areia Sanitária", ong);
+        Product bola = product("Bola de Tênis", ong);
+        LuceneProductTextSearch search = rebuilt(areia, bola);
+
+        areia.setProductName("Areia Higiênica");
+        search.onProductChanged(ProductChangedEvent.saved(areia));
+        search.onProductChanged(ProductChangedEvent.deleted(bola.getId()));
+
+        assertEquals(List.of(areia.getId()), search.search("higienica", true, 10));
+        assertEquals(List.of(), search.search("sanitaria", true, 10));
+        assertEquals(List.of(), search.search("bola", true, 10));
+    }
+
+    @Test
+    void filterReturnsEveryHitBeyondTheRankingLimit() throws Exception {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            products.add(product("Ração " + i, ong));
+        }
+        LuceneProductTextSearch search = rebuilt(products.toArray(new Product[0]));
+
+        assertEquals(1000, search.search("racao", true, 1000).size());
+        assertEquals(1500, ids(search.filter("racao")).size());
+        assertNull(search.filter("de"));
+    }
+
+    @Test
+    void eventsDuringTheRebuildAreReplayedOnTheNewIndex() throws Exception {
+        Product petisco = product("Petisco Natural", ong);
+        Product caminha = product("Caminha Grande", ong);
+        LuceneProductTextSearch search = new LuceneProductTextSearch(productRepository);
+        when(productRepository.findAll(any(Pageable.class))).thenAnswer(invocation -> {
+            // Confirmados depois de a página ser lida: nem a exclusão nem o nome novo podem se perder.
+            caminha.setProductName("Caminha Pequena");
+            search.onProductChanged(ProductChangedEvent.saved(caminha));
+            search.onProductChanged(ProductChangedEvent.deleted(petisco.getId()));
+            return new PageImpl<>(List.of(petisco, product("Caminha Grande", ong, caminha.getId())));
+        });
+
+        assertFalse(search.isReady());
+        search.rebuildIndex();
+
+        assertTrue(search.isReady());
+        assertEquals(List.of(), search.search("petisco", true, 10));
+        assertEquals(List.of(caminha.getId()), search.search("pequena", true, 10));
+        assertEquals(List.of(), search.search("grande", true, 10));
+        assertEquals(List.of(caminha.getId()), search.search("caminha", true, 10));
+        search.close();
+    }
+
+    private LuceneProductTextSearch rebuilt(Product... products) throws Exception {
+        when(productRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(products)));
+        LuceneProductTextSearch search = new LuceneProductTextSearch(productRepository);
+        search.rebuildIndex();
+        return search;
+    }
+
+    private static List<String> ids(ProductTextSearch.Filter filter) {
+        String param = (String) filter.param();
+        String inner = param.substring(1, param.length() - 1);
+        return inner.isEmpty() ? List.of() : List.of(inner.split(","));
+    }
+
+    private static List<UUID> uuids(List<String> ids) {
+        return ids.stream().map(UUID::fromString).toList();
+    }
+
+    private static Organization organization(String name) {
+        Organization organization = new Organization();
+        organization.setId(UUID.randomUUID());
+        organization.setName(name);
+        return organization;
+    }
+
+    private static Product product(String name, Organization organization) {
+        return product(name, organization, UUID.randomUUID());
+    }
+
+    private static Product product(String name, Organization organization, UUID id) {
+        Product product = new Product();
+        product.setId(id);
+        product.setProductName(name);
+        product.setCategory(ProductCategory.OUTRO);
+        product.setOrganization(organization);
+        return product;
+    }
+}
@@ -0,0 +1,136 @@
+package com.marketplace.marketplace.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compara o LIKE do fallback da IA com o full-text search num catálogo sintético.
+ * Precisa de um Postgres descartável:
+ * BENCHMARK_DB_URL=jdbc:postgresql://localhost:5432/marketplace_db BENCHMARK_DB_USER=... BENCHMARK_DB_PASSWORD=...
+ * mvn test -Dtest=PostgresProductTextSearchBenchmark (BENCHMARK_ROWS muda o tamanho, padrão 200000).
+ */
+@EnabledIfEnvironmentVariable(named = "BENCHMARK_DB_URL", matches = ".+")
+class PostgresProductTextSearchBenchmark {
+
+    private static final String[] QUERIES = {"ração", "remédio piolho", "brinquedo", "coleira cães", "vermífugo"};
+    private static final int RUNS = 15;
+
+    private static Connection connection;
+
+    @BeforeAll
+    static void seedCatalog() throws Exception {
+        connection = DriverManager.getConnection(System.getenv("BENCHMARK_DB_URL"),
+                System.getenv("BENCHMARK_DB_USER"), System.getenv("BENCHMARK_DB_PASSWORD"));
+        int rows = Integer.parseInt(System.getenv().getOrDefault("BENCHMARK_ROWS", "200000"));
+
+        try (Statement st = connection.createStatement()) {
+            st.execute("DROP SCHEMA IF EXISTS bench_fts CASCADE");
+            st.execute("CREATE SCHEMA bench_fts");
+            st.execute("CREATE TABLE bench_fts.produto (id uuid PRIMARY KEY, product_name varchar(255), " +
+                    "description varchar(255), category varchar(255), price numeric(10,2), organization_id uuid)");
+        }
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO bench_fts.produto (id, product_name, description, category, price, organization_id) " +
+                "SELECT gen_random_uuid(), " +
+                "(ARRAY['Ração','Feijão','Arroz','Coleira','Bola','Shampoo','Remédio','Brinquedo','Petisco','Vermífugo'])[1 + i % 10] || ' ' || substr(md5(i::text), 1, 8), " +
+                "'Doação ' || (ARRAY['para cães','para gatos','contra piolho','contra pulgas','para filhotes','para adultos'])[1 + i % 6] || ' lote ' || i, " +
+                "(ARRAY['ALIMENTO','BRINQUEDO','ACESSORIO','HIGIENE','MEDICAMENTO','OUTRO'])[1 + i % 6], " +
+                "round((random() * 200)::numeric, 2), md5('org' || (i % 300))::uuid " +
+                "FROM generate_series(1, ?) AS s(i)")) {
+            ps.setInt(1, rows);
+            ps.executeUpdate();
+        }
+        try (Statement st = connection.createStatement()) {
+            st.execute("SET search_path TO bench_fts");
+            // A mesma coluna e o mesmo índice da migração.
+            st.execute(new String(PostgresProductTextSearchBenchmark.class
+                    .getResourceAsStream("/db/migration/V5__product_search_vector.sql").readAllBytes(), StandardCharsets.UTF_8));
+            st.execute("ANALYZE produto");
+        }
+        System.out.printf("Catálogo sintético: %d produtos%n", rows);
+    }
+
+    @AfterAll
+    static void dropCatalog() throws Exception {
+        if (connection != null) {
+            try (Statement st = connection.createStatement()) {
+                st.execute("DROP SCHEMA IF EXISTS bench_fts CASCADE");
+            }
+            connection.close();
+        }
+    }
+
+    @Test
+    void compareLikeScanWithFullTextSearch() throws Exception {
+        String like = "SELECT p.id FROM produto p WHERE lower(coalesce(p.product_name, '')) LIKE ? " +
+                "OR lower(coalesce(p.description, '')) LIKE ? OR lower(coalesce(p.category, '')) LIKE ?";
+        String fts = "SELECT p.id FROM produto p, to_tsquery('portuguese', ?) q WHERE p.search_vector @@ q " +
+                "ORDER BY ts_rank(p.search_vector, q) DESC, p.id LIMIT 1000";
+
+        double likeTotal = 0;
+        double ftsTotal = 0;
+        for (String query : QUERIES) {
+            String pattern = "%" + query.toLowerCase() + "%";
+            String tsQuery = PostgresProductTextSearch.toTsQuery(query, false);
+
+            double likeMs = medianMillis(like, pattern, pattern, pattern);
+            double ftsMs = medianMillis(fts, tsQuery);
+            likeTotal += likeMs;
+            ftsTotal += ftsMs;
+
+            System.out.printf("%-16s LIKE %8.2f ms | FTS %8.2f ms | plano FTS: %s%n",
+                    query, likeMs, ftsMs, planOf(fts, tsQuery));
+        }
+        System.out.printf("Total: LIKE %.2f ms, FTS %.2f ms (%.1fx)%n", likeTotal, ftsTotal, likeTotal / ftsTotal);
+        assertTrue(ftsTotal < likeTotal, "A busca full-text deveria ser mais rápida que o LIKE");
+    }
+
+    private double medianMillis(String sql, Object... params) throws Exception {
+        List<Double> samples = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, params[i]);
+            }
+            for (int run = 0; run < RUNS; run++) {
+                long start = System.nanoTime();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        rs.getObject(1);
+                    }
+                }
+                samples.add((System.nanoTime() - start) / 1_000_000.0);
+            }
+        }
+        Collections.sort(samples);
+        return samples.get(samples.size() / 2);
+    }
+
+    private String planOf(String sql, Object... params) throws Exception {
+        StringBuilder plan = new StringBuilder();
+        try (PreparedStatement ps = connection.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    plan.append(rs.getString(1).trim()).append(" / ");
+                }
+            }
+        }
+        return plan.toString();
+    }
+}
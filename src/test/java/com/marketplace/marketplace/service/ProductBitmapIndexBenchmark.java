@@ -0,0 +1,172 @@
+package com.marketplace.marketplace.service;
+
+import com.marketplace.marketplace.domain.ProductCategory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH: página filtrada por categoria + faixa de preço (+ tenant) pelo SQL que o
+ * Specification gera contra o índice de bitmaps seguido da busca dos ids da página.
+ * Precisa de um Postgres descartável:
+ * BENCHMARK_DB_URL=jdbc:postgresql://localhost:5432/marketplace_db BENCHMARK_DB_USER=... BENCHMARK_DB_PASSWORD=...
+ * mvn test -Dtest=ProductBitmapIndexBenchmark (BENCHMARK_ROWS muda o tamanho, padrão 200000).
+ */
+@EnabledIfEnvironmentVariable(named = "BENCHMARK_DB_URL", matches = ".+")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductBitmapIndexBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+    private static final BigDecimal MIN_PRICE = new BigDecimal("20");
+    private static final BigDecimal MAX_PRICE = new BigDecimal("80");
+    private static final String COLUMNS = "p.id, p.product_name, p.description, p.category, p.price, p.organization_id";
+
+    /** Com tenant = usuário de uma ONG; sem = anônimo/ADMIN. */
+    @Param({"true", "false"})
+    public boolean tenantScoped;
+
+    private Connection connection;
+    private ProductBitmapIndex index;
+    private UUID organizationId;
+    private PreparedStatement specificationQuery;
+    private PreparedStatement pageByIds;
+
+    @Test
+    void runBenchmarks() throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(ProductBitmapIndexBenchmark.class.getSimpleName())
+                // no mesmo processo do surefire: o classpath dele não é repassável a um fork
+                .forks(0)
+                .build()).run();
+    }
+
+    @Setup(Level.Trial)
+    public void seedCatalog() throws Exception {
+        connection = DriverManager.getConnection(System.getenv("BENCHMARK_DB_URL"),
+                System.getenv("BENCHMARK_DB_USER"), System.getenv("BENCHMARK_DB_PASSWORD"));
+        int rows = Integer.parseInt(System.getenv().getOrDefault("BENCHMARK_ROWS", "200000"));
+
+        try (Statement st = connection.createStatement()) {
+            st.execute("DROP SCHEMA IF EXISTS bench_bitmap CASCADE");
+            st.execute("CREATE SCHEMA bench_bitmap");
+            st.execute("SET search_path TO bench_bitmap");
+            st.execute("CREATE TABLE produto (id uuid PRIMARY KEY, product_name varchar(255), description varchar(255), " +
+                    "category varchar(255), price numeric(10,2), organization_id uuid)");
+        }
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO produto (id, product_name, description, category, price, organization_id) " +
+                "SELECT gen_random_uuid(), 'Produto ' || i, 'Doação lote ' || i, " +
+                "(ARRAY['ALIMENTO','BRINQUEDO','ACESSORIO','HIGIENE','MEDICAMENTO','OUTRO'])[1 + i % 6], " +
+                "round((random() * 200)::numeric, 2), md5('org' || (i % 300))::uuid " +
+                "FROM generate_series(1, ?) AS s(i)")) {
+            ps.setInt(1, rows);
+            ps.executeUpdate();
+        }
+        try (Statement st = connection.createStatement()) {
+            // O que o Hibernate usaria: índices nas colunas filtradas.
+            st.execute("CREATE INDEX ON produto (organization_id)");
+            st.execute("CREATE INDEX ON produto (category, price)");
+            st.execute("ANALYZE produto");
+        }
+
+        index = new ProductBitmapIndex(null, List.of(new BigDecimal("10"), new BigDecimal("25"), new BigDecimal("50"),
+                new BigDecimal("100"), new BigDecimal("200"), new BigDecimal("500")));
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT id, category, organization_id, price FROM produto")) {
+            while (rs.next()) {
+                index.index(rs.getObject(1, UUID.class), ProductCategory.valueOf(rs.getString(2)),
+                        rs.getObject(3, UUID.class), rs.getBigDecimal(4));
+            }
+        }
+        index.markReady();
+        organizationId = UUID.nameUUIDFromBytes("bench".getBytes());
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT organization_id FROM produto LIMIT 1")) {
+            rs.next();
+            organizationId = rs.getObject(1, UUID.class);
+        }
+
+        specificationQuery = connection.prepareStatement("SELECT " + COLUMNS + " FROM produto p " +
+                "WHERE p.category = ? AND p.price >= ? AND p.price <= ?" +
+                (tenantScoped ? " AND p.organization_id = ?" : "") +
+                " ORDER BY p.price, p.id LIMIT " + (PAGE_SIZE + 1));
+        pageByIds = connection.prepareStatement("SELECT " + COLUMNS + " FROM produto p WHERE p.id = ANY(?)");
+        System.out.printf("Catálogo sintético: %d produtos%n", rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void dropCatalog() throws Exception {
+        try (Statement st = connection.createStatement()) {
+            st.execute("DROP SCHEMA IF EXISTS bench_bitmap CASCADE");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public void specificationPath(Blackhole blackhole) throws Exception {
+        specificationQuery.setString(1, ProductCategory.ALIMENTO.name());
+        specificationQuery.setBigDecimal(2, MIN_PRICE);
+        specificationQuery.setBigDecimal(3, MAX_PRICE);
+        if (tenantScoped) {
+            specificationQuery.setObject(4, organizationId);
+        }
+        consume(specificationQuery, blackhole);
+    }
+
+    @Benchmark
+    public void bitmapIndexPath(Blackhole blackhole) throws Exception {
+        RoaringBitmap matches = index.match(ProductCategory.ALIMENTO.name(), MIN_PRICE, MAX_PRICE,
+                tenantScoped ? organizationId : null);
+        List<UUID> page = index.findPage(matches, "price_asc", null, PAGE_SIZE + 1);
+        Array ids = connection.createArrayOf("uuid", page.toArray());
+        pageByIds.setArray(1, ids);
+        consume(pageByIds, blackhole);
+    }
+
+    @Benchmark
+    public void bitmapIndexOnly(Blackhole blackhole) {
+        RoaringBitmap matches = index.match(ProductCategory.ALIMENTO.name(), MIN_PRICE, MAX_PRICE,
+                tenantScoped ? organizationId : null);
+        blackhole.consume(index.findPage(matches, "price_asc", null, PAGE_SIZE + 1));
+    }
+
+    private void consume(PreparedStatement statement, Blackhole blackhole) throws Exception {
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                blackhole.consume(rs.getObject(1));
+                blackhole.consume(rs.getString(2));
+                blackhole.consume(rs.getBigDecimal(5));
+            }
+        }
+    }
+}
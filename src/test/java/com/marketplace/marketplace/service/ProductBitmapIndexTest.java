@@ -0,0 +1,181 @@
+package com.marketplace.marketplace.service;
+
+import com.marketplace.marketplace.domain.Product;
+import com.marketplace.marketplace.domain.ProductCategory;
+import com.marketplace.marketplace.repository.ProductFacetQuery;
+import com.marketplace.marketplace.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Confere o índice contra um filtro/ordenação feitos na mão, com a semântica do Postgres.
+ */
+class ProductBitmapIndexTest {
+
+    private record Row(UUID id, ProductCategory category, UUID organizationId, BigDecimal price) {}
+
+    private static final Comparator<UUID> PG_UUID = ProductBitmapIndex::compareUuids;
+
+    private final List<UUID> organizations = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+    private final List<Row> rows = new ArrayList<>();
+    private ProductBitmapIndex index;
+
+    @BeforeEach
+    void seed() {
+        index = new ProductBitmapIndex(null, List.of(new BigDecimal("10"), new BigDecimal("50"), new BigDecimal("100")));
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            ProductCategory category = random.nextInt(10) == 0 ? null : ProductCategory.values()[random.nextInt(ProductCategory.values().length)];
+            UUID organization = random.nextInt(10) == 0 ? null : organizations.get(random.nextInt(organizations.size()));
+            BigDecimal price = random.nextInt(10) == 0 ? null : BigDecimal.valueOf(random.nextInt(20000), 2);
+            Row row = new Row(UUID.randomUUID(), category, organization, price);
+            rows.add(row);
+            index.index(row.id(), row.category(), row.organizationId(), row.price());
+        }
+        index.markReady();
+    }
+
+    @Test
+    void matchesTheSamePredicatesAsTheSpecification() {
+        BigDecimal min = new BigDecimal("25.50");
+        BigDecimal max = new BigDecimal("120.00");
+        UUID organization = organizations.get(1);
+
+        RoaringBitmap matches = index.match("alimento", min, max, organization);
+        List<UUID> expected = rows.stream()
+                .filter(r -> r.category() == ProductCategory.ALIMENTO && organization.equals(r.organizationId()))
+                .filter(r -> r.price() != null && r.price().compareTo(min) >= 0 && r.price().compareTo(max) <= 0)
+                .map(Row::id).sorted(PG_UUID).collect(Collectors.toList());
+
+        assertEquals(expected, index.findAll(matches, ProductCursor.SORT_ID));
+    }
+
+    @Test
+    void updatesAndDeletesAreReflected() {
+        Row row = rows.get(0);
+        index.index(row.id(), ProductCategory.OUTRO, organizations.get(0), new BigDecimal("5.00"));
+        assertEquals(true, index.findAll(index.match("OUTRO", null, new BigDecimal("5"), organizations.get(0)), "id").contains(row.id()));
+
+        index.remove(row.id());
+        assertEquals(false, index.findAll(index.match(null, null, null, null), "id").contains(row.id()));
+    }
+
+    @Test
+    void facetsIgnoreTheirOwnFilter() {
+        BigDecimal min = new BigDecimal("25.50");
+        BigDecimal max = new BigDecimal("120.00");
+        ProductFacetQuery.Counts counts = index.facets("ALIMENTO", min, max, null);
+
+        Predicate<Row> inPriceRange = r -> r.price() != null && r.price().compareTo(min) >= 0 && r.price().compareTo(max) <= 0;
+        Predicate<Row> inCategory = r -> r.category() == ProductCategory.ALIMENTO;
+
+        for (ProductCategory category : ProductCategory.values()) {
+            long expected = rows.stream().filter(inPriceRange).filter(r -> r.category() == category).count();
+            assertEquals(expected, counts.categories().getOrDefault(category, 0L), category.name());
+        }
+        for (UUID organization : organizations) {
+            long expected = rows.stream().filter(inPriceRange.and(inCategory))
+                    .filter(r -> organization.equals(r.organizationId())).count();
+            assertEquals(expected, counts.organizations().getOrDefault(organization, 0L));
+        }
+        assertEquals(rows.stream().filter(inPriceRange.and(inCategory)).filter(r -> r.organizationId() == null).count(),
+                counts.withoutOrganization());
+
+        // Faixas do índice: <10, [10, 50), [50, 100), >=100
+        BigDecimal[] bounds = {new BigDecimal("10"), new BigDecimal("50"), new BigDecimal("100")};
+        for (int bucket = 0; bucket <= bounds.length; bucket++) {
+            BigDecimal low = bucket == 0 ? null : bounds[bucket - 1];
+            BigDecimal high = bucket == bounds.length ? null : bounds[bucket];
+            long expected = rows.stream().filter(inCategory).filter(r -> r.price() != null)
+                    .filter(r -> low == null || r.price().compareTo(low) >= 0)
+                    .filter(r -> high == null || r.price().compareTo(high) < 0)
+                    .count();
+            assertEquals(expected, counts.priceBuckets()[bucket], "faixa " + bucket);
+        }
+    }
+
+    @Test
+    void keysetPagesFollowPostgresOrderWithNullsLastAscending() {
+        assertPagesMatch("price_asc", Comparator.comparing(Row::price, Comparator.nullsLast(Comparator.naturalOrder())));
+        assertPagesMatch("price_desc", Comparator.comparing(Row::price, Comparator.nullsFirst(Comparator.<BigDecimal>reverseOrder())));
+    }
+
+    @Test
+    void rebuildAppliesEventsThatArriveMidwayWithoutTouchingTheLiveIndex() {
+        ProductRepository productRepository = mock(ProductRepository.class);
+        ProductBitmapIndex rebuilding = new ProductBitmapIndex(productRepository, List.of(new BigDecimal("10")));
+        Product kept = product(ProductCategory.ALIMENTO, "5.00");
+        Product repriced = product(ProductCategory.ALIMENTO, "5.00");
+        Product deleted = product(ProductCategory.ALIMENTO, "5.00");
+        Product before = product(ProductCategory.OUTRO, "1.00");
+        rebuilding.onProductChanged(ProductChangedEvent.saved(before));
+        rebuilding.markReady();
+
+        when(productRepository.findAll(any(Pageable.class))).thenAnswer(invocation -> {
+            // Confirmados depois da leitura da página: uma troca de preço e uma exclusão.
+            Product newPrice = product(ProductCategory.ALIMENTO, "20.00");
+            newPrice.setId(repriced.getId());
+            rebuilding.onProductChanged(ProductChangedEvent.saved(newPrice));
+            rebuilding.onProductChanged(ProductChangedEvent.deleted(deleted.getId()));
+            // O índice em uso continua inteiro enquanto o novo é montado.
+            assertEquals(List.of(before.getId()), rebuilding.findAll(rebuilding.match("OUTRO", null, null, null), "id"));
+            return new PageImpl<>(List.of(kept, repriced, deleted));
+        });
+
+        rebuilding.rebuildIndex();
+
+        assertEquals(List.of(kept.getId(), repriced.getId()),
+                rebuilding.findAll(rebuilding.match("ALIMENTO", null, null, null), "price_asc"));
+        assertEquals(List.of(repriced.getId()),
+                rebuilding.findAll(rebuilding.match(null, new BigDecimal("10"), null, null), "id"));
+        assertEquals(Map.of(ProductCategory.ALIMENTO, 2L), rebuilding.facets(null, null, null, null).categories());
+    }
+
+    private static Product product(ProductCategory category, String price) {
+        Product product = new Product();
+        product.setId(UUID.randomUUID());
+        product.setProductName(category.name());
+        product.setCategory(category);
+        product.setPrice(new BigDecimal(price));
+        return product;
+    }
+
+    private void assertPagesMatch(String sortKey, Comparator<Row> byPrice) {
+        List<UUID> expected = rows.stream()
+                .sorted(byPrice.thenComparing(Row::id, PG_UUID))
+                .map(Row::id).collect(Collectors.toList());
+
+        RoaringBitmap all = index.match(null, null, null, null);
+        List<UUID> paged = new ArrayList<>();
+        ProductCursor after = null;
+        while (true) {
+            List<UUID> page = index.findPage(all, sortKey, after, 97);
+            if (page.isEmpty()) {
+                break;
+            }
+            paged.addAll(page);
+            UUID last = page.get(page.size() - 1);
+            BigDecimal price = rows.stream().filter(r -> r.id().equals(last)).findFirst().orElseThrow().price();
+            after = new ProductCursor(sortKey, last, price != null ? price.toPlainString() : null);
+        }
+        assertEquals(expected, paged);
+    }
+}
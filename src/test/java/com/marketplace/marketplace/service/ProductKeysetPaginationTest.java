@@ -0,0 +1,100 @@
+package com.marketplace.marketplace.service;
+
+import com.marketplace.marketplace.Application;
+import com.marketplace.marketplace.dto.ProductDTO;
+import com.marketplace.marketplace.dto.ProductPage;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Percorre o catálogo página a página em cada ordenação, com preços e nomes repetidos e
+ * nulos, e compara com a mesma ordem lida de uma vez: o predicado de keyset tem que seguir
+ * o lugar dos NULLs no Postgres (últimos em ASC, primeiros em DESC). Precisa de um Postgres
+ * descartável; sobe o contexto da aplicação num schema próprio, criado pelas migrações:
+ * BENCHMARK_DB_URL=jdbc:postgresql://localhost:5432/marketplace_db BENCHMARK_DB_USER=... BENCHMARK_DB_PASSWORD=...
+ * mvn test -Dtest=ProductKeysetPaginationTest
+ */
+@EnabledIfEnvironmentVariable(named = "BENCHMARK_DB_URL", matches = ".+")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ProductKeysetPaginationTest {
+
+    private static final String SCHEMA = "keyset_pagination";
+    private static final String[] PRICES = {"10.00", "10.00", null, "5.50", null, "99.90", "5.50"};
+    private static final String[] NAMES = {"bola", "bola", null, "areia", "coleira"};
+    private static final Map<String, String> ORDER_BY = Map.of(
+            "price_asc", "price ASC, id",
+            "price_desc", "price DESC, id",
+            "name_asc", "product_name ASC, id",
+            "id", "id");
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void startApplication() {
+        // Argumentos de linha de comando: passam por cima do application.properties.
+        context = new SpringApplicationBuilder(Application.class).run(
+                "--spring.datasource.url=" + System.getenv("BENCHMARK_DB_URL"),
+                "--spring.datasource.username=" + System.getenv("BENCHMARK_DB_USER"),
+                "--spring.datasource.password=" + System.getenv("BENCHMARK_DB_PASSWORD"),
+                "--spring.flyway.schemas=" + SCHEMA,
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.default_schema=" + SCHEMA,
+                "--marketplace.catalog.cache.enabled=false",
+                "--marketplace.search.suggest.enabled=false",
+                "--marketplace.search.bitmap-index.enabled=false",
+                "--server.port=0",
+                "--api.base.url=http://localhost",
+                "--gemini.api.key=keyset",
+                "--gemini.api.url=http://localhost/keyset");
+        productService = context.getBean(ProductService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        for (int i = 0; i < 40; i++) {
+            String price = PRICES[i % PRICES.length];
+            jdbcTemplate.update("INSERT INTO " + SCHEMA + ".produto (id, product_name, price, quantity) VALUES (?, ?, ?, ?)",
+                    UUID.randomUUID(), NAMES[i % NAMES.length], price != null ? new BigDecimal(price) : null, 1);
+        }
+    }
+
+    @AfterAll
+    void dropSchema() {
+        if (context != null) {
+            jdbcTemplate.execute("DROP SCHEMA " + SCHEMA + " CASCADE");
+            context.close();
+        }
+    }
+
+    @Test
+    void pagesFollowTheDatabaseOrderIncludingNulls() {
+        ORDER_BY.forEach((sort, orderBy) -> {
+            List<UUID> expected = jdbcTemplate.queryForList(
+                    "SELECT id FROM " + SCHEMA + ".produto ORDER BY " + orderBy, UUID.class);
+
+            List<UUID> walked = new ArrayList<>();
+            String cursor = null;
+            do {
+                ProductPage page = productService.findPageWithFilters(null, null, null, null, sort, cursor, 3, false);
+                page.getItems().stream().map(ProductDTO::getId).forEach(walked::add);
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+
+            assertEquals(expected, walked, sort);
+        });
+    }
+}
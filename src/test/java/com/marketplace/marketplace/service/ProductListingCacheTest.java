@@ -0,0 +1,93 @@
+package com.marketplace.marketplace.service;
+
+import com.marketplace.marketplace.domain.Product;
+import com.marketplace.marketplace.domain.ProductCategory;
+import com.marketplace.marketplace.dto.ProductDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProductListingCacheTest {
+
+    private final ProductListingCache cache = new ProductListingCache(DataSize.ofMegabytes(1), Duration.ofMinutes(10), new SimpleMeterRegistry());
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void repeatedTupleIsServedFromCache() {
+        Product food = product(ProductCategory.ALIMENTO, "10.00");
+
+        list("ALIMENTO", null, food);
+        list("alimento", null, food);
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void changeToCachedProductInvalidatesTheListing() {
+        Product food = product(ProductCategory.ALIMENTO, "10.00");
+        list("ALIMENTO", null, food);
+
+        food.setQuantity(0);
+        cache.onProductChanged(ProductChangedEvent.saved(food));
+        list("ALIMENTO", null, food);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void newProductOnlyInvalidatesListingsItCouldAppearIn() {
+        Product food = product(ProductCategory.ALIMENTO, "10.00");
+        Product toy = product(ProductCategory.BRINQUEDO, "10.00");
+        list("ALIMENTO", new BigDecimal("50"), food);
+        list("BRINQUEDO", null, toy);
+
+        cache.onProductChanged(ProductChangedEvent.saved(product(ProductCategory.ALIMENTO, "80.00")));
+        list("ALIMENTO", new BigDecimal("50"), food);
+        assertEquals(2, loads.get());
+
+        cache.onProductChanged(ProductChangedEvent.saved(product(ProductCategory.BRINQUEDO, "5.00")));
+        list("ALIMENTO", new BigDecimal("50"), food);
+        list("BRINQUEDO", null, toy);
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void resultReadBeforeAWriteIsNotCached() {
+        Product food = product(ProductCategory.ALIMENTO, "10.00");
+        ProductListingCache.Key key = cache.key(null, null, null, "ALIMENTO", null, null, null, false);
+
+        cache.get(key, () -> {
+            loads.incrementAndGet();
+            cache.onProductChanged(ProductChangedEvent.deleted(UUID.randomUUID()));
+            return List.of(new ProductDTO(food));
+        }, dtos -> dtos);
+        list("ALIMENTO", null, food);
+
+        assertEquals(2, loads.get());
+    }
+
+    private void list(String category, BigDecimal maxPrice, Product result) {
+        cache.get(cache.key(null, null, maxPrice, category, null, null, null, false), () -> {
+            loads.incrementAndGet();
+            return List.of(new ProductDTO(result));
+        }, dtos -> dtos);
+    }
+
+    private Product product(ProductCategory category, String price) {
+        Product product = new Product();
+        product.setId(UUID.randomUUID());
+        product.setProductName("Produto");
+        product.setCategory(category);
+        product.setPrice(new BigDecimal(price));
+        product.setQuantity(10);
+        return product;
+    }
+}
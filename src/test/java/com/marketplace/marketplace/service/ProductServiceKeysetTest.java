@@ -0,0 +1,104 @@
+package com.marketplace.marketplace.service;
+
+import com.marketplace.marketplace.config.AiSearchProperties;
+import com.marketplace.marketplace.config.SearchExecutors;
+import com.marketplace.marketplace.domain.Product;
+import com.marketplace.marketplace.dto.ProductDTO;
+import com.marketplace.marketplace.dto.ProductPage;
+import com.marketplace.marketplace.repository.OrganizationRepository;
+import com.marketplace.marketplace.repository.ProductCountEstimator;
+import com.marketplace.marketplace.repository.ProductFacetQuery;
+import com.marketplace.marketplace.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Paginação por keyset com o banco simulado: cursores inválidos viram 400 e a página
+ * lida com um item a mais é cortada com o cursor do último item. A ordem dos NULLs no
+ * banco fica com o ProductKeysetPaginationTest.
+ */
+class ProductServiceKeysetTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductService service = new ProductService(productRepository, mock(OrganizationRepository.class),
+            mock(AiSearchService.class), mock(ProductCountEstimator.class), mock(ProductFacetQuery.class),
+            Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(),
+            event -> { }, mock(PlatformTransactionManager.class), mock(SearchExecutors.class), new AiSearchProperties(),
+            new SimpleMeterRegistry());
+
+    @Test
+    void trimsTheExtraItemAndPointsTheCursorAtTheLastOneKept() {
+        List<ProductDTO> rows = List.of(product("A", "1.50"), product("B", null), product("C", "3"));
+        when(productRepository.findDtos(ArgumentMatchers.<Specification<Product>>any(), any(Sort.class), eq(3)))
+                .thenReturn(new ArrayList<>(rows));
+
+        ProductPage page = service.findPageWithFilters(null, null, null, null, "price_asc", null, 2, false);
+
+        assertEquals(List.of("A", "B"), page.getItems().stream().map(ProductDTO::getProductName).toList());
+        ProductCursor cursor = ProductCursor.decode(page.getNextCursor());
+        assertEquals("price_asc", cursor.getSort());
+        assertEquals(rows.get(1).getId(), cursor.getId());
+        assertNull(cursor.getPriceValue());
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        when(productRepository.findDtos(ArgumentMatchers.<Specification<Product>>any(), any(Sort.class), anyInt()))
+                .thenReturn(new ArrayList<>(List.of(product("A", "1"), product("B", "2"))));
+
+        ProductPage page = service.findPageWithFilters(null, null, null, null, "price_asc", null, 2, false);
+
+        assertEquals(2, page.getItems().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void cursorFromAnotherSortIsRejected() {
+        String cursor = new ProductCursor("name_asc", UUID.randomUUID(), "Ração").encode();
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> service.findPageWithFilters(null, null, null, null, "price_asc", cursor, 2, false));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+    }
+
+    @Test
+    void forgedPriceInTheCursorIsRejected() {
+        String cursor = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                ("price_asc\n" + UUID.randomUUID() + "\nvdez reais").getBytes(StandardCharsets.UTF_8));
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> service.findPageWithFilters(null, null, null, null, "price_asc", cursor, 2, false));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+    }
+
+    private static ProductDTO product(String name, String price) {
+        Product product = new Product();
+        product.setId(UUID.randomUUID());
+        product.setProductName(name);
+        product.setPrice(price != null ? new BigDecimal(price) : null);
+        return new ProductDTO(product);
+    }
+}
@@ -0,0 +1,146 @@
+package com.marketplace.marketplace.service;
+
+import com.marketplace.marketplace.config.AiSearchProperties;
+import com.marketplace.marketplace.config.SearchExecutors;
+import com.marketplace.marketplace.domain.Product;
+import com.marketplace.marketplace.dto.AiSearchResponse;
+import com.marketplace.marketplace.dto.AiSearchResult;
+import com.marketplace.marketplace.dto.ProductDTO;
+import com.marketplace.marketplace.dto.SearchFilters;
+import com.marketplace.marketplace.repository.OrganizationRepository;
+import com.marketplace.marketplace.repository.ProductCountEstimator;
+import com.marketplace.marketplace.repository.ProductFacetQuery;
+import com.marketplace.marketplace.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Busca por IA especulativa, com o banco e a IA simulados: a IA responde a tempo, demora
+ * além do orçamento ou falha; e o fallback que falha ou passa do prazo não vira erro.
+ */
+class ProductServiceSpeculativeSearchTest {
+
+    private static final Duration BUDGET = Duration.ofMillis(200);
+    private static final Duration FALLBACK_TIMEOUT = Duration.ofMillis(500);
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AiSearchProperties properties = new AiSearchProperties();
+    private final SearchExecutors executors = new SearchExecutors(properties);
+    private final List<ProductDTO> catalog = List.of(product("Ração para cães"));
+
+    @AfterEach
+    void stopExecutor() {
+        executors.shutdown();
+    }
+
+    @Test
+    void aiWithinBudgetWins() {
+        when(productRepository.findDtos(any(), any())).thenReturn(new ArrayList<>(catalog));
+        ProductService service = service(query -> new AiSearchResponse("Achei estas rações", new SearchFilters("ração", null, null, null)));
+
+        AiSearchResult result = service.aiSearch("ração");
+
+        assertEquals("Achei estas rações", result.getFriendlyMessage());
+        assertEquals(1, result.getProducts().size());
+        assertEquals(1.0, outcome("ai"));
+    }
+
+    @Test
+    void slowAiFallsBackWithoutCallingItOffline() {
+        when(productRepository.findDtos(any(), any())).thenReturn(new ArrayList<>(catalog));
+        ProductService service = service(query -> {
+            Thread.sleep(BUDGET.toMillis() * 5);
+            return new AiSearchResponse("tarde demais", new SearchFilters("ração", null, null, null));
+        });
+
+        AiSearchResult result = service.aiSearch("ração");
+
+        assertEquals(1, result.getProducts().size());
+        assertTrue(result.getFriendlyMessage().contains("demorando"), result.getFriendlyMessage());
+        assertEquals(1.0, outcome("fallback_slow"));
+    }
+
+    @Test
+    void failedAiFallsBackWithTheOfflineMessage() {
+        when(productRepository.findDtos(any(), any())).thenReturn(new ArrayList<>(catalog));
+        ProductService service = service(query -> {
+            throw new IllegalStateException("Gemini fora do ar");
+        });
+
+        AiSearchResult result = service.aiSearch("ração");
+
+        assertEquals(1, result.getProducts().size());
+        assertTrue(result.getFriendlyMessage().contains("offline"), result.getFriendlyMessage());
+        assertEquals(1.0, outcome("fallback_error"));
+    }
+
+    @Test
+    void failedFallbackReturnsAnEmptyResultInsteadOfAnError() {
+        when(productRepository.findDtos(ArgumentMatchers.<Specification<Product>>any(), any(Sort.class)))
+                .thenThrow(new IllegalStateException("banco fora do ar"));
+        ProductService service = service(query -> {
+            throw new IllegalStateException("Gemini fora do ar");
+        });
+
+        AiSearchResult result = service.aiSearch("ração");
+
+        assertTrue(result.getProducts().isEmpty());
+        assertTrue(result.getFriendlyMessage().contains("offline"), result.getFriendlyMessage());
+    }
+
+    @Test
+    void slowFallbackGivesUpAtTheTimeoutWithAnEmptyResult() {
+        when(productRepository.findDtos(ArgumentMatchers.<Specification<Product>>any(), any(Sort.class))).thenAnswer(invocation -> {
+            Thread.sleep(FALLBACK_TIMEOUT.toMillis() * 10);
+            return new ArrayList<>(catalog);
+        });
+        ProductService service = service(query -> {
+            throw new IllegalStateException("Gemini fora do ar");
+        });
+
+        long start = System.nanoTime();
+        AiSearchResult result = service.aiSearch("ração");
+
+        assertTrue(result.getProducts().isEmpty());
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(FALLBACK_TIMEOUT.multipliedBy(4)) < 0);
+    }
+
+    private double outcome(String result) {
+        return meterRegistry.get("ai.search.speculative").tag("result", result).counter().count();
+    }
+
+    private ProductService service(AiSearchService ai) {
+        properties.getSpeculative().setEnabled(true);
+        properties.getSpeculative().setBudget(BUDGET);
+        properties.getSpeculative().setFallbackTimeout(FALLBACK_TIMEOUT);
+        return new ProductService(productRepository, mock(OrganizationRepository.class), ai,
+                mock(ProductCountEstimator.class), mock(ProductFacetQuery.class),
+                Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(),
+                event -> { }, mock(PlatformTransactionManager.class), executors, properties, meterRegistry);
+    }
+
+    private static ProductDTO product(String name) {
+        Product product = new Product();
+        product.setId(UUID.randomUUID());
+        product.setProductName(name);
+        return new ProductDTO(product);
+    }
+}
@@ -0,0 +1,155 @@
+package com.marketplace.marketplace.service;
+
+import com.marketplace.marketplace.domain.Product;
+import com.marketplace.marketplace.domain.ProductCategory;
+import com.marketplace.marketplace.dto.ProductSuggestion;
+import com.marketplace.marketplace.repository.OrderItemRepository;
+import com.marketplace.marketplace.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductSuggestIndexTest {
+
+    private final UUID organization = UUID.randomUUID();
+    private ProductSuggestIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSuggestIndex(null, null, new AiQueryNormalizer(), 5);
+        index.markReady();
+    }
+
+    @Test
+    void matchesAnyWordRankedByUnitsOrdered() {
+        UUID premium = UUID.randomUUID();
+        index.index(premium, "Ração Premium", ProductCategory.ALIMENTO, null, 3);
+        index.index(UUID.randomUUID(), "Ração para Gatos", ProductCategory.ALIMENTO, null, 10);
+        index.index(UUID.randomUUID(), "Areia Premium", ProductCategory.HIGIENE, null, 1);
+
+        assertEquals(List.of("Ração para Gatos", "Ração Premium"), texts(index.suggest("RA", 10, null)));
+        assertEquals(List.of("Alimento", "Areia Premium"), texts(index.suggest("a", 10, null)));
+        assertEquals(List.of("Ração Premium", "Areia Premium"), texts(index.suggest("prem", 10, null)));
+        assertEquals(List.of("Ração Premium"), texts(index.suggest("racao pr", 10, null)));
+
+        // Um pedido reordena sem reindexar o resto.
+        index.index(premium, "Ração Premium", ProductCategory.ALIMENTO, null, 20);
+        assertEquals(List.of("Ração Premium", "Ração para Gatos"), texts(index.suggest("ra", 10, null)));
+
+        index.remove(premium);
+        assertEquals(List.of("Areia Premium"), texts(index.suggest("prem", 10, null)));
+    }
+
+    @Test
+    void checksPrefixesLongerThanTheTokens() {
+        index.index(UUID.randomUUID(), "Coleira Refletiva Ajustável para Cachorros Grandes", ProductCategory.ACESSORIO, null, 0);
+        index.index(UUID.randomUUID(), "Coleira Refletiva Ajustável para Gatos", ProductCategory.ACESSORIO, null, 0);
+
+        assertEquals(List.of("Coleira Refletiva Ajustável para Cachorros Grandes"),
+                texts(index.suggest("refletiva ajustavel para cach", 10, null)));
+    }
+
+    @Test
+    void restrictsSuggestionsToTheTenant() {
+        index.index(UUID.randomUUID(), "Bola de Tênis", ProductCategory.BRINQUEDO, organization, 0);
+        index.index(UUID.randomUUID(), "Bolsa Térmica", ProductCategory.ACESSORIO, null, 5);
+
+        assertEquals(List.of("Bolsa Térmica", "Bola de Tênis"), texts(index.suggest("bol", 10, null)));
+        assertEquals(List.of("Bola de Tênis"), texts(index.suggest("bol", 10, organization)));
+        assertEquals(List.of(), texts(index.suggest("bol", 10, UUID.randomUUID())));
+    }
+
+    @Test
+    void rebuildAppliesEventsThatArriveMidwayOnlyOnce() {
+        ProductRepository productRepository = mock(ProductRepository.class);
+        OrderItemRepository orderItemRepository = mock(OrderItemRepository.class);
+        ProductSuggestIndex rebuilding = new ProductSuggestIndex(productRepository, orderItemRepository, new AiQueryNormalizer(), 5);
+        Product premium = product("Ração Premium");
+        Product gatos = product("Ração para Gatos");
+        Product areia = product("Areia Premium");
+        List<Object[]> sums = new ArrayList<>();
+        sums.add(new Object[]{premium.getId(), 5L});
+        sums.add(new Object[]{gatos.getId(), 6L});
+        when(orderItemRepository.sumQuantityByProduct()).thenReturn(sums);
+        when(productRepository.findAll(any(Pageable.class))).thenAnswer(invocation -> {
+            // Confirmados depois da soma: um pedido de um produto já lido e uma exclusão.
+            rebuilding.onProductChanged(ProductChangedEvent.ordered(premium, 2));
+            rebuilding.onProductChanged(ProductChangedEvent.deleted(areia.getId()));
+            return new PageImpl<>(List.of(premium, gatos, areia));
+        });
+
+        rebuilding.rebuildIndex();
+
+        assertEquals(List.of("Ração Premium", "Ração para Gatos"), texts(rebuilding.suggest("ra", 10, null)));
+        rebuilding.index(gatos, 1);
+        // 7 a 7: o empate cai na ordem alfabética.
+        assertEquals(List.of("Ração para Gatos", "Ração Premium"), texts(rebuilding.suggest("ra", 10, null)));
+        assertEquals(List.of("Ração Premium"), texts(rebuilding.suggest("prem", 10, null)));
+    }
+
+    @Test
+    void agreesWithABruteForceScan() {
+        String[] words = {"racao", "petiscao", "bola", "bolsa", "coleira", "premium", "gato", "cachorro", "petisco", "areia"};
+        Random random = new Random(7);
+        Map<UUID, String> names = new HashMap<>();
+        Map<String, Long> units = new HashMap<>();
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            UUID id = i < 200 || random.nextBoolean() ? UUID.randomUUID() : ids.get(random.nextInt(ids.size()));
+            String name = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)] + " " + random.nextInt(30);
+            long ordered = random.nextInt(5);
+            if (random.nextInt(10) == 0 && names.containsKey(id)) {
+                index.remove(id);
+                names.remove(id);
+                units.remove(id.toString());
+                continue;
+            }
+            index.index(id, name, null, null, ordered);
+            ids.add(id);
+            names.put(id, name);
+            units.merge(id.toString(), ordered, Long::sum);
+        }
+
+        for (String prefix : List.of("r", "ra", "racao 1", "bol", "gato c", "p", "1")) {
+            Map<String, Long> popularity = new HashMap<>();
+            names.forEach((id, name) -> {
+                String folded = new AiQueryNormalizer().fold(name);
+                if (folded.startsWith(prefix) || folded.contains(" " + prefix)) {
+                    popularity.merge(name, units.get(id.toString()), Long::sum);
+                }
+            });
+            List<String> expected = popularity.entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed()
+                            .thenComparing(entry -> new AiQueryNormalizer().fold(entry.getKey())))
+                    .limit(5)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+            assertEquals(expected, texts(index.suggest(prefix, 5, null)), prefix);
+        }
+    }
+
+    private static Product product(String name) {
+        Product product = new Product();
+        product.setId(UUID.randomUUID());
+        product.setProductName(name);
+        return product;
+    }
+
+    private static List<String> texts(List<ProductSuggestion> suggestions) {
+        return suggestions.stream().map(ProductSuggestion::getText).collect(Collectors.toList());
+    }
+}
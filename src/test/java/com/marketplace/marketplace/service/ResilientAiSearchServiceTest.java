@@ -0,0 +1,210 @@
+package com.marketplace.marketplace.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketplace.marketplace.dto.AiSearchResponse;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Exercita o cliente do Gemini contra um servidor HTTP local que injeta atraso e erros.
+ */
+class ResilientAiSearchServiceTest {
+
+    private static final String GEMINI_BODY = "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":" +
+            "\"{\\\"friendlyMessage\\\":\\\"ok\\\",\\\"filters\\\":{\\\"name\\\":\\\"ração\\\"}}\"}]}}]}";
+
+    /** Comportamento de cada requisição, na ordem; vazio = responde na hora com 200. */
+    private final ConcurrentLinkedQueue<long[]> script = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private SimpleMeterRegistry meterRegistry;
+    private GeminiAiSearchService gemini;
+
+    @BeforeEach
+    void startStub() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/gemini", exchange -> {
+            requests.incrementAndGet();
+            long[] step = script.poll();
+            long delayMs = step != null ? step[0] : 0;
+            int status = step != null ? (int) step[1] : 200;
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = (status == 200 ? GEMINI_BODY : "{\"error\":\"stub\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            } catch (Exception ignored) {
+                // o cliente pode ter desistido (timeout/cancelamento)
+            }
+        });
+        server.start();
+
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(Duration.ofSeconds(1));
+        factory.setReadTimeout(Duration.ofSeconds(2));
+        gemini = new GeminiAiSearchService(new RestTemplate(factory), new ObjectMapper());
+        ReflectionTestUtils.setField(gemini, "apiUrl", "http://127.0.0.1:" + server.getAddress().getPort() + "/gemini");
+        ReflectionTestUtils.setField(gemini, "apiKey", "test");
+
+        executor = Executors.newFixedThreadPool(4);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void stopStub() {
+        executor.shutdownNow();
+        server.stop(0);
+    }
+
+    @Test
+    void returnsResponseWithinDeadline() throws Exception {
+        AiSearchResponse response = resilient(Duration.ofSeconds(1), breaker(), false, 0).parseSearchQuery("ração");
+
+        assertEquals("ok", response.getFriendlyMessage());
+        assertEquals(1, meterRegistry.get("ai.search.remote.latency").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void giveUpAtDeadlineInsteadOfWaitingForReadTimeout() {
+        script.add(new long[]{1500, 200});
+        ResilientAiSearchService service = resilient(Duration.ofMillis(200), breaker(), false, 0);
+
+        long start = System.nanoTime();
+        assertThrows(TimeoutException.class, () -> service.parseSearchQuery("ração"));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMs < 1000, "Deveria desistir no prazo, levou " + elapsedMs + " ms");
+        assertEquals(1.0, meterRegistry.get("ai.search.remote.timeouts").counter().count());
+    }
+
+    @Test
+    void openCircuitStopsCallingTheRemoteService() {
+        for (int i = 0; i < 4; i++) {
+            script.add(new long[]{0, 500});
+        }
+        AiCircuitBreaker breaker = new AiCircuitBreaker(4, 4, 50, Duration.ofMinutes(1));
+        ResilientAiSearchService service = resilient(Duration.ofSeconds(1), breaker, false, 0);
+
+        for (int i = 0; i < 4; i++) {
+            assertThrows(Exception.class, () -> service.parseSearchQuery("ração"));
+        }
+        assertEquals(AiCircuitBreaker.State.OPEN, breaker.getState());
+
+        assertThrows(AiUnavailableException.class, () -> service.parseSearchQuery("ração"));
+        assertEquals(4, requests.get());
+        assertEquals(1.0, meterRegistry.get("ai.search.remote.short_circuited").counter().count());
+    }
+
+    @Test
+    void interruptedTrialCallFreesTheHalfOpenCircuit() throws Exception {
+        script.add(new long[]{0, 500});
+        script.add(new long[]{0, 500});
+        script.add(new long[]{1500, 200});
+        AiCircuitBreaker breaker = new AiCircuitBreaker(2, 2, 50, Duration.ZERO);
+        ResilientAiSearchService service = resilient(Duration.ofSeconds(5), breaker, false, 0);
+        for (int i = 0; i < 2; i++) {
+            assertThrows(Exception.class, () -> service.parseSearchQuery("ração"));
+        }
+
+        // A chamada de teste do meio-aberto é interrompida antes de a IA responder.
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        try {
+            Future<AiSearchResponse> trial = caller.submit(() -> service.parseSearchQuery("ração"));
+            for (int i = 0; i < 200 && requests.get() < 3; i++) {
+                Thread.sleep(10);
+            }
+            assertEquals(AiCircuitBreaker.State.HALF_OPEN, breaker.getState());
+            trial.cancel(true);
+            Thread.sleep(100);
+        } finally {
+            caller.shutdownNow();
+        }
+
+        AiSearchResponse response = service.parseSearchQuery("ração");
+        assertEquals("ok", response.getFriendlyMessage());
+        assertEquals(AiCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void lateOutcomeFromAnEarlierPeriodIsIgnored() {
+        AiCircuitBreaker breaker = new AiCircuitBreaker(2, 2, 50, Duration.ZERO);
+        AiCircuitBreaker.Permit slow = breaker.tryAcquire();
+        breaker.tryAcquire().onFailure();
+        breaker.tryAcquire().onFailure();
+        AiCircuitBreaker.Permit trial = breaker.tryAcquire();
+        assertEquals(AiCircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        // Começou com o circuito fechado: o sucesso atrasado não fecha o meio-aberto.
+        slow.onSuccess();
+        assertEquals(AiCircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertNull(breaker.tryAcquire());
+
+        trial.onSuccess();
+        assertEquals(AiCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void hedgeWinsWhenFirstAttemptIsSlow() throws Exception {
+        ResilientAiSearchService service = resilient(Duration.ofSeconds(2), breaker(), true, 5);
+        for (int i = 0; i < 5; i++) {
+            service.parseSearchQuery("aquecimento");
+        }
+        requests.set(0);
+        script.add(new long[]{1500, 200});
+
+        long start = System.nanoTime();
+        AiSearchResponse response = service.parseSearchQuery("ração");
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals("ok", response.getFriendlyMessage());
+        assertEquals(2, requests.get());
+        assertTrue(elapsedMs < 1000, "O hedge deveria responder antes da tentativa lenta, levou " + elapsedMs + " ms");
+        // o contador é incrementado pela thread do hedge logo depois de completar o resultado
+        double won = 0;
+        for (int i = 0; i < 50 && won == 0; i++) {
+            Thread.sleep(10);
+            won = meterRegistry.get("ai.search.remote.hedges").tag("result", "won").counter().count();
+        }
+        assertEquals(1.0, won);
+    }
+
+    private AiCircuitBreaker breaker() {
+        return new AiCircuitBreaker(20, 10, 50, Duration.ofSeconds(30));
+    }
+
+    private ResilientAiSearchService resilient(Duration deadline, AiCircuitBreaker breaker,
+                                               boolean hedging, long hedgeMinSamples) {
+        return new ResilientAiSearchService(gemini, executor, deadline, breaker,
+                hedging, 0.95, hedgeMinSamples, meterRegistry);
+    }
+}